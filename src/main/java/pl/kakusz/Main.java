@@ -5,24 +5,48 @@ import javafx.stage.Stage;
 import lombok.Getter;
 import lombok.Setter;
 import pl.kakusz.fx.ControllerManager;
+import pl.kakusz.fx.NotificationCenter;
+import pl.kakusz.fx.UiResources;
+import pl.kakusz.database.managers.CatalogPoller;
+import pl.kakusz.database.managers.DatabaseBootstrap;
+import pl.kakusz.database.managers.DatabaseExecutor;
 import pl.kakusz.database.managers.HibernateManager;
+import pl.kakusz.database.metrics.DaoMetrics;
+import pl.kakusz.security.LoginRateLimiter;
+import pl.kakusz.security.PasswordHasher;
 
 import java.io.IOException;
+import java.util.logging.Logger;
 
 @Getter
 @Setter
 public class Main extends Application {
 
+    private static final Logger LOGGER = Logger.getLogger(Main.class.getName());
 
     @Override
     public void start(Stage stage) throws IOException {
+        // Połączenie z bazą i wczytanie katalogu trwają w tle, gdy użytkownik wpisuje dane logowania
+        DatabaseBootstrap.getInstance().start();
+        DaoMetrics.getInstance().start();
+        PasswordHasher.getInstance().calibrateAsync();
         ControllerManager.getInstance().getLoginController().showWindow(stage);
+
+        // Panel główny i panel administratora wczytują się w tle, zanim użytkownik się zaloguje
+        UiResources.getInstance().preload(UiResources.View.DASHBOARD, UiResources.View.ADMIN);
     }
 
     public static void main(String[] args) {
         try {
             launch(args);
         } finally {
+            CatalogPoller.getInstance().stop();
+            DatabaseExecutor.getInstance().shutdown();
+            PasswordHasher.getInstance().shutdown();
+            LOGGER.info(String.valueOf(LoginRateLimiter.getInstance()));
+            LOGGER.info(String.valueOf(NotificationCenter.getInstance()));
+            DaoMetrics.getInstance().stop();
+            LOGGER.info(String.valueOf(DaoMetrics.getInstance()));
             HibernateManager.shutdown();
         }
 
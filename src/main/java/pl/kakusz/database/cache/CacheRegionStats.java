@@ -0,0 +1,87 @@
+package pl.kakusz.database.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import lombok.Getter;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Konfiguracja i statystyki jednego regionu cache drugiego poziomu.
+ *
+ * <p>Dane pochodzą bezpośrednio z Caffeine (liczniki {@code native-statistics}),
+ * więc ich odczyt nie wymaga włączania {@code hibernate.generate_statistics}.
+ * Te same regiony są dodatkowo widoczne przez JMX pod {@code javax.cache:*}.</p>
+ */
+@Getter
+public class CacheRegionStats {
+
+    private final String region;
+    private final long maximumSize;
+    private final long expireAfterWriteSeconds;
+    private final long size;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final double hitRatio;
+
+    private CacheRegionStats(String region, CaffeineConfiguration<?, ?> configuration,
+                             com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+        CacheStats stats = nativeCache.stats();
+        this.region = region;
+        this.maximumSize = orMinusOne(configuration.getMaximumSize());
+        OptionalLong expireNanos = configuration.getExpireAfterWrite();
+        this.expireAfterWriteSeconds = expireNanos.isPresent() ? TimeUnit.NANOSECONDS.toSeconds(expireNanos.getAsLong()) : -1;
+        this.size = nativeCache.estimatedSize();
+        this.hits = stats.hitCount();
+        this.misses = stats.missCount();
+        this.evictions = stats.evictionCount();
+        this.hitRatio = stats.hitRate();
+    }
+
+    /**
+     * Zbiera statystyki wszystkich regionów zdefiniowanych w {@link CacheRegions}.
+     *
+     * @param sessionFactory fabryka sesji z włączonym cache drugiego poziomu.
+     * @return lista statystyk; pusta, jeśli cache nie jest oparty o JCache.
+     */
+    @SuppressWarnings("unchecked")
+    public static List<CacheRegionStats> collect(SessionFactory sessionFactory) {
+        List<CacheRegionStats> result = new ArrayList<>();
+        RegionFactory regionFactory = sessionFactory.unwrap(SessionFactoryImplementor.class).getCache().getRegionFactory();
+        if (!(regionFactory instanceof JCacheRegionFactory)) {
+            return result;
+        }
+
+        CacheManager cacheManager = ((JCacheRegionFactory) regionFactory).getCacheManager();
+        for (String region : CacheRegions.ALL) {
+            Cache<Object, Object> cache = cacheManager.getCache(region);
+            if (cache == null) {
+                continue;
+            }
+            result.add(new CacheRegionStats(region,
+                    cache.getConfiguration(CaffeineConfiguration.class),
+                    cache.unwrap(com.github.benmanes.caffeine.cache.Cache.class)));
+        }
+        return result;
+    }
+
+    private static long orMinusOne(OptionalLong value) {
+        return value.isPresent() ? value.getAsLong() : -1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: rozmiar=%d/%d, ttl=%ds, trafienia=%d, chybienia=%d, usunięte=%d, skuteczność=%.1f%%",
+                region, size, maximumSize, expireAfterWriteSeconds, hits, misses, evictions, hitRatio * 100);
+    }
+}
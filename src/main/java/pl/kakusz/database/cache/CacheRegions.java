@@ -0,0 +1,28 @@
+package pl.kakusz.database.cache;
+
+/**
+ * Nazwy regionów cache drugiego poziomu Hibernate.
+ *
+ * <p>Każda nazwa musi mieć swój wpis w {@code application.conf}, gdzie określono
+ * maksymalny rozmiar i czas życia danego regionu.</p>
+ */
+public final class CacheRegions {
+
+    /** Region encji {@link pl.kakusz.database.objects.Course}. */
+    public static final String COURSE = "course";
+
+    /** Region encji {@link pl.kakusz.database.objects.User}. */
+    public static final String USER = "user";
+
+    /** Region kolekcji {@code User.courses}. */
+    public static final String USER_COURSES = "user-courses";
+
+    /** Region wyników zapytań katalogu kursów. */
+    public static final String CATALOG_QUERIES = "catalog-queries";
+
+    /** Wszystkie regiony danych skonfigurowane przez aplikację. */
+    public static final String[] ALL = {COURSE, USER, USER_COURSES, CATALOG_QUERIES};
+
+    private CacheRegions() {
+    }
+}
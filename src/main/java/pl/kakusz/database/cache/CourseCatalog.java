@@ -0,0 +1,160 @@
+package pl.kakusz.database.cache;
+
+import pl.kakusz.database.objects.Course;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Niezmienna migawka katalogu kursów z indeksami po identyfikatorze i nazwie.
+ *
+ * <p>Każda zmiana katalogu tworzy nową migawkę o wyższym numerze wersji, dzięki czemu
+ * czytelnicy na dowolnym wątku widzą zawsze spójny stan bez żadnej synchronizacji.
+ * Migawki są publikowane przez {@link java.util.concurrent.atomic.AtomicReference}
+ * w {@link pl.kakusz.database.managers.CourseManager}.</p>
+ *
+ * <p>Niezależnie od lokalnego numeru wersji migawka pamięta pozycję w dzienniku zmian bazy
+ * ({@link #getSyncVersion()}) - od niej zaczyna się kolejne pytanie o zmiany innych klientów.</p>
+ */
+public final class CourseCatalog {
+
+    /** Pusta migawka, używana przed pierwszym wczytaniem kursów. */
+    public static final CourseCatalog EMPTY = new CourseCatalog(0, 0, Collections.<Course>emptyList());
+
+    private final long version;
+    private final long syncVersion;
+    private final List<Course> courses;
+    private final Map<Long, Course> byId;
+    private final Map<String, Course> byName;
+
+    private CourseCatalog(long version, long syncVersion, List<Course> courses) {
+        this.version = version;
+        this.syncVersion = syncVersion;
+        this.courses = Collections.unmodifiableList(courses);
+
+        Map<Long, Course> ids = new HashMap<>(courses.size() * 2);
+        Map<String, Course> names = new HashMap<>(courses.size() * 2);
+        for (Course course : courses) {
+            ids.put(course.getId(), course);
+            if (course.getName() != null) {
+                names.putIfAbsent(normalize(course.getName()), course);
+            }
+        }
+        this.byId = ids;
+        this.byName = names;
+    }
+
+    /**
+     * Tworzy migawkę z pełnej listy kursów.
+     *
+     * @param version     numer wersji nowej migawki.
+     * @param syncVersion numer zmiany w dzienniku odczytany przed wczytaniem kursów.
+     * @param courses     kursy wczytane z bazy danych.
+     * @return nowa migawka.
+     */
+    public static CourseCatalog of(long version, long syncVersion, Collection<Course> courses) {
+        return new CourseCatalog(version, syncVersion, new ArrayList<>(courses));
+    }
+
+    /**
+     * Zwraca nową wersję katalogu z naniesionymi zmianami z dziennika.
+     *
+     * @param syncVersion numer zmiany, do której katalog jest odtąd zsynchronizowany.
+     * @param upserts     kursy dodane lub zmienione - zastępują kursy o tym samym identyfikatorze.
+     * @param removedIds  identyfikatory kursów usuniętych.
+     * @return nowa migawka.
+     */
+    public CourseCatalog applyChanges(long syncVersion, Collection<Course> upserts, Collection<Long> removedIds) {
+        Map<Long, Course> next = new LinkedHashMap<>(courses.size() * 2);
+        for (Course existing : courses) {
+            next.put(existing.getId(), existing);
+        }
+        for (Long removedId : removedIds) {
+            next.remove(removedId);
+        }
+        for (Course course : upserts) {
+            next.put(course.getId(), course);
+        }
+        return new CourseCatalog(version + 1, Math.max(this.syncVersion, syncVersion), new ArrayList<>(next.values()));
+    }
+
+    /**
+     * Zwraca nową wersję katalogu z dodanym lub zastąpionym kursem.
+     *
+     * @param course kurs do dodania.
+     * @return nowa migawka.
+     */
+    public CourseCatalog with(Course course) {
+        List<Course> next = new ArrayList<>(courses.size() + 1);
+        boolean replaced = false;
+        for (Course existing : courses) {
+            if (Objects.equals(existing.getId(), course.getId())) {
+                next.add(course);
+                replaced = true;
+            } else {
+                next.add(existing);
+            }
+        }
+        if (!replaced) {
+            next.add(course);
+        }
+        return new CourseCatalog(version + 1, syncVersion, next);
+    }
+
+    /**
+     * Zwraca nową wersję katalogu bez kursu o podanym identyfikatorze.
+     *
+     * @param courseId identyfikator usuwanego kursu.
+     * @return nowa migawka.
+     */
+    public CourseCatalog without(Long courseId) {
+        List<Course> next = new ArrayList<>(courses.size());
+        for (Course existing : courses) {
+            if (!Objects.equals(existing.getId(), courseId)) {
+                next.add(existing);
+            }
+        }
+        return new CourseCatalog(version + 1, syncVersion, next);
+    }
+
+    /** @return numer wersji migawki, rosnący przy każdej zmianie. */
+    public long getVersion() {
+        return version;
+    }
+
+    /** @return numer ostatniej zmiany z dziennika, którą uwzględnia migawka. */
+    public long getSyncVersion() {
+        return syncVersion;
+    }
+
+    /** @return niemodyfikowalna lista wszystkich kursów. */
+    public List<Course> getCourses() {
+        return courses;
+    }
+
+    /** @return kurs o podanym identyfikatorze lub {@code null}. */
+    public Course getById(Long courseId) {
+        return courseId == null ? null : byId.get(courseId);
+    }
+
+    /** @return kurs o podanej nazwie (bez rozróżniania wielkości liter) lub {@code null}. */
+    public Course getByName(String name) {
+        return name == null ? null : byName.get(normalize(name));
+    }
+
+    /** @return liczba kursów w migawce. */
+    public int size() {
+        return courses.size();
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
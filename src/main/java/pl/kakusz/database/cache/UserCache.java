@@ -0,0 +1,224 @@
+package pl.kakusz.database.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import pl.kakusz.database.objects.User;
+import pl.kakusz.util.LongHashSet;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Pamięć podręczna wyszukiwań użytkowników po adresie e-mail i nazwie użytkownika.
+ *
+ * <p>Przechowuje zarówno znalezionych użytkowników, jak i wpisy negatywne
+ * („użytkownik nie istnieje”). Wpisy negatywne wygasają szybciej, ponieważ
+ * inny klient może w tym czasie zarejestrować konto o tej samej nazwie.</p>
+ *
+ * <h3>Założenia:</h3>
+ * <ul>
+ *   <li>Rozmiar każdej z map jest ograniczony do {@value #MAXIMUM_SIZE} wpisów.</li>
+ *   <li>Klucze są normalizowane do małych liter, tak jak porównuje je MySQL (collation *_ci).</li>
+ *   <li>Każdy zapis użytkownika musi unieważnić lub odświeżyć odpowiednie wpisy.</li>
+ *   <li>Każde wywołanie dostaje własną kopię użytkownika, więc zmiany wprowadzone przez jeden ekran
+ *       (np. nieudany zapis salda) nie są widoczne dla innych. Kopia nie zawiera kursów - do nich
+ *       służy {@link pl.kakusz.database.managers.UserManager#getUserWithCourses(String)}.</li>
+ * </ul>
+ */
+public class UserCache {
+
+    /** Maksymalna liczba wpisów w każdej z map. */
+    public static final long MAXIMUM_SIZE = 1_000;
+
+    /** Czas życia wpisu z odnalezionym użytkownikiem. */
+    private static final Duration HIT_TTL = Duration.ofMinutes(5);
+
+    /** Czas życia wpisu negatywnego („nie istnieje”). */
+    private static final Duration MISS_TTL = Duration.ofSeconds(30);
+
+    private final Cache<String, Optional<User>> byEmail;
+    private final Cache<String, Optional<User>> byUsername;
+
+    public UserCache() {
+        this.byEmail = newCache();
+        this.byUsername = newCache();
+    }
+
+    private static Cache<String, Optional<User>> newCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(MAXIMUM_SIZE)
+                .expireAfter(new Expiry<String, Optional<User>>() {
+                    @Override
+                    public long expireAfterCreate(String key, Optional<User> value, long currentTime) {
+                        return (value.isPresent() ? HIT_TTL : MISS_TTL).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Optional<User> value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Optional<User> value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Zwraca użytkownika o podanym adresie e-mail, w razie braku wpisu ładując go przez {@code loader}.
+     *
+     * @param email  adres e-mail.
+     * @param loader funkcja pobierająca użytkownika z bazy (może zwrócić {@code null}).
+     * @return użytkownik lub pusty {@link Optional}, jeśli nie istnieje.
+     */
+    public Optional<User> getByEmail(String email, Function<String, User> loader) {
+        return get(byEmail, email, loader);
+    }
+
+    /**
+     * Zwraca użytkownika o podanej nazwie, w razie braku wpisu ładując go przez {@code loader}.
+     *
+     * @param username nazwa użytkownika.
+     * @param loader   funkcja pobierająca użytkownika z bazy (może zwrócić {@code null}).
+     * @return użytkownik lub pusty {@link Optional}, jeśli nie istnieje.
+     */
+    public Optional<User> getByUsername(String username, Function<String, User> loader) {
+        return get(byUsername, username, loader);
+    }
+
+    private static Optional<User> get(Cache<String, Optional<User>> cache, String value, Function<String, User> loader) {
+        if (value == null) {
+            return Optional.empty();
+        }
+        // Wyjątek z loadera jest propagowany i nie trafia do pamięci podręcznej
+        return cache.get(normalize(value), key -> Optional.ofNullable(loader.apply(value))).map(UserCache::copy);
+    }
+
+    /** @return nowa encja z polami podanego użytkownika, bez kursów. */
+    private static User copy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setUsername(user.getUsername());
+        copy.setEmail(user.getEmail());
+        copy.setPassword(user.getPassword());
+        copy.setRole(user.getRole());
+        copy.setBalance(user.getBalance());
+        return copy;
+    }
+
+    /**
+     * Zapisuje świeżo utrwalonego użytkownika, zastępując ewentualne wpisy negatywne.
+     *
+     * @param user zapisany użytkownik.
+     */
+    public void put(User user) {
+        invalidate(user);
+        Optional<User> entry = Optional.of(copy(user));
+        if (user.getEmail() != null) {
+            byEmail.put(normalize(user.getEmail()), entry);
+        }
+        if (user.getUsername() != null) {
+            byUsername.put(normalize(user.getUsername()), entry);
+        }
+    }
+
+    /**
+     * Usuwa wszystkie wpisy dotyczące podanego użytkownika.
+     *
+     * <p>Poza kluczami wynikającymi z bieżącego e-maila i nazwy usuwane są również wpisy
+     * wskazujące na ten sam identyfikator, np. gdy e-mail został właśnie zmieniony.</p>
+     *
+     * @param user użytkownik, którego dane się zmieniły.
+     */
+    public void invalidate(User user) {
+        if (user == null) {
+            return;
+        }
+        if (user.getEmail() != null) {
+            byEmail.invalidate(normalize(user.getEmail()));
+        }
+        if (user.getUsername() != null) {
+            byUsername.invalidate(normalize(user.getUsername()));
+        }
+        if (user.getId() != null) {
+            invalidateId(user.getId());
+        }
+    }
+
+    /**
+     * Usuwa wszystkie wpisy wskazujące na użytkownika o podanym identyfikatorze.
+     *
+     * @param userId identyfikator użytkownika.
+     */
+    public void invalidateId(Long userId) {
+        byEmail.asMap().values().removeIf(value -> value.isPresent() && Objects.equals(value.get().getId(), userId));
+        byUsername.asMap().values().removeIf(value -> value.isPresent() && Objects.equals(value.get().getId(), userId));
+    }
+
+    /**
+     * Usuwa wszystkie wpisy wskazujące na podanych użytkowników - jednym przejściem po mapach,
+     * np. po zbiorczym przypisaniu kursów.
+     *
+     * @param userIds identyfikatory użytkowników.
+     */
+    public void invalidateIds(LongHashSet userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        byEmail.asMap().values().removeIf(value -> value.isPresent() && userIds.contains(value.get().getId()));
+        byUsername.asMap().values().removeIf(value -> value.isPresent() && userIds.contains(value.get().getId()));
+    }
+
+    /**
+     * Usuwa wpisy użytkownika o podanym adresie e-mail - również wyszukiwane po nazwie - np. po
+     * zapisie adresowanym e-mailem albo gdy operacja zapisu zakończyła się błędem.
+     *
+     * @param email adres e-mail.
+     */
+    public void invalidateEmail(String email) {
+        if (email != null) {
+            String key = normalize(email);
+            byEmail.invalidate(key);
+            byUsername.asMap().values().removeIf(value -> value.isPresent() && value.get().getEmail() != null
+                    && normalize(value.get().getEmail()).equals(key));
+        }
+    }
+
+    /** Czyści całą pamięć podręczną. */
+    public void invalidateAll() {
+        byEmail.invalidateAll();
+        byUsername.invalidateAll();
+    }
+
+    /** @return statystyki trafień i chybień wyszukiwań po adresie e-mail. */
+    public CacheStats getEmailStats() {
+        return byEmail.stats();
+    }
+
+    /** @return statystyki trafień i chybień wyszukiwań po nazwie użytkownika. */
+    public CacheStats getUsernameStats() {
+        return byUsername.stats();
+    }
+
+    /** @return łączne statystyki obu map, przydatne do doboru rozmiaru pamięci podręcznej. */
+    public CacheStats getStats() {
+        return byEmail.stats().plus(byUsername.stats());
+    }
+
+    /** @return łączna liczba wpisów (w przybliżeniu). */
+    public long size() {
+        return byEmail.estimatedSize() + byUsername.estimatedSize();
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,209 @@
+package pl.kakusz.database.imports;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import pl.kakusz.database.managers.CatalogChangeLog;
+import pl.kakusz.database.objects.Course;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Strumieniowy import kursów z plików CSV lub JSON.
+ *
+ * <p>Rekordy są walidowane tymi samymi regułami co formularz administratora, duplikaty nazw
+ * (względem bazy i w obrębie pliku) są pomijane, a poprawne kursy zapisywane są wsadowo
+ * (JDBC batch) i zatwierdzane co {@code chunkSize} rekordów. Dzięki generatorowi
+ * identyfikatorów {@code pooled-lo} Hibernate może grupować INSERT-y.</p>
+ */
+public class CourseImporter {
+
+    private static final Logger LOGGER = Logger.getLogger(CourseImporter.class.getName());
+
+    /** Domyślna liczba rekordów zatwierdzanych w jednej transakcji. */
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    /** Rozmiar wsadu JDBC - po tylu rekordach kontekst sesji jest opróżniany. */
+    private static final int BATCH_SIZE = 50;
+
+    private final SessionFactory sessionFactory;
+    private final int chunkSize;
+
+    public CourseImporter(SessionFactory sessionFactory) {
+        this(sessionFactory, DEFAULT_CHUNK_SIZE);
+    }
+
+    public CourseImporter(SessionFactory sessionFactory, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Rozmiar porcji musi być dodatni: " + chunkSize);
+        }
+        this.sessionFactory = sessionFactory;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Otwiera czytnik odpowiedni dla rozszerzenia pliku ({@code .json} lub CSV).
+     *
+     * @param file plik z kursami.
+     * @return strumieniowy czytnik rekordów.
+     * @throws IOException gdy pliku nie da się odczytać.
+     */
+    public static CourseRecordReader open(Path file) throws IOException {
+        String fileName = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (fileName.endsWith(".json")) {
+            return new JsonCourseReader(Files.newBufferedReader(file, StandardCharsets.UTF_8));
+        }
+        return new CsvCourseReader(Files.newBufferedReader(file, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Importuje kursy z pliku.
+     *
+     * @param file plik CSV lub JSON.
+     * @return podsumowanie importu.
+     * @throws IOException gdy pliku nie da się otworzyć lub ma niepoprawny nagłówek.
+     */
+    public ImportReport importFile(Path file) throws IOException {
+        try (CourseRecordReader reader = open(file)) {
+            return importRecords(reader);
+        }
+    }
+
+    /**
+     * Importuje wszystkie rekordy z czytnika.
+     *
+     * <p>Błąd w trakcie importu przerywa go, ale porcje zatwierdzone wcześniej pozostają w bazie;
+     * ich liczba jest widoczna w raporcie.</p>
+     *
+     * @param reader źródło rekordów.
+     * @return podsumowanie importu.
+     */
+    public ImportReport importRecords(CourseRecordReader reader) {
+        ImportReport report = new ImportReport();
+        Set<String> names = loadExistingNames();
+
+        Session session = sessionFactory.openSession();
+        session.setJdbcBatchSize(BATCH_SIZE);
+        session.setCacheMode(CacheMode.IGNORE);
+        Transaction transaction = null;
+        long pending = 0;
+        // Identyfikatory bieżącej porcji - trafiają do dziennika zmian katalogu w tej samej transakcji
+        List<Long> changedIds = new ArrayList<>();
+
+        try {
+            transaction = session.beginTransaction();
+            CourseRecord record;
+            while ((record = reader.next()) != null) {
+                Course course = toCourse(record, names, report);
+                if (course == null) {
+                    continue;
+                }
+
+                session.persist(course);
+                changedIds.add(course.getId());
+                pending++;
+
+                if (pending % BATCH_SIZE == 0) {
+                    session.flush();
+                    session.clear();
+                }
+                if (pending >= chunkSize) {
+                    CatalogChangeLog.record(session, changedIds, false);
+                    changedIds.clear();
+                    transaction.commit();
+                    report.committed(pending);
+                    pending = 0;
+                    session.clear();
+                    transaction = session.beginTransaction();
+                }
+            }
+            CatalogChangeLog.record(session, changedIds, false);
+            transaction.commit();
+            if (pending > 0) {
+                report.committed(pending);
+            }
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            LOGGER.log(Level.WARNING, "Import kursów został przerwany", e);
+            report.abort(e.getMessage());
+        } finally {
+            session.close();
+        }
+        return report;
+    }
+
+    /**
+     * Waliduje rekord i zamienia go na encję kursu.
+     *
+     * @return kurs do zapisu lub {@code null}, jeśli rekord został pominięty.
+     */
+    private Course toCourse(CourseRecord record, Set<String> names, ImportReport report) {
+        if (record.getName().isEmpty() || record.getDescription().isEmpty() || record.getLink().isEmpty() || record.getPrice().isEmpty()) {
+            report.invalid(record, "wszystkie pola muszą być wypełnione");
+            return null;
+        }
+        if (record.getName().length() < 3) {
+            report.invalid(record, "nazwa musi mieć więcej niż 3 znaki");
+            return null;
+        }
+        if (record.getDescription().length() < 3) {
+            report.invalid(record, "opis musi mieć więcej niż 2 znaki");
+            return null;
+        }
+        if (record.getLink().length() < 3) {
+            report.invalid(record, "link musi mieć więcej niż 2 znaki");
+            return null;
+        }
+
+        double price;
+        try {
+            price = Double.parseDouble(record.getPrice().replace(',', '.'));
+        } catch (NumberFormatException e) {
+            report.invalid(record, "cena kursu musi być liczbą");
+            return null;
+        }
+        if (price < 0 || Double.isNaN(price) || Double.isInfinite(price)) {
+            report.invalid(record, "cena musi być dodatnia");
+            return null;
+        }
+
+        if (!names.add(record.getName().toLowerCase(Locale.ROOT))) {
+            report.duplicate(record);
+            return null;
+        }
+
+        Course course = new Course();
+        course.setName(record.getName());
+        course.setDescription(record.getDescription());
+        course.setPrice(price);
+        course.setLink(record.getLink());
+        return course;
+    }
+
+    private Set<String> loadExistingNames() {
+        try (Session session = sessionFactory.openSession()) {
+            List<String> existing = session.createQuery("select c.name from Course c", String.class)
+                    .setReadOnly(true)
+                    .setFetchSize(1000)
+                    .getResultList();
+            Set<String> names = new HashSet<>(existing.size() * 2);
+            for (String name : existing) {
+                names.add(name.toLowerCase(Locale.ROOT));
+            }
+            return names;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package pl.kakusz.database.imports;
+
+import lombok.Getter;
+
+/**
+ * Pojedynczy rekord kursu odczytany z pliku importu, jeszcze przed walidacją.
+ */
+@Getter
+public class CourseRecord {
+
+    private final long lineNumber;
+    private final String name;
+    private final String description;
+    private final String price;
+    private final String link;
+
+    public CourseRecord(long lineNumber, String name, String description, String price, String link) {
+        this.lineNumber = lineNumber;
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.link = link;
+    }
+}
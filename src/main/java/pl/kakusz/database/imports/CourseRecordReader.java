@@ -0,0 +1,18 @@
+package pl.kakusz.database.imports;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Strumieniowy czytnik rekordów kursów - plik nigdy nie jest wczytywany w całości do pamięci.
+ */
+public interface CourseRecordReader extends Closeable {
+
+    /**
+     * Odczytuje kolejny rekord.
+     *
+     * @return rekord lub {@code null}, jeśli plik się skończył.
+     * @throws IOException w przypadku błędu odczytu lub niepoprawnego formatu pliku.
+     */
+    CourseRecord next() throws IOException;
+}
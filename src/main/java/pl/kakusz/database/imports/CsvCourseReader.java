@@ -0,0 +1,153 @@
+package pl.kakusz.database.imports;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Czytnik plików CSV z kursami.
+ *
+ * <p>Pierwszy wiersz musi zawierać nagłówek z kolumnami {@code name}, {@code description},
+ * {@code price} i {@code link} (w dowolnej kolejności). Obsługiwane są pola w cudzysłowach,
+ * podwojone cudzysłowy oraz znaki nowej linii wewnątrz pól. Separatorem może być przecinek
+ * lub średnik - wybierany jest na podstawie nagłówka.</p>
+ */
+public class CsvCourseReader implements CourseRecordReader {
+
+    private final Reader reader;
+    private final Map<String, Integer> columns = new HashMap<>();
+    private char separator = ',';
+    private long lineNumber = 1;
+    private int pushedBack = -2;
+
+    public CsvCourseReader(Reader reader) throws IOException {
+        this.reader = reader;
+        readHeader();
+    }
+
+    private void readHeader() throws IOException {
+        // Znacznik BOM dodawany przez Excel przy zapisie "CSV UTF-8"
+        int first = read();
+        if (first != '\uFEFF') {
+            unread(first);
+        }
+        List<String> header = readRow(true);
+        if (header == null) {
+            throw new IOException("Plik CSV jest pusty.");
+        }
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : new String[]{"name", "description", "price", "link"}) {
+            if (!columns.containsKey(required)) {
+                throw new IOException("Brak kolumny '" + required + "' w nagłówku pliku CSV.");
+            }
+        }
+    }
+
+    @Override
+    public CourseRecord next() throws IOException {
+        List<String> row;
+        long rowLine;
+        do {
+            rowLine = lineNumber;
+            row = readRow(false);
+            if (row == null) {
+                return null;
+            }
+        } while (row.size() == 1 && row.get(0).trim().isEmpty()); // pomijanie pustych wierszy
+
+        return new CourseRecord(rowLine, column(row, "name"), column(row, "description"),
+                column(row, "price"), column(row, "link"));
+    }
+
+    private String column(List<String> row, String name) {
+        int index = columns.get(name);
+        return index < row.size() ? row.get(index).trim() : "";
+    }
+
+    /**
+     * Odczytuje jeden logiczny wiersz CSV (może obejmować kilka linii fizycznych).
+     *
+     * @param detectSeparator czy ustalić separator na podstawie tego wiersza.
+     * @return lista pól lub {@code null} na końcu pliku.
+     */
+    private List<String> readRow(boolean detectSeparator) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+
+        int c;
+        while ((c = read()) != -1) {
+            any = true;
+            if (quoted) {
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        unread(following);
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    field.append((char) c);
+                }
+                continue;
+            }
+
+            if (detectSeparator && fields.isEmpty() && (c == ',' || c == ';')) {
+                separator = (char) c;
+                detectSeparator = false;
+            }
+
+            if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == separator) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r') {
+                // ignorowane - obsługiwane jako część CRLF
+            } else if (c == '\n') {
+                lineNumber++;
+                break;
+            } else {
+                field.append((char) c);
+            }
+        }
+
+        if (!any) {
+            return null;
+        }
+        if (quoted) {
+            throw new IOException("Niezamknięty cudzysłów w wierszu " + lineNumber + ".");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private void unread(int c) {
+        pushedBack = c;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
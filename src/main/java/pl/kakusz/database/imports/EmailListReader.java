@@ -0,0 +1,64 @@
+package pl.kakusz.database.imports;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Odczyt listy adresów e-mail z tekstu lub pliku CSV (np. eksportu listy klasy).
+ *
+ * <p>Tekst dzielony jest na pola po przecinkach, średnikach, tabulatorach i znakach nowej linii;
+ * adresem jest każde pole zawierające {@code @}. Nagłówki i pozostałe kolumny (imię, nazwisko)
+ * są pomijane, powtórzenia usuwane z zachowaniem kolejności.</p>
+ */
+public final class EmailListReader {
+
+    private EmailListReader() {
+    }
+
+    /**
+     * @param text adresy wpisane lub wklejone przez administratora.
+     * @return adresy e-mail w kolejności wystąpienia, bez powtórzeń.
+     */
+    public static List<String> parse(String text) {
+        Set<String> emails = new LinkedHashSet<>();
+        if (text != null) {
+            collect(text, emails);
+        }
+        return new ArrayList<>(emails);
+    }
+
+    /**
+     * @param file plik CSV lub tekstowy (UTF-8).
+     * @return adresy e-mail w kolejności wystąpienia, bez powtórzeń.
+     * @throws IOException gdy pliku nie da się odczytać.
+     */
+    public static List<String> read(Path file) throws IOException {
+        Set<String> emails = new LinkedHashSet<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                collect(line, emails);
+            }
+        }
+        return new ArrayList<>(emails);
+    }
+
+    private static void collect(String text, Set<String> emails) {
+        for (String field : text.split("[,;\\t\\r\\n]+")) {
+            String value = field.trim();
+            if (value.length() > 1 && value.startsWith("\"") && value.endsWith("\"")) {
+                value = value.substring(1, value.length() - 1).trim();
+            }
+            if (value.indexOf('@') > 0 && !value.contains(" ")) {
+                emails.add(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package pl.kakusz.database.imports;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Podsumowanie importu kursów: liczba zapisanych, pominiętych i błędnych rekordów.
+ */
+@Getter
+public class ImportReport {
+
+    /** Maksymalna liczba zapamiętanych komunikatów o błędach. */
+    private static final int MAX_MESSAGES = 100;
+
+    private long imported;
+    private long duplicates;
+    private long invalid;
+    private long chunks;
+    private String abortMessage;
+    private final List<String> messages = new ArrayList<>();
+
+    void committed(long count) {
+        imported += count;
+        chunks++;
+    }
+
+    void duplicate(CourseRecord record) {
+        duplicates++;
+        message(record, "kurs o nazwie '" + record.getName() + "' już istnieje");
+    }
+
+    void invalid(CourseRecord record, String reason) {
+        invalid++;
+        message(record, reason);
+    }
+
+    void abort(String message) {
+        this.abortMessage = message;
+    }
+
+    private void message(CourseRecord record, String text) {
+        if (messages.size() < MAX_MESSAGES) {
+            messages.add("Wiersz " + record.getLineNumber() + ": " + text);
+        }
+    }
+
+    /** @return niemodyfikowalna lista pierwszych komunikatów o pominiętych rekordach. */
+    public List<String> getMessages() {
+        return Collections.unmodifiableList(messages);
+    }
+
+    /** @return czy import został przerwany błędem bazy danych lub pliku. */
+    public boolean isAborted() {
+        return abortMessage != null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder()
+                .append("Zaimportowano: ").append(imported)
+                .append(", duplikaty: ").append(duplicates)
+                .append(", błędne: ").append(invalid);
+        if (isAborted()) {
+            summary.append("\nImport przerwany: ").append(abortMessage);
+        }
+        for (int i = 0; i < Math.min(10, messages.size()); i++) {
+            summary.append('\n').append(messages.get(i));
+        }
+        if (messages.size() > 10) {
+            summary.append("\n...");
+        }
+        return summary.toString();
+    }
+}
@@ -0,0 +1,78 @@
+package pl.kakusz.database.imports;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Strumieniowy czytnik plików JSON z kursami.
+ *
+ * <p>Oczekiwany format to tablica obiektów:
+ * {@code [{"name": "...", "description": "...", "price": 99.0, "link": "..."}, ...]}.
+ * Nieznane pola są ignorowane.</p>
+ */
+public class JsonCourseReader implements CourseRecordReader {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private final JsonParser parser;
+
+    public JsonCourseReader(Reader reader) throws IOException {
+        this.parser = FACTORY.createParser(reader);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IOException("Plik JSON musi zawierać tablicę kursów.");
+        }
+    }
+
+    @Override
+    public CourseRecord next() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null || token == JsonToken.END_ARRAY) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new IOException("Oczekiwano obiektu kursu w linii " + parser.getCurrentLocation().getLineNr() + ".");
+        }
+
+        long line = parser.getCurrentLocation().getLineNr();
+        String name = "";
+        String description = "";
+        String price = "";
+        String link = "";
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+            String text = value == JsonToken.VALUE_NULL ? "" : parser.getValueAsString("").trim();
+            switch (field) {
+                case "name":
+                    name = text;
+                    break;
+                case "description":
+                    description = text;
+                    break;
+                case "price":
+                    price = text;
+                    break;
+                case "link":
+                    link = text;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return new CourseRecord(line, name, description, price, link);
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
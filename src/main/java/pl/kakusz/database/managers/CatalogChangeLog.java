@@ -0,0 +1,107 @@
+package pl.kakusz.database.managers;
+
+import org.hibernate.Session;
+import org.hibernate.SharedSessionContract;
+import org.hibernate.type.TimestampType;
+import pl.kakusz.database.objects.CatalogChange;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Zapis i odczyt dziennika zmian katalogu ({@link CatalogChange}).
+ *
+ * <p>Wpisy zapisywane są w transakcji zmieniającej kursy, więc dziennik nigdy nie wyprzedza
+ * ani nie pomija zatwierdzonych zmian. Zapis idzie paczką JDBC - import tysięcy kursów
+ * dokłada do transakcji jedno polecenie, a nie osobny INSERT z odczytem klucza na każdy kurs.</p>
+ *
+ * <p>Czas zmiany ({@code changed_at}) ustawia baza danych, a nie zegar klienta - porównywany jest
+ * z {@link #databaseTimeMillis(SharedSessionContract)}, więc rozjechane zegary klientów nie mają znaczenia.</p>
+ */
+public final class CatalogChangeLog {
+
+    /** Rozmiar paczki JDBC - taki sam jak {@code hibernate.jdbc.batch_size}. */
+    private static final int BATCH_SIZE = 50;
+
+    private CatalogChangeLog() {
+    }
+
+    /**
+     * Dopisuje do dziennika zmianę kursów w bieżącej transakcji sesji.
+     *
+     * @param session   sesja z aktywną transakcją.
+     * @param courseIds identyfikatory zmienionych kursów.
+     * @param deleted   {@code true} dla usuniętych kursów.
+     */
+    public static void record(Session session, Collection<Long> courseIds, boolean deleted) {
+        if (courseIds.isEmpty()) {
+            return;
+        }
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO catalog_changes (course_id, deleted, changed_at) VALUES (?, ?, CURRENT_TIMESTAMP)")) {
+                int pending = 0;
+                for (Long courseId : courseIds) {
+                    statement.setLong(1, courseId);
+                    statement.setBoolean(2, deleted);
+                    statement.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        statement.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    statement.executeBatch();
+                }
+            }
+        });
+    }
+
+    /**
+     * @param session dowolna sesja (również bezstanowa).
+     * @return bieżący czas bazy danych w tej samej postaci co {@code changed_at}.
+     */
+    public static long databaseTimeMillis(SharedSessionContract session) {
+        Date now = (Date) session.createNativeQuery("SELECT CURRENT_TIMESTAMP AS now")
+                .addScalar("now", TimestampType.INSTANCE)
+                .uniqueResult();
+        return now.getTime();
+    }
+
+    /**
+     * Zwraca numer, od którego nowa migawka katalogu może bezpiecznie zacząć synchronizację.
+     *
+     * <p>Najwyższy numer w dzienniku nie wystarcza: transakcja, która dostała niższy numer,
+     * mogła jeszcze nie zostać zatwierdzona i jej kursu nie będzie w migawce. Wpisy młodsze
+     * niż {@code graceMillis} (zegarem bazy) traktowane są jak niezatwierdzone - tak samo jak
+     * luki w {@link CourseManager#syncCatalog()} - i zostaną naniesione ponownie.</p>
+     *
+     * @param session     dowolna sesja (również bezstanowa).
+     * @param graceMillis czas, po którym brakujący wpis uznawany jest za wycofany.
+     * @return numer najnowszej zmiany starszej niż {@code graceMillis}; {@code 0}, gdy takiej nie ma.
+     */
+    public static long settledVersion(SharedSessionContract session, long graceMillis) {
+        Date limit = new Date(databaseTimeMillis(session) - graceMillis);
+        List<Long> latest = session.createQuery(
+                        "select c.id from CatalogChange c where c.changedAt < :limit order by c.id desc", Long.class)
+                .setParameter("limit", limit)
+                .setMaxResults(1)
+                .getResultList();
+        return latest.isEmpty() ? 0 : latest.get(0);
+    }
+
+    /**
+     * @param session dowolna sesja (również bezstanowa).
+     * @param version ostatnia znana wersja.
+     * @param limit   maksymalna liczba wpisów.
+     * @return wpisy o numerze większym niż {@code version}, rosnąco.
+     */
+    public static List<CatalogChange> since(SharedSessionContract session, long version, int limit) {
+        return session.createQuery("from CatalogChange c where c.id > :version order by c.id", CatalogChange.class)
+                .setParameter("version", version)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -0,0 +1,72 @@
+package pl.kakusz.database.managers;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Okresowo pyta bazę o zmiany katalogu kursów ({@link CourseManager#syncCatalog()}).
+ *
+ * <p>Dzięki temu kursy dodane lub usunięte przez innych administratorów pojawiają się
+ * bez ponownego wczytywania całego katalogu. Samo zapytanie wykonuje {@link DatabaseExecutor};
+ * harmonogram pilnuje tylko, żeby dwie synchronizacje nie czekały w kolejce jednocześnie.</p>
+ */
+public class CatalogPoller {
+
+    private static final Logger LOGGER = Logger.getLogger(CatalogPoller.class.getName());
+
+    /** Właściwość systemowa z odstępem między synchronizacjami w sekundach. */
+    public static final String INTERVAL_PROPERTY = "catalog.sync.intervalSeconds";
+
+    private static final long DEFAULT_INTERVAL_SECONDS = 30;
+
+    private static CatalogPoller instance;
+
+    private ScheduledExecutorService scheduler;
+    /** Ostatnia zlecona synchronizacja; używana tylko z wątku harmonogramu. */
+    private CompletableFuture<Integer> running;
+
+    public static synchronized CatalogPoller getInstance() {
+        if (instance == null) {
+            instance = new CatalogPoller();
+        }
+        return instance;
+    }
+
+    /**
+     * Uruchamia okresową synchronizację; kolejne wywołania nic nie robią.
+     *
+     * @param courseManager menedżer, którego katalog jest synchronizowany.
+     */
+    public synchronized void start(CourseManager courseManager) {
+        if (scheduler != null) {
+            return;
+        }
+        long interval = Math.max(1, Long.getLong(INTERVAL_PROPERTY, DEFAULT_INTERVAL_SECONDS));
+        scheduler = Executors.newSingleThreadScheduledExecutor(DatabaseExecutor.namedDaemonThreads("catalog-poller"));
+        scheduler.scheduleWithFixedDelay(() -> poll(courseManager), interval, interval, TimeUnit.SECONDS);
+    }
+
+    /** Zatrzymuje synchronizację. */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void poll(CourseManager courseManager) {
+        if (running != null && !running.isDone()) {
+            return;
+        }
+        running = courseManager.syncCatalogAsync();
+        running.whenComplete((changed, error) -> {
+            if (error != null) {
+                LOGGER.log(Level.WARNING, "Synchronizacja katalogu nie powiodła się", error);
+            }
+        });
+    }
+}
@@ -0,0 +1,246 @@
+package pl.kakusz.database.managers;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import pl.kakusz.database.cache.UserCache;
+import pl.kakusz.database.objects.User;
+import pl.kakusz.util.LongHashSet;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Zbiorcze przypisywanie i usuwanie kursów wielu użytkownikom (np. całej klasie).
+ *
+ * <p>Cała operacja to jedna transakcja i kilka zapytań niezależnie od liczby użytkowników:</p>
+ * <ol>
+ *   <li>e-maile i nazwy kursów zamieniane są na identyfikatory zapytaniami {@code IN (...)};</li>
+ *   <li>jednym zapytaniem odczytywane są istniejące przypisania tych użytkowników do tych kursów;</li>
+ *   <li>brakujące (lub istniejące - przy usuwaniu) wiersze {@code user_courses} zapisywane są
+ *       paczkami JDBC po {@value #BATCH_SIZE}.</li>
+ * </ol>
+ *
+ * <p>Wiersze użytkowników są blokowane przed odczytem przypisań, a przypisanie to
+ * {@code INSERT ... SELECT ... WHERE NOT EXISTS}, jak w {@link UserManager#purchaseCourse(Long, Long)} -
+ * kurs kupiony lub przypisany równolegle jest pomijany zamiast przerywać całą paczkę błędem
+ * lub zapisywać duplikat. Liczba zmian
+ * pochodzi z liczników wierszy zwróconych przez paczki, a wpisy zmienionych użytkowników są
+ * usuwane z {@link UserCache}.</p>
+ */
+class CourseEnrollment {
+
+    private static final Logger LOGGER = Logger.getLogger(CourseEnrollment.class.getName());
+
+    /** Rozmiar paczki JDBC - taki sam jak {@code hibernate.jdbc.batch_size}. */
+    private static final int BATCH_SIZE = 50;
+
+    /** Maksymalna liczba wartości w jednej liście {@code IN (...)}. */
+    private static final int IN_CHUNK_SIZE = 500;
+
+    private static final String ASSIGN_SQL = "INSERT INTO user_courses (user_id, course_id) SELECT ?, ? FROM DUAL"
+            + " WHERE NOT EXISTS (SELECT 1 FROM user_courses WHERE user_id = ? AND course_id = ?)";
+    private static final String REMOVE_SQL = "DELETE FROM user_courses WHERE user_id = ? AND course_id = ?";
+
+    private final SessionFactory sessionFactory;
+    private final UserCache userCache;
+
+    CourseEnrollment(SessionFactory sessionFactory, UserCache userCache) {
+        this.sessionFactory = sessionFactory;
+        this.userCache = userCache;
+    }
+
+    /**
+     * @param emails      adresy e-mail użytkowników.
+     * @param courseNames nazwy kursów.
+     * @param assign      {@code true} - przypisanie, {@code false} - usunięcie kursów.
+     * @return podsumowanie; błędy bazy danych są propagowane po wycofaniu transakcji.
+     */
+    EnrollmentResult apply(Collection<String> emails, Collection<String> courseNames, boolean assign) {
+        List<String> emailList = distinct(emails);
+        List<String> nameList = distinct(courseNames);
+
+        Transaction transaction = null;
+        try (Session session = sessionFactory.openSession()) {
+            transaction = session.beginTransaction();
+
+            Map<String, Long> userIds = resolve(session, "select u.email, u.id from User u where u.email in :values", emailList);
+            Map<String, Long> courseIds = resolve(session, "select c.name, c.id from Course c where c.name in :values", nameList);
+            if (!courseIds.isEmpty()) {
+                lockUsers(session, userIds.values());
+            }
+            Map<Long, LongHashSet> existing = existingAssignments(session, userIds.values(), courseIds.values());
+
+            // Pary do zapisania: brakujące przy przypisaniu, istniejące przy usuwaniu
+            List<long[]> pairs = new ArrayList<>();
+            int unchanged = 0;
+            for (Long userId : new LinkedHashSet<>(userIds.values())) {
+                LongHashSet owned = existing.get(userId);
+                for (Long courseId : new LinkedHashSet<>(courseIds.values())) {
+                    boolean has = owned != null && owned.contains(courseId);
+                    if (has != assign) {
+                        pairs.add(new long[]{userId, courseId});
+                    } else {
+                        unchanged++;
+                    }
+                }
+            }
+
+            LongHashSet changedUsers = new LongHashSet();
+            int changed = session.doReturningWork(connection -> executeBatch(connection, assign, pairs, changedUsers));
+            transaction.commit();
+
+            // Zapis z pominięciem Hibernate - kolekcje kursów w cache drugiego poziomu są nieaktualne
+            if (changed > 0) {
+                sessionFactory.getCache().evictCollectionData(User.class.getName() + ".courses");
+                userCache.invalidateIds(changedUsers);
+            }
+
+            // Pary zmienione równolegle przez inny zapis liczą się jako bez zmian
+            return new EnrollmentResult(assign, changed, unchanged + pairs.size() - changed, userIds.size(), courseIds.size(),
+                    missing(emailList, userIds), missing(nameList, courseIds));
+        } catch (RuntimeException e) {
+            if (transaction != null && transaction.isActive()) transaction.rollback();
+            LOGGER.log(Level.WARNING, "Zbiorcza zmiana kursów użytkowników nie powiodła się", e);
+            throw e;
+        }
+    }
+
+    /** @return mapa: wartość małymi literami -> identyfikator (porównanie jak w MySQL *_ci). */
+    private static Map<String, Long> resolve(Session session, String hql, List<String> values) {
+        Map<String, Long> ids = new LinkedHashMap<>();
+        for (List<String> chunk : chunks(values)) {
+            List<Object[]> rows = session.createQuery(hql, Object[].class)
+                    .setParameterList("values", chunk)
+                    .getResultList();
+            for (Object[] row : rows) {
+                ids.putIfAbsent(normalize((String) row[0]), (Long) row[1]);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Blokuje wiersze użytkowników do końca transakcji, w kolejności identyfikatorów. Zakup kursu
+     * blokuje ten sam wiersz swoim {@code UPDATE}, więc zapisy przypisań jednego użytkownika
+     * wykonują się po kolei - tabela {@code user_courses} nie ma klucza, który odrzuciłby duplikat.
+     */
+    private static void lockUsers(Session session, Collection<Long> userIds) {
+        List<Long> sorted = new ArrayList<>(new TreeSet<>(userIds));
+        for (List<Long> chunk : chunks(sorted)) {
+            session.createNativeQuery("SELECT id FROM users WHERE id IN (:users) ORDER BY id FOR UPDATE")
+                    .setParameterList("users", chunk)
+                    .getResultList();
+        }
+    }
+
+    private static Map<Long, LongHashSet> existingAssignments(Session session, Collection<Long> userIds, Collection<Long> courseIds) {
+        Map<Long, LongHashSet> existing = new HashMap<>();
+        if (userIds.isEmpty() || courseIds.isEmpty()) {
+            return existing;
+        }
+        List<Long> courses = new ArrayList<>(new LinkedHashSet<>(courseIds));
+        for (List<Long> chunk : chunks(new ArrayList<>(new LinkedHashSet<>(userIds)))) {
+            @SuppressWarnings("unchecked")
+            List<Object[]> rows = session.createNativeQuery(
+                            "SELECT user_id, course_id FROM user_courses WHERE user_id IN (:users) AND course_id IN (:courses)")
+                    .setParameterList("users", chunk)
+                    .setParameterList("courses", courses)
+                    .getResultList();
+            for (Object[] row : rows) {
+                existing.computeIfAbsent(((Number) row[0]).longValue(), id -> new LongHashSet())
+                        .add(((Number) row[1]).longValue());
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * @param changedUsers zbiór uzupełniany o użytkowników, których przypisania się zmieniły.
+     * @return liczba zmienionych wierszy {@code user_courses}.
+     */
+    private static int executeBatch(Connection connection, boolean assign, List<long[]> pairs,
+                                    LongHashSet changedUsers) throws SQLException {
+        if (pairs.isEmpty()) {
+            return 0;
+        }
+        int changed = 0;
+        try (PreparedStatement statement = connection.prepareStatement(assign ? ASSIGN_SQL : REMOVE_SQL)) {
+            int from = 0;
+            for (int i = 0; i < pairs.size(); i++) {
+                long[] pair = pairs.get(i);
+                statement.setLong(1, pair[0]);
+                statement.setLong(2, pair[1]);
+                if (assign) {
+                    statement.setLong(3, pair[0]);
+                    statement.setLong(4, pair[1]);
+                }
+                statement.addBatch();
+                if (i + 1 - from == BATCH_SIZE || i + 1 == pairs.size()) {
+                    changed += countChanges(statement.executeBatch(), pairs, from, changedUsers);
+                    from = i + 1;
+                }
+            }
+        }
+        return changed;
+    }
+
+    private static int countChanges(int[] counts, List<long[]> pairs, int from, LongHashSet changedUsers) {
+        int changed = 0;
+        for (int i = 0; i < counts.length; i++) {
+            // Sterownik może nie podać liczby wierszy - wtedy zakładamy zmianę
+            if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                changed++;
+                changedUsers.add(pairs.get(from + i)[0]);
+            }
+        }
+        return changed;
+    }
+
+    private static List<String> distinct(Collection<String> values) {
+        Map<String, String> unique = new LinkedHashMap<>();
+        if (values != null) {
+            for (String value : values) {
+                if (value != null && !value.trim().isEmpty()) {
+                    unique.putIfAbsent(normalize(value.trim()), value.trim());
+                }
+            }
+        }
+        return new ArrayList<>(unique.values());
+    }
+
+    private static List<String> missing(List<String> requested, Map<String, Long> resolved) {
+        List<String> missing = new ArrayList<>();
+        for (String value : requested) {
+            if (!resolved.containsKey(normalize(value))) {
+                missing.add(value);
+            }
+        }
+        return missing;
+    }
+
+    private static <T> List<List<T>> chunks(List<T> values) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += IN_CHUNK_SIZE) {
+            chunks.add(values.subList(from, Math.min(values.size(), from + IN_CHUNK_SIZE)));
+        }
+        return chunks;
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
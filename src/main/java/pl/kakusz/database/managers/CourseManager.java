@@ -1,64 +1,211 @@
 package pl.kakusz.database.managers;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import javafx.scene.control.Alert;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.hibernate.query.Query;
+import pl.kakusz.database.cache.CacheRegions;
+import pl.kakusz.database.cache.CourseCatalog;
+import pl.kakusz.database.imports.CourseImporter;
+import pl.kakusz.database.imports.ImportReport;
+import pl.kakusz.database.metrics.DaoMetrics;
+import pl.kakusz.database.objects.CatalogChange;
 import pl.kakusz.database.objects.Course;
 import pl.kakusz.database.objects.User;
+import pl.kakusz.database.paging.CourseCursor;
+import pl.kakusz.database.paging.CoursePage;
+import pl.kakusz.database.paging.CourseSort;
+import pl.kakusz.database.search.AutocompleteIndex;
+import pl.kakusz.database.search.CourseSearch;
+import pl.kakusz.database.search.SearchQuery;
 import pl.kakusz.fx.AlertHelper;
 import pl.kakusz.fx.controllers.DashBoardController;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 @Getter
 @Setter
 public class CourseManager {
-    private final List<Course> courseList;
+
+    private static final Logger LOGGER = Logger.getLogger(CourseManager.class.getName());
+
+    /** Czas, liczba wywołań i błędów każdej operacji - zob. {@link DaoMetrics}. */
+    private static final DaoMetrics METRICS = DaoMetrics.getInstance();
+
+    /** Aktualna, niezmienna migawka katalogu; podmieniana atomowo przy każdej zmianie. */
+    private final AtomicReference<CourseCatalog> catalog;
     private final SessionFactory sessionFactory;
 
+    /** Czas, przez jaki zapamiętana liczba kursów dla danego filtra uznawana jest za aktualną. */
+    private static final long COUNT_TTL_SECONDS = 30;
+
+    /** Przybliżona liczba kursów dla filtra nazwy; klucz {@code ""} oznacza brak filtra. */
+    private final Cache<String, Long> countEstimates;
+
+    /** Wyszukiwanie pełnotekstowe po nazwie i opisie kursu. */
+    private final CourseSearch courseSearch;
+
+    /** Podpowiedzi nazw kursów dla pola wyszukiwania, aktualizowane razem z migawką katalogu. */
+    private final AutocompleteIndex autocomplete;
+
+    /** Maksymalna liczba wpisów dziennika zmian odczytywana jednym zapytaniem. */
+    private static final int SYNC_BATCH_SIZE = 500;
+
+    /**
+     * Po tym czasie luka w numeracji dziennika uznawana jest za trwałą (wycofana transakcja),
+     * a nie za zmianę, która jeszcze nie została zatwierdzona.
+     */
+    private static final long SYNC_GAP_GRACE_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    /** Serializuje synchronizacje, żeby starszy odczyt nie nadpisał nowszego. */
+    private final Object syncLock = new Object();
+
+    /** Słuchacze powiadamiani o zmianach naniesionych przez {@link #syncCatalog()}. */
+    private final List<Consumer<CourseCatalog>> catalogListeners = new CopyOnWriteArrayList<>();
+
     public CourseManager(SessionFactory sessionFactory) {
-        this.courseList = new ArrayList<>();
+        this.catalog = new AtomicReference<>(CourseCatalog.EMPTY);
         this.sessionFactory = sessionFactory;
-        loadCourses();
+        this.countEstimates = Caffeine.newBuilder()
+                .maximumSize(100)
+                .expireAfterWrite(COUNT_TTL_SECONDS, TimeUnit.SECONDS)
+                .build();
+        this.courseSearch = new CourseSearch(sessionFactory);
+        this.autocomplete = new AutocompleteIndex();
     }
 
-    public void deleteCourse(String courseName) {
-        Session session = sessionFactory.openSession();
-        try {
-            session.beginTransaction();
-            Course course = getCourseByName(courseName);
-            session.delete(course);
-            courseList.remove(course);
-            session.getTransaction().commit();
-        } catch (Exception e) {
-            if (session.getTransaction() != null) {
-                session.getTransaction().rollback();
-            }
-            e.printStackTrace();
-            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie udało się, sproboj ponownie " + e.getMessage());
+    /**
+     * Przygotowuje katalog po połączeniu z bazą: wyrównuje generator identyfikatorów, zakłada
+     * indeks pełnotekstowy i wczytuje kursy. Wywoływane w tle przez {@link DatabaseBootstrap},
+     * równolegle z logowaniem.
+     */
+    public void warmUp() {
+        METRICS.run("CourseManager.warmUp", () -> {
+            alignIdSequence();
+            courseSearch.ensureIndex();
+            reloadCatalog();
+        });
+    }
 
-        } finally {
-            session.close();
+    /**
+     * Ustawia tabelę generatora identyfikatorów powyżej największego istniejącego ID kursu.
+     *
+     * <p>Kursy zapisane wcześniej przez AUTO_INCREMENT mogą mieć identyfikatory większe niż
+     * początkowa wartość tabeli {@value Course#ID_SEQUENCE}. Operacja jest idempotentna
+     * i nie zmienia niczego, gdy baza obsługuje natywne sekwencje.</p>
+     */
+    private void alignIdSequence() {
+        Dialect dialect = sessionFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        if (dialect.supportsSequences()) {
+            return;
         }
-    }
-    public Course getCourseByName(String courseName) {
+
+        Transaction transaction = null;
         try (Session session = sessionFactory.openSession()) {
-            String fieldName = "name";
-            return (Course) session.createQuery(
-                            "FROM Course u WHERE u." + fieldName + " = :value")
-                    .setParameter("value", courseName)
-                    .uniqueResult();
+            transaction = session.beginTransaction();
+            session.createNativeQuery("UPDATE " + Course.ID_SEQUENCE
+                            + " SET next_val = (SELECT COALESCE(MAX(id), 0) + 1 FROM courses)"
+                            + " WHERE next_val <= (SELECT COALESCE(MAX(id), 0) FROM courses)")
+                    .executeUpdate();
+            transaction.commit();
         } catch (Exception e) {
-            e.printStackTrace();
-            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie udało się, sproboj ponownie " + e.getMessage());
-
-            return null;
+            if (transaction != null && transaction.isActive()) transaction.rollback();
+            METRICS.failed(e);
         }
     }
 
+    /**
+     * Zwraca bieżącą migawkę katalogu kursów.
+     *
+     * @return spójna, niezmienna migawka.
+     */
+    public CourseCatalog getCatalog() {
+        return catalog.get();
+    }
+
+    /**
+     * Zwraca listę wszystkich kursów z bieżącej migawki katalogu.
+     *
+     * @return niemodyfikowalna lista kursów.
+     */
+    public List<Course> getCourseList() {
+        return catalog.get().getCourses();
+    }
+
+    public void deleteCourse(String courseName) {
+        METRICS.run("CourseManager.deleteCourse", () -> {
+            Session session = sessionFactory.openSession();
+            try {
+                session.beginTransaction();
+                Course course = getCourseByName(courseName);
+                session.delete(course);
+                CatalogChangeLog.record(session, Collections.singleton(course.getId()), true);
+                session.getTransaction().commit();
+                catalog.updateAndGet(current -> current.without(course.getId()));
+                autocomplete.remove(course.getId());
+                countEstimates.invalidateAll();
+            } catch (Exception e) {
+                if (session.getTransaction() != null) {
+                    session.getTransaction().rollback();
+                }
+                METRICS.failed(e);
+                AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie udało się, sproboj ponownie " + e.getMessage());
+
+            } finally {
+                session.close();
+            }
+        });
+    }
+    public Course getCourseByName(String courseName) {
+        return METRICS.time("CourseManager.getCourseByName", () -> {
+            Course cached = catalog.get().getByName(courseName);
+            if (cached != null) {
+                return cached;
+            }
+
+            // Kurs spoza migawki (np. dodany przez innego administratora) - pytamy bazę
+            try (Session session = ReadOnlySessions.open(sessionFactory)) {
+                String fieldName = "name";
+                Course course = (Course) session.createQuery(
+                                "FROM Course u WHERE u." + fieldName + " = :value")
+                        .setParameter("value", courseName)
+                        .setCacheable(true)
+                        .setCacheRegion(CacheRegions.CATALOG_QUERIES)
+                        .uniqueResult();
+                publish(course);
+                return course;
+            } catch (Exception e) {
+                METRICS.failed(e);
+                AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie udało się, sproboj ponownie " + e.getMessage());
+
+                return null;
+            }
+        });
+    }
+
 
 //    public Course getCourseByName(String courseName) {
 //        Session session = sessionFactory.openSession();
@@ -74,78 +221,484 @@ public class CourseManager {
 //        return course;
 //    }
     public Course getCourseById(Long courseId) {
-        Session session = sessionFactory.openSession();
-        Course course = null;
+        return METRICS.time("CourseManager.getCourseById", () -> {
+            Course cached = catalog.get().getById(courseId);
+            if (cached != null) {
+                return cached;
+            }
 
-        try {
-            course = session.get(Course.class, courseId);
-        } catch (Exception e) {
-            e.printStackTrace();
-            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie udało się, sproboj ponownie " + e.getMessage());
+            Session session = ReadOnlySessions.open(sessionFactory);
+            Course course = null;
 
-        } finally {
-            session.close();
-        }
-        return course;
+            try {
+                course = session.get(Course.class, courseId);
+                publish(course);
+            } catch (Exception e) {
+                METRICS.failed(e);
+                AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie udało się, sproboj ponownie " + e.getMessage());
+
+            } finally {
+                session.close();
+            }
+            return course;
+        });
     }
 
+    /**
+     * Wczytuje cały katalog sesją bezstanową - bez transakcji, kontekstu trwałości i kopii
+     * stanu encji. Pełnym cache katalogu jest migawka {@link CourseCatalog}.
+     *
+     * <p>Błąd zgłaszany jest użytkownikowi; start aplikacji korzysta z {@link #reloadCatalog()},
+     * które go propaguje.</p>
+     */
     public void loadCourses() {
-        Session session = sessionFactory.openSession();
         try {
-            session.beginTransaction();
-            Query<Course> query = session.createQuery("from Course", Course.class);
-            List<Course> courses = query.getResultList();
-            courseList.addAll(courses);
-            session.getTransaction().commit();
-        } catch (Exception e) {
-            if (session.getTransaction() != null) {
-                session.getTransaction().rollback();
-            }
-            e.printStackTrace();
+            reloadCatalog();
+        } catch (RuntimeException e) {
             AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie udało się, sproboj ponownie " + e.getMessage());
-
-        } finally {
-            session.close();
         }
     }
 
+    /**
+     * Wczytuje cały katalog i zastępuje nim migawkę.
+     *
+     * <p>Wersja synchronizacji odczytywana jest przed kursami i pomija wpisy dziennika, które mogą
+     * należeć do niezatwierdzonych jeszcze transakcji ({@link CatalogChangeLog#settledVersion}).
+     * Zmiany od tej wersji zostaną naniesione przy najbliższym {@link #syncCatalog()} - również
+     * te, które migawka już zawiera; naniesienie zmiany jest idempotentne.</p>
+     *
+     * @throws RuntimeException gdy nie udało się odczytać katalogu z bazy.
+     */
+    private void reloadCatalog() {
+        METRICS.run("CourseManager.loadCourses", () -> {
+            try (StatelessSession session = ReadOnlySessions.openStateless(sessionFactory)) {
+                long syncVersion = CatalogChangeLog.settledVersion(session, SYNC_GAP_GRACE_MILLIS);
+                List<Course> courses = session.createQuery("from Course", Course.class)
+                        .setFetchSize(ReadOnlySessions.FETCH_SIZE)
+                        .getResultList();
+                catalog.updateAndGet(current -> CourseCatalog.of(current.getVersion() + 1, syncVersion, courses));
+                autocomplete.rebuild(courses);
+                countEstimates.invalidateAll();
+            } catch (RuntimeException e) {
+                METRICS.failed(e);
+                throw e;
+            }
+        });
+    }
+
     public List<Course> loadCoursesList() {
-        List<Course> courses = new ArrayList<>();
-        Session session = sessionFactory.openSession();
-        try {
-            session.beginTransaction();
-            Query<Course> query = session.createQuery("from Course", Course.class);
-            courses = query.getResultList();
-            session.getTransaction().commit();
-        } catch (Exception e) {
-            if (session.getTransaction() != null) {
-                session.getTransaction().rollback();
+        loadCourses();
+        return catalog.get().getCourses();
+    }
+
+    /**
+     * Nanosi na migawkę katalogu zmiany zapisane w dzienniku od jej ostatniej synchronizacji,
+     * w tym dodane i usunięte przez innych administratorów.
+     *
+     * <p>Zapytanie o dziennik korzysta z klucza głównego, a z tabeli kursów odczytywane są tylko
+     * kursy ze zmianami - koszt zależy od liczby zmian, a nie od wielkości katalogu. Naniesienie
+     * zmiany jest idempotentne: kurs zmieniony, którego nie ma już w bazie, traktowany jest jak usunięty.</p>
+     *
+     * <p>Wersją kursu jest numer jego ostatniego wpisu w dzienniku, a usunięcie zapisywane jest jako
+     * wpis z flagą {@code deleted} - kursy nie mają osobnego znacznika czasu zmiany, bo zmieniony kurs
+     * i tak odczytywany jest z bazy w aktualnej postaci.</p>
+     *
+     * <p>Wpisy z równoległych transakcji mogą zostać zatwierdzone w innej kolejności niż numeracja,
+     * dlatego wersja przesuwa się tylko przez ciągłe numery; za luką zmiany są nanoszone, ale
+     * odczytywane ponownie, dopóki luka nie zniknie lub nie minie {@link #SYNC_GAP_GRACE_MILLIS}
+     * (mierzone zegarem bazy danych).</p>
+     *
+     * @return liczba kursów, które się zmieniły; błędy bazy danych są propagowane do wywołującego.
+     */
+    public int syncCatalog() {
+        return METRICS.time("CourseManager.syncCatalog", () -> {
+            synchronized (syncLock) {
+                int changed = 0;
+                try (StatelessSession session = ReadOnlySessions.openStateless(sessionFactory)) {
+                    while (true) {
+                        long from = catalog.get().getSyncVersion();
+                        List<CatalogChange> changes = CatalogChangeLog.since(session, from, SYNC_BATCH_SIZE);
+                        if (changes.isEmpty()) {
+                            break;
+                        }
+
+                        // Ostatni wpis danego kursu decyduje, czy kurs jest usunięty, czy do odczytu
+                        Map<Long, Boolean> deletedById = new LinkedHashMap<>();
+                        long next = from;
+                        boolean contiguous = true;
+                        // Czas bazy, tak jak changed_at - odczytywany dopiero przy pierwszej luce
+                        Long graceLimit = null;
+                        for (CatalogChange change : changes) {
+                            deletedById.remove(change.getCourseId());
+                            deletedById.put(change.getCourseId(), change.isDeleted());
+                            if (contiguous && change.getId() != next + 1) {
+                                if (graceLimit == null) {
+                                    graceLimit = CatalogChangeLog.databaseTimeMillis(session) - SYNC_GAP_GRACE_MILLIS;
+                                }
+                                contiguous = change.getChangedAt().getTime() < graceLimit;
+                            }
+                            if (contiguous) {
+                                next = change.getId();
+                            }
+                        }
+
+                        List<Long> upsertIds = new ArrayList<>();
+                        Set<Long> removedIds = new HashSet<>();
+                        for (Map.Entry<Long, Boolean> entry : deletedById.entrySet()) {
+                            if (entry.getValue()) {
+                                removedIds.add(entry.getKey());
+                            } else {
+                                upsertIds.add(entry.getKey());
+                            }
+                        }
+                        List<Course> upserts = upsertIds.isEmpty() ? Collections.<Course>emptyList()
+                                : session.createQuery("from Course c where c.id in :ids", Course.class)
+                                .setParameterList("ids", upsertIds)
+                                .getResultList();
+                        Set<Long> found = new HashSet<>();
+                        for (Course course : upserts) {
+                            found.add(course.getId());
+                        }
+                        for (Long id : upsertIds) {
+                            if (!found.contains(id)) {
+                                removedIds.add(id);
+                            }
+                        }
+
+                        long version = next;
+                        catalog.updateAndGet(current -> current.applyChanges(version, upserts, removedIds));
+                        for (Long id : removedIds) {
+                            autocomplete.remove(id);
+                        }
+                        for (Course course : upserts) {
+                            autocomplete.add(course);
+                        }
+                        changed += deletedById.size();
+
+                        // Luka albo ostatnia porcja - reszta przy kolejnej synchronizacji
+                        if (!contiguous || changes.size() < SYNC_BATCH_SIZE) {
+                            break;
+                        }
+                    }
+                }
+
+                if (changed > 0) {
+                    countEstimates.invalidateAll();
+                    CourseCatalog current = catalog.get();
+                    for (Consumer<CourseCatalog> listener : catalogListeners) {
+                        listener.accept(current);
+                    }
+                }
+                return changed;
             }
-            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie udało się, sproboj ponownie " + e.getMessage());
-            e.printStackTrace();
-        } finally {
-            session.close();
-        }
-        return courses;
+        });
+    }
+
+    /**
+     * Dodaje słuchacza zmian katalogu naniesionych przez {@link #syncCatalog()}.
+     * Wywołania przychodzą z wątku puli bazodanowej.
+     *
+     * @param listener akcja otrzymująca nową migawkę.
+     */
+    public void addCatalogListener(Consumer<CourseCatalog> listener) {
+        catalogListeners.add(listener);
+    }
+
+    /** @param listener słuchacz dodany przez {@link #addCatalogListener(Consumer)}. */
+    public void removeCatalogListener(Consumer<CourseCatalog> listener) {
+        catalogListeners.remove(listener);
     }
 
 
     public void addCourse(Course course) {
-        Session session = sessionFactory.openSession();
-        try {
-            session.beginTransaction();
-            session.save(course);
-            courseList.add(course);
-            session.getTransaction().commit();
-        } catch (Exception e) {
-            if (session.getTransaction() != null) {
-                session.getTransaction().rollback();
+        METRICS.run("CourseManager.addCourse", () -> {
+            Session session = sessionFactory.openSession();
+            try {
+                session.beginTransaction();
+                session.save(course);
+                CatalogChangeLog.record(session, Collections.singleton(course.getId()), false);
+                session.getTransaction().commit();
+                catalog.updateAndGet(current -> current.with(course));
+                autocomplete.add(course);
+                countEstimates.invalidateAll();
+            } catch (Exception e) {
+                if (session.getTransaction() != null) {
+                    session.getTransaction().rollback();
+                }
+                METRICS.failed(e);
+                AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie udało się, sproboj ponownie " + e.getMessage());
+
+            } finally {
+                session.close();
             }
-            e.printStackTrace();
-            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie udało się, sproboj ponownie " + e.getMessage());
+        });
+    }
+
+    // ======================== STRONICOWANIE ========================
+
+    /**
+     * Pobiera stronę kursów metodą keyset (seek): zamiast pomijać {@code OFFSET} wierszy,
+     * baza zaczyna od klucza ostatniego kursu poprzedniej strony, korzystając z indeksu
+     * {@code (price, id)} lub {@code (name, id)}. Koszt zapytania nie zależy od numeru strony.
+     *
+     * @param sort       porządek sortowania.
+     * @param nameFilter fragment nazwy kursu (bez rozróżniania wielkości liter) lub {@code null}.
+     * @param after      kursor ostatniego kursu poprzedniej strony; {@code null} dla pierwszej strony.
+     * @param pageSize   liczba kursów na stronie.
+     * @return strona kursów; błędy bazy danych są propagowane do wywołującego.
+     */
+    public CoursePage findPage(CourseSort sort, String nameFilter, CourseCursor after, int pageSize) {
+        return METRICS.time("CourseManager.findPage", () -> {
+            try (Session session = ReadOnlySessions.open(sessionFactory)) {
+                Query<Course> query = createPageQuery(session, sort, nameFilter, after);
+                query.setMaxResults(pageSize + 1);
+                return toPage(query.getResultList(), pageSize);
+            }
+        });
+    }
+
+    /**
+     * Pobiera stronę o podanym numerze przez {@code OFFSET}. Używane tylko wtedy, gdy
+     * użytkownik przeskakuje na stronę, dla której nie znamy jeszcze kursora poprzedniej.
+     *
+     * @param sort       porządek sortowania.
+     * @param nameFilter fragment nazwy kursu lub {@code null}.
+     * @param pageIndex  numer strony (od zera).
+     * @param pageSize   liczba kursów na stronie.
+     * @return strona kursów.
+     */
+    public CoursePage findPageAt(CourseSort sort, String nameFilter, int pageIndex, int pageSize) {
+        return METRICS.time("CourseManager.findPageAt", () -> {
+            try (Session session = ReadOnlySessions.open(sessionFactory)) {
+                Query<Course> query = createPageQuery(session, sort, nameFilter, null);
+                query.setFirstResult(pageIndex * pageSize);
+                query.setMaxResults(pageSize + 1);
+                return toPage(query.getResultList(), pageSize);
+            }
+        });
+    }
+
+    /**
+     * Zwraca liczbę kursów pasujących do filtra. Wynik jest zapamiętywany na
+     * {@value #COUNT_TTL_SECONDS} s, więc przy równoległych zmianach jest jedynie przybliżeniem -
+     * wystarczającym do wyznaczenia początkowej długości listy kursów ({@link pl.kakusz.fx.LazyCourseList}).
+     *
+     * @param nameFilter fragment nazwy kursu lub {@code null}.
+     * @return przybliżona liczba kursów.
+     */
+    public long countCourses(String nameFilter) {
+        return METRICS.time("CourseManager.countCourses", () -> {
+            String key = nameFilter == null ? "" : nameFilter.trim().toLowerCase(Locale.ROOT);
+            return countEstimates.get(key, this::countCoursesNow);
+        });
+    }
+
+    private long countCoursesNow(String nameFilter) {
+        try (Session session = ReadOnlySessions.open(sessionFactory)) {
+            String pattern = SearchQuery.likePattern(nameFilter);
+            Query<Long> query = session.createQuery("select count(c) from Course c"
+                    + (pattern != null ? " where lower(c.name) like :pattern escape '!'" : ""), Long.class);
+            if (pattern != null) {
+                query.setParameter("pattern", pattern);
+            }
+            return query.uniqueResult();
+        }
+    }
 
-        } finally {
-            session.close();
+    private static Query<Course> createPageQuery(Session session, CourseSort sort, String nameFilter, CourseCursor after) {
+        String pattern = SearchQuery.likePattern(nameFilter);
+        StringBuilder hql = new StringBuilder("from Course c where 1 = 1");
+        if (pattern != null) {
+            hql.append(" and lower(c.name) like :pattern escape '!'");
         }
+
+        String orderBy;
+        switch (sort) {
+            case PRICE_ASC:
+                if (after != null) hql.append(" and (c.price > :price or (c.price = :price and c.id > :id))");
+                orderBy = " order by c.price asc, c.id asc";
+                break;
+            case NAME:
+                if (after != null) hql.append(" and (c.name > :name or (c.name = :name and c.id > :id))");
+                orderBy = " order by c.name asc, c.id asc";
+                break;
+            case PRICE_DESC:
+            default:
+                if (after != null) hql.append(" and (c.price < :price or (c.price = :price and c.id < :id))");
+                orderBy = " order by c.price desc, c.id desc";
+                break;
+        }
+        hql.append(orderBy);
+
+        Query<Course> query = session.createQuery(hql.toString(), Course.class);
+        if (pattern != null) {
+            query.setParameter("pattern", pattern);
+        }
+        if (after != null) {
+            query.setParameter("id", after.getId());
+            if (sort == CourseSort.NAME) {
+                query.setParameter("name", after.getName());
+            } else {
+                query.setParameter("price", after.getPrice());
+            }
+        }
+        return query;
+    }
+
+    /** Pobrano o jeden wiersz więcej niż rozmiar strony, żeby bez COUNT-a wiedzieć, czy jest następna. */
+    private static CoursePage toPage(List<Course> rows, int pageSize) {
+        boolean hasNext = rows.size() > pageSize;
+        return new CoursePage(hasNext ? new ArrayList<>(rows.subList(0, pageSize)) : rows, hasNext);
+    }
+
+    // ======================== WYSZUKIWANIE ========================
+
+    /**
+     * Wyszukuje kursy po nazwie i opisie z użyciem indeksu pełnotekstowego.
+     *
+     * <p>Obsługuje frazy w cudzysłowie i dopasowanie prefiksów (zob. {@link SearchQuery}).
+     * Puste zapytanie zwraca zwykłą stronę katalogu.</p>
+     *
+     * @param query     tekst wpisany przez użytkownika.
+     * @param sort      porządek wyników; {@link CourseSort#RELEVANCE} według trafności.
+     * @param pageIndex numer strony (od zera).
+     * @param pageSize  liczba kursów na stronie.
+     * @return strona wyników; błędy bazy danych są propagowane do wywołującego.
+     */
+    public CoursePage search(String query, CourseSort sort, int pageIndex, int pageSize) {
+        return METRICS.time("CourseManager.search", () -> {
+            SearchQuery parsed = SearchQuery.parse(query);
+            if (parsed.isEmpty()) {
+                return findPageAt(sort, null, pageIndex, pageSize);
+            }
+            return courseSearch.search(parsed, sort, pageIndex, pageSize);
+        });
+    }
+
+    /**
+     * Zwraca podpowiedzi nazw kursów dla wpisywanego tekstu - bez zapytania do bazy.
+     * Ignoruje wielkość liter i polskie znaki oraz toleruje literówki (zob. {@link AutocompleteIndex}).
+     *
+     * @param input tekst z pola wyszukiwania.
+     * @param limit maksymalna liczba podpowiedzi.
+     * @return kursy w kolejności trafności.
+     */
+    public List<Course> suggest(String input, int limit) {
+        return autocomplete.suggest(input, limit);
+    }
+
+    /**
+     * Zwraca przybliżoną liczbę wyników wyszukiwania, zapamiętywaną jak w {@link #countCourses(String)}.
+     *
+     * @param query tekst wpisany przez użytkownika.
+     * @return przybliżona liczba wyników.
+     */
+    public long countSearch(String query) {
+        return METRICS.time("CourseManager.countSearch", () -> {
+            SearchQuery parsed = SearchQuery.parse(query);
+            if (parsed.isEmpty()) {
+                return countCourses(null);
+            }
+            return countEstimates.get("search:" + parsed.toKey(), key -> courseSearch.count(parsed));
+        });
+    }
+
+    /**
+     * Dołącza do migawki kurs odczytany bezpośrednio z bazy danych.
+     *
+     * @param course kurs lub {@code null}, jeśli nie znaleziono.
+     */
+    private void publish(Course course) {
+        if (course != null) {
+            catalog.updateAndGet(current -> current.with(course));
+            autocomplete.add(course);
+        }
+    }
+
+    /**
+     * Importuje kursy z pliku CSV lub JSON i nanosi zaimportowane kursy na migawkę katalogu
+     * przez dziennik zmian - bez ponownego wczytywania całego katalogu.
+     *
+     * @param file      plik z kursami.
+     * @param chunkSize liczba rekordów zatwierdzanych w jednej transakcji.
+     * @return podsumowanie importu.
+     * @throws IOException gdy pliku nie da się odczytać.
+     */
+    public ImportReport importCourses(Path file, int chunkSize) throws IOException {
+        return METRICS.time("CourseManager.importCourses", () -> {
+            try {
+                return new CourseImporter(sessionFactory, chunkSize).importFile(file);
+            } finally {
+                try {
+                    syncCatalog();
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Synchronizacja katalogu po imporcie nie powiodła się - wczytywany jest cały katalog", e);
+                    loadCourses();
+                }
+            }
+        });
+    }
+
+    // ======================== WERSJE ASYNCHRONICZNE ========================
+
+    /**
+     * Asynchroniczne odpowiedniki metod {@link CourseManager}, wykonywane na {@link DatabaseExecutor}.
+     * Odczyty trafiające w migawkę katalogu kończą się natychmiast, bez angażowania puli.
+     */
+    public CompletableFuture<Course> getCourseByNameAsync(String courseName) {
+        Course cached = catalog.get().getByName(courseName);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return DatabaseExecutor.getInstance().submit(() -> getCourseByName(courseName));
+    }
+
+    public CompletableFuture<Course> getCourseByIdAsync(Long courseId) {
+        Course cached = catalog.get().getById(courseId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return DatabaseExecutor.getInstance().submit(() -> getCourseById(courseId));
+    }
+
+    public CompletableFuture<List<Course>> loadCoursesListAsync() {
+        return DatabaseExecutor.getInstance().submit(this::loadCoursesList);
+    }
+
+    public CompletableFuture<Integer> syncCatalogAsync() {
+        return DatabaseExecutor.getInstance().submit(this::syncCatalog);
+    }
+
+    public CompletableFuture<Void> addCourseAsync(Course course) {
+        return DatabaseExecutor.getInstance().run(() -> addCourse(course));
+    }
+
+    public CompletableFuture<Void> deleteCourseAsync(String courseName) {
+        return DatabaseExecutor.getInstance().run(() -> deleteCourse(courseName));
+    }
+
+    public CompletableFuture<CoursePage> findPageAsync(CourseSort sort, String nameFilter, CourseCursor after, int pageSize) {
+        return DatabaseExecutor.getInstance().submit(() -> findPage(sort, nameFilter, after, pageSize));
+    }
+
+    public CompletableFuture<CoursePage> findPageAtAsync(CourseSort sort, String nameFilter, int pageIndex, int pageSize) {
+        return DatabaseExecutor.getInstance().submit(() -> findPageAt(sort, nameFilter, pageIndex, pageSize));
+    }
+
+    public CompletableFuture<Long> countCoursesAsync(String nameFilter) {
+        return DatabaseExecutor.getInstance().submit(() -> countCourses(nameFilter));
+    }
+
+    public CompletableFuture<CoursePage> searchAsync(String query, CourseSort sort, int pageIndex, int pageSize) {
+        return DatabaseExecutor.getInstance().submit(() -> search(query, sort, pageIndex, pageSize));
+    }
+
+    public CompletableFuture<Long> countSearchAsync(String query) {
+        return DatabaseExecutor.getInstance().submit(() -> countSearch(query));
+    }
+
+    /** Import może trwać dłużej niż pojedyncze zapytanie, dlatego nie ma limitu czasu. */
+    public CompletableFuture<ImportReport> importCoursesAsync(Path file, int chunkSize) {
+        return DatabaseExecutor.getInstance().submit(() -> importCourses(file, chunkSize), 0, TimeUnit.SECONDS);
     }
 }
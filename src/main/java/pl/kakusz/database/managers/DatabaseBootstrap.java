@@ -0,0 +1,174 @@
+package pl.kakusz.database.managers;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Uruchamia połączenie z bazą danych w tle, gdy użytkownik widzi jeszcze ekran logowania.
+ *
+ * <p>Budowa {@link org.hibernate.SessionFactory} (połączenie ze zdalną bazą i aktualizacja schematu)
+ * zajmuje najwięcej czasu przy starcie, dlatego zaczyna się od razu w {@code Main.start}, a nie przy
+ * pierwszym kliknięciu "Zaloguj się". Gdy tylko fabryka sesji jest gotowa, logowanie może ruszyć,
+ * a katalog kursów wczytuje się równolegle.</p>
+ *
+ * <h3>Założenia:</h3>
+ * <ul>
+ *   <li>{@link #whenReady()} kończy się po zbudowaniu fabryki sesji i menedżerów - tylko na to
+ *       czeka logowanie.</li>
+ *   <li>{@link #whenCatalogReady()} kończy się po wczytaniu katalogu kursów (migawka i podpowiedzi).</li>
+ *   <li>Po wczytaniu katalogu {@link CatalogPoller} zaczyna okresowo nanosić zmiany z bazy.</li>
+ *   <li>Równolegle wczytywane są filtry dostępności nazw użytkowników i e-maili dla rejestracji.</li>
+ *   <li>Postęp zgłaszany jest słuchaczom dodanym przez {@link #addListener(Consumer)};
+ *       wywołania mogą przychodzić z dowolnego wątku.</li>
+ *   <li>Po nieudanym połączeniu kolejne wywołanie {@link #start()} ponawia próbę; jeśli połączenie
+ *       się udało, a nie powiodło się wczytanie katalogu, ponawiane jest tylko wczytanie katalogu.</li>
+ * </ul>
+ */
+public class DatabaseBootstrap {
+
+    private static final Logger LOGGER = Logger.getLogger(DatabaseBootstrap.class.getName());
+
+    /** Etapy uruchamiania wraz z opisem i postępem dla paska na ekranie logowania. */
+    @Getter
+    public enum Phase {
+        NOT_STARTED("Oczekiwanie na połączenie...", 0),
+        CONNECTING("Łączenie z bazą danych...", -1),
+        LOADING_CATALOG("Wczytywanie katalogu kursów...", 0.7),
+        READY("Połączono z bazą danych", 1),
+        FAILED("Brak połączenia z bazą danych", 1);
+
+        private final String label;
+        /** Postęp od 0 do 1; wartość ujemna oznacza postęp nieokreślony. */
+        private final double progress;
+
+        Phase(String label, double progress) {
+            this.label = label;
+            this.progress = progress;
+        }
+    }
+
+    private static DatabaseBootstrap instance;
+
+    private final List<Consumer<Phase>> listeners = new CopyOnWriteArrayList<>();
+
+    @Getter
+    private volatile Phase phase = Phase.NOT_STARTED;
+    /** Przyczyna ostatniego niepowodzenia lub {@code null}. */
+    @Getter
+    private volatile Throwable failure;
+
+    private CompletableFuture<DatabaseManager> ready;
+    private CompletableFuture<Void> catalogReady;
+
+    public static synchronized DatabaseBootstrap getInstance() {
+        if (instance == null) {
+            instance = new DatabaseBootstrap();
+        }
+        return instance;
+    }
+
+    /**
+     * Rozpoczyna uruchamianie w tle; kolejne wywołania zwracają to samo future,
+     * chyba że poprzednia próba się nie powiodła - wtedy ponawiany jest nieudany etap.
+     *
+     * @return future z gotowym {@link DatabaseManager}.
+     */
+    public synchronized CompletableFuture<DatabaseManager> start() {
+        if (ready != null && !ready.isCompletedExceptionally()) {
+            if (catalogReady.isCompletedExceptionally()) {
+                failure = null;
+                loadCatalog();
+            }
+            return ready;
+        }
+
+        DatabaseExecutor executor = DatabaseExecutor.getInstance();
+        failure = null;
+        setPhase(Phase.CONNECTING);
+
+        // Bez limitu czasu - aktualizacja schematu zdalnej bazy potrafi trwać dłużej niż zwykłe zapytanie
+        ready = executor.submit(DatabaseManager::create, 0, TimeUnit.SECONDS);
+
+        // Filtry dostępności nazw i e-maili dla rejestracji - równolegle z katalogiem, nikt na nie nie czeka
+        ready.thenAccept(manager -> executor.submit(() -> {
+            manager.getUserManager().loadAvailabilityFilters();
+            return null;
+        }, 0, TimeUnit.SECONDS).whenComplete((ignored, error) -> {
+            if (error != null) {
+                LOGGER.log(Level.WARNING, "Nie udało się wczytać filtrów dostępności nazw i adresów email", error);
+            }
+        }));
+        loadCatalog();
+        return ready;
+    }
+
+    /** Wczytuje katalog kursów po zbudowaniu fabryki sesji i zgłasza wynik jako etap READY / FAILED. */
+    private void loadCatalog() {
+        DatabaseExecutor executor = DatabaseExecutor.getInstance();
+        catalogReady = ready.thenCompose(manager -> {
+            setPhase(Phase.LOADING_CATALOG);
+            return executor.submit(() -> {
+                manager.getCourseManager().warmUp();
+                CatalogPoller.getInstance().start(manager.getCourseManager());
+                return null;
+            }, 0, TimeUnit.SECONDS);
+        });
+        catalogReady.whenComplete((ignored, error) -> {
+            if (error == null) {
+                setPhase(Phase.READY);
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                LOGGER.log(Level.SEVERE, "Nie udało się wczytać katalogu kursów", cause);
+                failure = cause;
+                setPhase(Phase.FAILED);
+            }
+        });
+    }
+
+    /**
+     * @return future z gotowym {@link DatabaseManager}; uruchamia połączenie, jeśli jeszcze nie ruszyło.
+     */
+    public CompletableFuture<DatabaseManager> whenReady() {
+        return start();
+    }
+
+    /**
+     * @return future zakończone po wczytaniu katalogu kursów.
+     */
+    public synchronized CompletableFuture<Void> whenCatalogReady() {
+        start();
+        return catalogReady;
+    }
+
+    /**
+     * Dodaje słuchacza postępu i od razu przekazuje mu bieżący etap.
+     * Po osiągnięciu {@link Phase#READY} słuchacze są usuwani.
+     *
+     * @param listener akcja wywoływana przy każdej zmianie etapu.
+     */
+    public void addListener(Consumer<Phase> listener) {
+        Phase current = phase;
+        if (current != Phase.READY) {
+            listeners.add(listener);
+        }
+        listener.accept(current);
+    }
+
+    private void setPhase(Phase phase) {
+        this.phase = phase;
+        for (Consumer<Phase> listener : listeners) {
+            listener.accept(phase);
+        }
+        if (phase == Phase.READY) {
+            listeners.clear();
+        }
+    }
+}
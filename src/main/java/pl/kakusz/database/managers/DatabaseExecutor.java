@@ -0,0 +1,168 @@
+package pl.kakusz.database.managers;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ograniczona pula wątków dla operacji bazodanowych wywoływanych asynchronicznie.
+ *
+ * <p>Wszystkie metody {@code *Async} z {@link UserManager} i {@link CourseManager} wykonują się
+ * na tej puli, dzięki czemu wątek JavaFX nigdy nie czeka na odpowiedź z sieci.</p>
+ *
+ * <h3>Założenia:</h3>
+ * <ul>
+ *   <li>Stała liczba nazwanych wątków-demonów ({@code db-worker-N}) i ograniczona kolejka -
+ *       nadmiar zadań kończy się {@link RejectedExecutionException} zamiast nieograniczonego wzrostu.</li>
+ *   <li>Anulowanie zwróconego {@link CompletableFuture} przerywa wykonywane zadanie.</li>
+ *   <li>Każde zadanie ma limit czasu; po jego przekroczeniu future kończy się {@link TimeoutException}.</li>
+ * </ul>
+ */
+public class DatabaseExecutor {
+
+    /** Liczba wątków roboczych; pula HikariCP w trybie klienta ma tyle samo połączeń. */
+    private static final int WORKER_THREADS = 4;
+
+    /** Maksymalna liczba zadań oczekujących w kolejce. */
+    private static final int QUEUE_CAPACITY = 256;
+
+    /** Domyślny limit czasu pojedynczej operacji. */
+    public static final long DEFAULT_TIMEOUT_SECONDS = 15;
+
+    private static DatabaseExecutor instance;
+
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService timeouts;
+
+    public DatabaseExecutor() {
+        this.executor = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), namedDaemonThreads("db-worker"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.timeouts = Executors.newSingleThreadScheduledExecutor(namedDaemonThreads("db-timeout"));
+    }
+
+    public static synchronized DatabaseExecutor getInstance() {
+        if (instance == null) {
+            instance = new DatabaseExecutor();
+        }
+        return instance;
+    }
+
+    /**
+     * Wykonuje zadanie na puli bazodanowej z domyślnym limitem czasu.
+     *
+     * @param task operacja bazodanowa.
+     * @param <T>  typ wyniku.
+     * @return future z wynikiem; anulowanie przerywa zadanie.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        return submit(task, DEFAULT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Wykonuje zadanie na puli bazodanowej z podanym limitem czasu.
+     *
+     * @param task    operacja bazodanowa.
+     * @param timeout limit czasu (wartość {@code <= 0} wyłącza limit).
+     * @param unit    jednostka limitu.
+     * @param <T>     typ wyniku.
+     * @return future z wynikiem; anulowanie lub przekroczenie limitu przerywa zadanie.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task, long timeout, TimeUnit unit) {
+        TaskFuture<T> result = new TaskFuture<>();
+        try {
+            result.task = executor.submit(() -> {
+                if (result.isDone()) {
+                    return; // anulowane zanim zadanie wystartowało
+                }
+                try {
+                    result.complete(task.call());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        if (timeout > 0) {
+            Future<?> timer = timeouts.schedule(() -> {
+                if (result.completeExceptionally(new TimeoutException("Przekroczono limit czasu operacji (" + timeout + " " + unit + ")"))) {
+                    result.interruptTask();
+                }
+            }, timeout, unit);
+            result.whenComplete((value, error) -> timer.cancel(false));
+        }
+        return result;
+    }
+
+    /**
+     * Wykonuje operację bez wyniku na puli bazodanowej.
+     *
+     * @param task operacja bazodanowa.
+     * @return future zakończony po wykonaniu operacji.
+     */
+    public CompletableFuture<Void> run(Runnable task) {
+        return submit(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /** @return liczba zadań aktualnie wykonywanych. */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /** @return liczba zadań oczekujących w kolejce. */
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    /** Zatrzymuje pulę, przerywając zadania w toku. */
+    public void shutdown() {
+        executor.shutdownNow();
+        timeouts.shutdownNow();
+    }
+
+    public static ThreadFactory namedDaemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /** Future, którego anulowanie przerywa również zadanie w puli. */
+    private static class TaskFuture<T> extends CompletableFuture<T> {
+        private volatile Future<?> task;
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                interruptTask();
+            }
+            return cancelled;
+        }
+
+        private void interruptTask() {
+            Future<?> running = task;
+            if (running != null) {
+                running.cancel(true);
+            }
+        }
+    }
+}
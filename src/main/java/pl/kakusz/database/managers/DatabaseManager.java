@@ -9,7 +9,7 @@ public class DatabaseManager {
     private final UserManager userManager;
     private final CourseManager courseManager;
 
-    private static DatabaseManager instance;
+    private static volatile DatabaseManager instance;
     private final SessionFactory sessionFactory;
 
 
@@ -19,7 +19,23 @@ public class DatabaseManager {
         this.courseManager = new CourseManager(this.sessionFactory);
     }
 
+    /**
+     * Zwraca gotowy menedżer bazy danych. Jeśli uruchamianie w tle jeszcze trwa, czeka na jego
+     * zakończenie - kod wywoływany przed zalogowaniem powinien korzystać z
+     * {@link DatabaseBootstrap#whenReady()}, żeby nie blokować wątku JavaFX.
+     *
+     * @return menedżer bazy danych.
+     */
     public static DatabaseManager getInstance() {
+        DatabaseManager ready = instance;
+        if (ready != null) {
+            return ready;
+        }
+        return DatabaseBootstrap.getInstance().whenReady().join();
+    }
+
+    /** Tworzy instancję przy uruchamianiu; wywoływane przez {@link DatabaseBootstrap}. */
+    static synchronized DatabaseManager create() {
         if (instance == null) {
             instance = new DatabaseManager();
         }
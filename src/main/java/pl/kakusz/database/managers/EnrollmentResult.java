@@ -0,0 +1,57 @@
+package pl.kakusz.database.managers;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Podsumowanie zbiorczego przypisania lub usunięcia kursów ({@link UserManager#assignCourses},
+ * {@link UserManager#removeCourses}).
+ */
+@Getter
+public class EnrollmentResult {
+
+    /** Czy operacja przypisywała kursy ({@code true}), czy je usuwała. */
+    private final boolean assign;
+    /** Liczba dodanych lub usuniętych par użytkownik-kurs. */
+    private final int changed;
+    /** Liczba par pominiętych, bo kurs był już przypisany (lub nie był, przy usuwaniu). */
+    private final int unchanged;
+    private final int users;
+    private final int courses;
+    private final List<String> unknownEmails;
+    private final List<String> unknownCourses;
+
+    EnrollmentResult(boolean assign, int changed, int unchanged, int users, int courses,
+                     List<String> unknownEmails, List<String> unknownCourses) {
+        this.assign = assign;
+        this.changed = changed;
+        this.unchanged = unchanged;
+        this.users = users;
+        this.courses = courses;
+        this.unknownEmails = Collections.unmodifiableList(unknownEmails);
+        this.unknownCourses = Collections.unmodifiableList(unknownCourses);
+    }
+
+    /** @return czy wszystkie podane e-maile i nazwy kursów zostały odnalezione. */
+    public boolean isComplete() {
+        return unknownEmails.isEmpty() && unknownCourses.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder();
+        summary.append(assign ? "Przypisano: " : "Usunięto: ").append(changed)
+                .append(" (użytkownicy: ").append(users).append(", kursy: ").append(courses).append(")\n");
+        summary.append(assign ? "Już przypisane: " : "Nieprzypisane: ").append(unchanged);
+        if (!unknownEmails.isEmpty()) {
+            summary.append("\nNieznane e-maile (").append(unknownEmails.size()).append("): ")
+                    .append(String.join(", ", unknownEmails.subList(0, Math.min(20, unknownEmails.size()))));
+        }
+        if (!unknownCourses.isEmpty()) {
+            summary.append("\nNieznane kursy: ").append(String.join(", ", unknownCourses));
+        }
+        return summary.toString();
+    }
+}
@@ -1,34 +1,166 @@
 package pl.kakusz.database.managers;
 
-import javafx.scene.control.Alert;
-import lombok.Getter;
 import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import pl.kakusz.database.cache.CacheRegionStats;
+import pl.kakusz.database.cache.CacheRegions;
+import pl.kakusz.database.metrics.HibernateDiagnostics;
+import pl.kakusz.database.metrics.SessionTracker;
+import pl.kakusz.database.objects.CatalogChange;
 import pl.kakusz.database.objects.Course;
 import pl.kakusz.database.objects.User;
-import pl.kakusz.fx.AlertHelper;
+import pl.kakusz.database.pool.PoolMetrics;
+import pl.kakusz.database.pool.PooledConnectionProvider;
+import pl.kakusz.database.pool.SlowQueryLog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class HibernateManager {
 
-    @Getter
-    private static final SessionFactory sessionFactory;
+    private static final Logger LOGGER = Logger.getLogger(HibernateManager.class.getName());
+
+    /**
+     * Właściwość systemowa z nazwą profilu, np. {@code -Dhibernate.profile=h2} do pracy lokalnej.
+     * Konfiguracją główną jest zawsze {@code hibernate.cfg.xml}; profil nadpisuje tylko ustawienia
+     * zapisane w {@code hibernate-<profil>.properties} (połączenie, dialekt, schemat).
+     */
+    public static final String PROFILE_PROPERTY = "hibernate.profile";
+
+    /** Budowana leniwie, w tle - zob. {@link DatabaseBootstrap}. */
+    private static volatile SessionFactory sessionFactory;
+
+    private static HibernateDiagnostics diagnostics;
+
+    /**
+     * Zwraca fabrykę sesji, budując ją przy pierwszym wywołaniu. Wywołania równoległe
+     * czekają na tę samą budowę; po błędzie kolejne wywołanie próbuje ponownie.
+     *
+     * @return fabryka sesji.
+     * @throws IllegalStateException gdy nie udało się połączyć z bazą danych.
+     */
+    public static SessionFactory getSessionFactory() {
+        SessionFactory built = sessionFactory;
+        if (built == null) {
+            synchronized (HibernateManager.class) {
+                built = sessionFactory;
+                if (built == null) {
+                    built = buildSessionFactory();
+                    sessionFactory = built;
+                }
+            }
+        }
+        return built;
+    }
+
+    /** @return {@code true}, jeśli fabryka sesji została już zbudowana. */
+    public static boolean isInitialized() {
+        return sessionFactory != null;
+    }
 
-    static {
+    private static SessionFactory buildSessionFactory() {
         try {
-            sessionFactory = new Configuration().configure("hibernate.cfg.xml")
+            return new Configuration().configure()
+                    .addProperties(profileProperties(System.getProperty(PROFILE_PROPERTY)))
                     .addAnnotatedClass(User.class)
                     .addAnnotatedClass(Course.class)
+                    .addAnnotatedClass(CatalogChange.class)
+                    // Liczniki otwartych i zamkniętych sesji - zob. DaoMetrics
+                    .setProperty(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, SessionTracker.class.getName())
 
                     .buildSessionFactory();
         } catch (Exception e) {
-            e.printStackTrace();
-            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Problem podczas tworzenia sesji: " + e.getMessage());
-            throw new ExceptionInInitializerError("Problem podczas tworzenia sesji: " + e.getMessage());
-         }
+            LOGGER.log(Level.SEVERE, "Nie udało się zbudować fabryki sesji", e);
+            throw new IllegalStateException("Problem podczas tworzenia sesji: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param profile nazwa profilu lub {@code null}.
+     * @return ustawienia nadpisujące {@code hibernate.cfg.xml}; puste, gdy nie wybrano profilu.
+     * @throws IOException gdy pliku profilu nie ma lub nie da się go odczytać.
+     */
+    private static Properties profileProperties(String profile) throws IOException {
+        Properties properties = new Properties();
+        if (profile == null || profile.isEmpty()) {
+            return properties;
+        }
+        String resource = "/hibernate-" + profile + ".properties";
+        InputStream stream = HibernateManager.class.getResourceAsStream(resource);
+        if (stream == null) {
+            throw new IOException("Brak pliku profilu " + resource);
+        }
+        try (Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return properties;
+    }
+
+    /**
+     * Zwraca konfigurację i statystyki regionów cache drugiego poziomu.
+     *
+     * @return lista statystyk regionów zdefiniowanych w {@link CacheRegions}.
+     */
+    public static List<CacheRegionStats> getCacheRegionStats() {
+        return CacheRegionStats.collect(getSessionFactory());
+    }
+
+    /**
+     * Zwraca metryki puli połączeń (aktywne, bezczynne, oczekujące, czasy pozyskania).
+     *
+     * @return metryki lub {@code null}, jeśli pula nie jest skonfigurowana.
+     */
+    public static PoolMetrics getPoolMetrics() {
+        PooledConnectionProvider provider = getPooledConnectionProvider();
+        return provider == null ? null : provider.getMetrics();
+    }
+
+    /**
+     * Zwraca pomiar instrukcji SQL i dziennik wolnych zapytań.
+     *
+     * @return dziennik lub {@code null}, jeśli pomiar jest wyłączony.
+     */
+    public static SlowQueryLog getSlowQueryLog() {
+        PooledConnectionProvider provider = getPooledConnectionProvider();
+        return provider == null ? null : provider.getSlowQueryLog();
+    }
+
+    private static PooledConnectionProvider getPooledConnectionProvider() {
+        ConnectionProvider provider = getSessionFactory().unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(ConnectionProvider.class);
+        return provider instanceof PooledConnectionProvider ? (PooledConnectionProvider) provider : null;
+    }
+
+    /**
+     * Zwraca statystyki Hibernate włączane na czas obserwacji (panel administratora).
+     *
+     * @return diagnostyka fabryki sesji.
+     */
+    public static synchronized HibernateDiagnostics getDiagnostics() {
+        if (diagnostics == null) {
+            diagnostics = new HibernateDiagnostics(getSessionFactory());
+        }
+        return diagnostics;
     }
 
     public static void shutdown() {
+        if (!isInitialized()) {
+            return;
+        }
+        getCacheRegionStats().forEach(stats -> LOGGER.info(String.valueOf(stats)));
+        LOGGER.info(String.valueOf(getPoolMetrics()));
+        LOGGER.info(String.valueOf(getSlowQueryLog()));
         getSessionFactory().close();
-        System.out.println("session closed");
+        LOGGER.info("Zamknięto fabrykę sesji");
     }
 }
@@ -0,0 +1,21 @@
+package pl.kakusz.database.managers;
+
+import lombok.Getter;
+
+/**
+ * Wynik zakupu kursu przez {@link UserManager#purchaseCourse(Long, Long)}.
+ */
+@Getter
+public enum PurchaseResult {
+    SUCCESS("Zakupiono kurs."),
+    INSUFFICIENT_FUNDS("Nie masz wystarczających środków na koncie."),
+    ALREADY_OWNED("Posiadasz już ten kurs."),
+    NOT_FOUND("Kurs nie istnieje.");
+
+    /** Komunikat dla użytkownika. */
+    private final String message;
+
+    PurchaseResult(String message) {
+        this.message = message;
+    }
+}
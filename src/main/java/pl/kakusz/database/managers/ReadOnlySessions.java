@@ -0,0 +1,53 @@
+package pl.kakusz.database.managers;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+
+/**
+ * Sesje Hibernate przeznaczone wyłącznie do odczytu.
+ *
+ * <p>Zwykła sesja dla każdej wczytanej encji trzyma kopię stanu do wykrywania zmian
+ * (dirty checking) i przed zapytaniami wykonuje flush. Przy samych odczytach to zbędny koszt:</p>
+ * <ul>
+ *   <li>{@link #open(SessionFactory)} - sesja z encjami tylko do odczytu (bez kopii stanu)
+ *       i {@link FlushMode#MANUAL}; nadal korzysta z cache drugiego poziomu.</li>
+ *   <li>{@link #openStateless(SessionFactory)} - sesja bezstanowa, bez kontekstu trwałości
+ *       i cache; do jednorazowego wczytania dużej liczby wierszy, np. całego katalogu.</li>
+ * </ul>
+ *
+ * <p>Encje zwrócone z takich sesji są odłączone jak dotychczas i można je przekazać do
+ * metod zapisujących, np. {@link UserManager#updateUser}.</p>
+ */
+public final class ReadOnlySessions {
+
+    /**
+     * Podpowiedź rozmiaru paczki wierszy pobieranej ze sterownika JDBC dla zapytań zwracających listy.
+     * MySQL Connector/J respektuje ją tylko przy {@code useCursorFetch=true} w adresie połączenia
+     * ({@code hibernate.cfg.xml}); bez tego cały wynik zapytania trafia do pamięci naraz.
+     */
+    public static final int FETCH_SIZE = 200;
+
+    private ReadOnlySessions() {
+    }
+
+    /**
+     * @param sessionFactory fabryka sesji.
+     * @return sesja tylko do odczytu; należy ją zamknąć (try-with-resources).
+     */
+    public static Session open(SessionFactory sessionFactory) {
+        Session session = sessionFactory.openSession();
+        session.setDefaultReadOnly(true);
+        session.setHibernateFlushMode(FlushMode.MANUAL);
+        return session;
+    }
+
+    /**
+     * @param sessionFactory fabryka sesji.
+     * @return sesja bezstanowa; należy ją zamknąć (try-with-resources).
+     */
+    public static StatelessSession openStateless(SessionFactory sessionFactory) {
+        return sessionFactory.openStatelessSession();
+    }
+}
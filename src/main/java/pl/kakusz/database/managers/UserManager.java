@@ -1,209 +1,806 @@
 package pl.kakusz.database.managers;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import javafx.scene.control.Alert;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
 import org.hibernate.Transaction;
-import org.mindrot.jbcrypt.BCrypt;
-import pl.kakusz.database.objects.Course;
+import pl.kakusz.database.cache.UserCache;
+import pl.kakusz.database.metrics.DaoMetrics;
 import pl.kakusz.database.objects.User;
 import pl.kakusz.fx.AlertHelper;
+import pl.kakusz.security.PasswordHasher;
+import pl.kakusz.util.BloomFilter;
+import pl.kakusz.util.LongHashSet;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class UserManager {
+
+    private static final Logger LOGGER = Logger.getLogger(UserManager.class.getName());
+
+    /** Czas, liczba wywołań i błędów każdej operacji - zob. {@link DaoMetrics}. */
+    private static final DaoMetrics METRICS = DaoMetrics.getInstance();
+
     private final SessionFactory sessionFactory;
     @Setter
     @Getter
     private User currentUser = null;
+    @Getter
+    private final UserCache userCache;
+
+    /** Dopuszczalny odsetek fałszywych "może być zajęte" w filtrach dostępności. */
+    private static final double AVAILABILITY_FALSE_POSITIVE_RATE = 0.01;
+
+    /**
+     * Filtry Blooma istniejących nazw użytkowników i e-maili (małymi literami, jak porównuje MySQL).
+     * {@code null} do czasu wczytania - wtedy każde sprawdzenie idzie do bazy.
+     */
+    private volatile BloomFilter usernameFilter;
+    private volatile BloomFilter emailFilter;
 
     public UserManager(SessionFactory sessionFactory) {
         this.sessionFactory = sessionFactory;
+        this.userCache = new UserCache();
     }
 
+    /**
+     * Zapisuje nowego użytkownika.
+     *
+     * @param user nowy użytkownik.
+     * @throws RuntimeException gdy zapis się nie powiódł, np. nazwa lub e-mail zostały w międzyczasie
+     *                          zajęte przez innego klienta (naruszenie ograniczenia unikalności).
+     */
     public void saveUser(User user) {
-        Transaction transaction = null;
-        try (Session session = sessionFactory.openSession()) {
-            transaction = session.beginTransaction();
-            session.save(user);
-            transaction.commit();
-        } catch (Exception e) {
-            if (transaction != null) transaction.rollback();
-            e.printStackTrace();
+        METRICS.run("UserManager.saveUser", () -> {
+            try (Session session = sessionFactory.openSession()) {
+                Transaction transaction = session.beginTransaction();
+                try {
+                    session.save(user);
+                    transaction.commit();
+                } catch (RuntimeException e) {
+                    // Wycofanie przed zamknięciem sesji - po nim nie ma już połączenia
+                    if (transaction.isActive()) transaction.rollback();
+                    throw e;
+                }
+                userCache.put(user);
+                rememberTaken(user);
+            } catch (RuntimeException e) {
+                userCache.invalidate(user);
+                LOGGER.log(Level.WARNING, "Nie udało się zapisać użytkownika", e);
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Wczytuje nazwy użytkowników i e-maile do filtrów dostępności. Wywoływane w tle przy starcie
+     * przez {@link DatabaseBootstrap}; filtr jest zwymiarowany z zapasem na nowe rejestracje.
+     */
+    public void loadAvailabilityFilters() {
+        METRICS.run("UserManager.loadAvailabilityFilters", () -> {
+            try (StatelessSession session = ReadOnlySessions.openStateless(sessionFactory)) {
+                List<Object[]> rows = session.createQuery("select u.username, u.email from User u", Object[].class)
+                        .setFetchSize(ReadOnlySessions.FETCH_SIZE)
+                        .getResultList();
+                int expected = Math.max(1_000, rows.size() * 2);
+                BloomFilter usernames = new BloomFilter(expected, AVAILABILITY_FALSE_POSITIVE_RATE);
+                BloomFilter emails = new BloomFilter(expected, AVAILABILITY_FALSE_POSITIVE_RATE);
+                for (Object[] row : rows) {
+                    usernames.put(availabilityKey((String) row[0]));
+                    emails.put(availabilityKey((String) row[1]));
+                }
+                usernameFilter = usernames;
+                emailFilter = emails;
+            }
+        });
+    }
+
+    private void rememberTaken(User user) {
+        BloomFilter usernames = usernameFilter;
+        BloomFilter emails = emailFilter;
+        if (usernames != null && user.getUsername() != null) {
+            usernames.put(availabilityKey(user.getUsername()));
+        }
+        if (emails != null && user.getEmail() != null) {
+            emails.put(availabilityKey(user.getEmail()));
         }
     }
 
-    public void updateUser(User user) {
-        Session session = sessionFactory.openSession();
-        Transaction transaction = null;
+    private static String availabilityKey(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
 
-        try {
-            transaction = session.beginTransaction();
+    /**
+     * Zapisuje dane konta użytkownika: nazwę, e-mail i rolę. Kopie z {@link UserCache} nie mają
+     * wczytanych kursów, dlatego zamiast {@code session.update} - które wyczyściłoby przypisania -
+     * pola są przepisywane na encję wczytaną w tej sesji.
+     *
+     * <p>Saldo i hasło nie są zapisywane: przepisanie wartości wczytanej wcześniej cofnęłoby
+     * równoległy zakup, doładowanie lub zmianę hasza. Służą do tego {@link #setBalance(String, double)},
+     * {@link #addFunds(Long, double)} i {@link #updatePassword(String, String, String)}.</p>
+     */
+    public void updateUser(User user) {
+        METRICS.run("UserManager.updateUser", () -> {
+            Session session = sessionFactory.openSession();
+            Transaction transaction = null;
 
+            try {
+                transaction = session.beginTransaction();
 
-            session.update(user);
+                User managed = session.get(User.class, user.getId());
+                if (managed == null) {
+                    throw new IllegalStateException("Użytkownik nie istnieje");
+                }
+                managed.setUsername(user.getUsername());
+                managed.setEmail(user.getEmail());
+                managed.setRole(user.getRole());
 
-            transaction.commit();
-        } catch (Exception e) {
-            if (transaction != null) transaction.rollback();
-            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie udało się zaktualizować użytkownika: " + e.getMessage());
+                transaction.commit();
+            } catch (Exception e) {
+                if (transaction != null) transaction.rollback();
+                AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie udało się zaktualizować użytkownika: " + e.getMessage());
 
-            throw new ArithmeticException("Nie udało się zaktualizować użytkownika");
+                throw new ArithmeticException("Nie udało się zaktualizować użytkownika");
 
-        }finally {
-            session.close();
-        }
+            }finally {
+                session.close();
+                userCache.invalidate(user);
+            }
+        });
     }
 
     public User getCurrentUserWithCourses(Long userId) {
-        Session session = sessionFactory.openSession();
-        User user = null;
+        return METRICS.time("UserManager.getCurrentUserWithCourses", () -> {
+            Session session = ReadOnlySessions.open(sessionFactory);
+            User user = null;
 
-        try {
-            String hql = "FROM User u LEFT JOIN FETCH u.courses WHERE u.id = :userId";
-            user = session.createQuery(hql, User.class)
-                    .setParameter("userId", userId)
-                    .uniqueResult();
-        } catch (Exception e) {
-            e.printStackTrace();
-            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie udało się, sproboj ponownie " + e.getMessage());
+            try {
+                String hql = "FROM User u LEFT JOIN FETCH u.courses WHERE u.id = :userId";
+                user = session.createQuery(hql, User.class)
+                        .setParameter("userId", userId)
+                        .uniqueResult();
+            } catch (Exception e) {
+                METRICS.failed(e);
+                AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie udało się, sproboj ponownie " + e.getMessage());
 
-        } finally {
-            session.close();
-        }
-        return user;
+            } finally {
+                session.close();
+            }
+            return user;
+        });
     }
 
+    /**
+     * Zwraca identyfikatory kursów posiadanych przez użytkownika - bez wczytywania encji kursów.
+     *
+     * @param userId identyfikator użytkownika.
+     * @return zbiór identyfikatorów; błędy bazy danych są propagowane do wywołującego.
+     */
+    public LongHashSet getOwnedCourseIds(Long userId) {
+        return METRICS.time("UserManager.getOwnedCourseIds", () -> {
+            try (Session session = ReadOnlySessions.open(sessionFactory)) {
+                List<Long> ids = session.createQuery(
+                                "select c.id from User u join u.courses c where u.id = :userId", Long.class)
+                        .setParameter("userId", userId)
+                        .getResultList();
+                LongHashSet owned = new LongHashSet(ids.size());
+                for (Long id : ids) {
+                    owned.add(id);
+                }
+                return owned;
+            }
+        });
+    }
 
     private boolean existsByField(String fieldName, String value) {
-        try (Session session = sessionFactory.openSession()) {
-            Long count = (Long) session.createQuery(
-                            "SELECT COUNT(u) FROM User u WHERE u." + fieldName + " = :value")
+        try {
+            return findUserByField(fieldName, value).isPresent();
+        } catch (Exception e) {
+            METRICS.failed(e);
+            return false;
+        }
+    }
+
+    /**
+     * Sprawdza w bazie, z pominięciem pamięci podręcznej i filtrów, czy wartość pola jest zajęta.
+     * Porównanie wykonuje baza, tak samo jak przy ograniczeniu unikalności (MySQL *_ci).
+     */
+    private boolean existsInDatabase(String fieldName, String value) {
+        try (Session session = ReadOnlySessions.open(sessionFactory)) {
+            Long count = session.createQuery(
+                            "select count(u) from User u where u." + fieldName + " = :value", Long.class)
                     .setParameter("value", value)
                     .uniqueResult();
             return count > 0;
-        } catch (Exception e) {
-            e.printStackTrace();
-            return false;
         }
     }
 
+    /**
+     * Ostateczne sprawdzenie nazwy użytkownika przed rejestracją - zawsze zapytaniem do bazy.
+     *
+     * @param username nazwa użytkownika.
+     * @return {@code true}, jeśli nazwa jest zajęta; błędy bazy danych są propagowane.
+     */
+    public boolean usernameTaken(String username) {
+        return METRICS.time("UserManager.usernameTaken", () -> existsInDatabase("username", username));
+    }
+
+    /**
+     * Jak {@link #usernameTaken(String)}, dla adresu e-mail.
+     *
+     * @param email adres e-mail.
+     * @return {@code true}, jeśli adres jest używany; błędy bazy danych są propagowane.
+     */
+    public boolean emailTaken(String email) {
+        return METRICS.time("UserManager.emailTaken", () -> existsInDatabase("email", email));
+    }
+
     public boolean userExists(String username) {
-        return existsByField("username", username);
+        return METRICS.time("UserManager.userExists", () -> existsByField("username", username));
     }
 
     public boolean emailExists(String email) {
-        return existsByField("email", email);
+        return METRICS.time("UserManager.emailExists", () -> existsByField("email", email));
     }
 
     private User getUserByField(String fieldName, String value) {
-        try (Session session = sessionFactory.openSession()) {
-            return (User) session.createQuery(
-                            "FROM User u WHERE u." + fieldName + " = :value")
-                    .setParameter("value", value)
-                    .uniqueResult();
+        try {
+            return findUserByField(fieldName, value).orElse(null);
         } catch (Exception e) {
-            e.printStackTrace();
+            METRICS.failed(e);
             AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie udało się, sproboj ponownie " + e.getMessage());
 
             return null;
         }
     }
 
+    /**
+     * Wyszukuje użytkownika przez pamięć podręczną, a przy jej braku w bazie danych.
+     * Wynik (również negatywny) jest zapamiętywany w {@link UserCache}.
+     */
+    private Optional<User> findUserByField(String fieldName, String value) {
+        if ("email".equals(fieldName)) {
+            return userCache.getByEmail(value, key -> loadUserByField(fieldName, key));
+        }
+        return userCache.getByUsername(value, key -> loadUserByField(fieldName, key));
+    }
+
+    private User loadUserByField(String fieldName, String value) {
+        try (Session session = ReadOnlySessions.open(sessionFactory)) {
+            return (User) session.createQuery(
+                            "FROM User u WHERE u." + fieldName + " = :value")
+                    .setParameter("value", value)
+                    .uniqueResult();
+        }
+    }
+
     public User getUserByUsername(String username) {
-        return getUserByField("username", username);
+        return METRICS.time("UserManager.getUserByUsername", () -> getUserByField("username", username));
     }
 
     public User getUserByEmail(String email) {
-        return getUserByField("email", email);
+        return METRICS.time("UserManager.getUserByEmail", () -> getUserByField("email", email));
     }
     public User getUserWithCourses(String email) {
-        try (Session session = sessionFactory.openSession()) {
-            return session.createQuery(
-                            "SELECT u FROM User u LEFT JOIN FETCH u.courses WHERE u.email = :email", User.class)
-                    .setParameter("email", email)
-                    .uniqueResult();
-        }
+        return METRICS.time("UserManager.getUserWithCourses", () -> {
+            try (Session session = ReadOnlySessions.open(sessionFactory)) {
+                return session.createQuery(
+                                "SELECT u FROM User u LEFT JOIN FETCH u.courses WHERE u.email = :email", User.class)
+                        .setParameter("email", email)
+                        .uniqueResult();
+            }
+        });
     }
     public boolean updatePassword(String email, String oldPassword, String newPassword) {
-        Transaction transaction = null;
-        try (Session session = sessionFactory.openSession()) {
-            User user = (User) session.createQuery(
-                            "FROM User u WHERE u.email = :email")
-                    .setParameter("email", email)
-                    .uniqueResult();
+        return METRICS.time("UserManager.updatePassword", () -> {
+            Transaction transaction = null;
+            try (Session session = sessionFactory.openSession()) {
+                User user = (User) session.createQuery(
+                                "FROM User u WHERE u.email = :email")
+                        .setParameter("email", email)
+                        .uniqueResult();
 
-            if (user != null && BCrypt.checkpw(oldPassword, user.getPassword())) {
+                PasswordHasher hasher = PasswordHasher.getInstance();
+                if (user != null && hasher.verify(oldPassword, user.getPassword())) {
+                    transaction = session.beginTransaction();
+                    user.setPassword(hasher.hash(newPassword));
+                    session.update(user);
+                    transaction.commit();
+                    userCache.invalidate(user);
+                    return true;
+                } else {
+                    return false;
+                }
+            } catch (Exception e) {
+                if (transaction != null) transaction.rollback();
+                userCache.invalidateEmail(email);
+                METRICS.failed(e);
+                AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie udało się, sproboj ponownie " + e.getMessage());
+
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Podmienia hasz hasła, o ile w bazie nadal jest oczekiwany hasz - równoległa zmiana hasła
+     * nie zostanie nadpisana.
+     *
+     * @param userId       identyfikator użytkownika.
+     * @param expectedHash hasz odczytany wcześniej z bazy.
+     * @param newHash      nowy hasz.
+     * @return {@code true}, jeśli hasz został zmieniony.
+     */
+    public boolean replacePasswordHash(Long userId, String expectedHash, String newHash) {
+        return METRICS.time("UserManager.replacePasswordHash", () -> {
+            Transaction transaction = null;
+            try (Session session = sessionFactory.openSession()) {
                 transaction = session.beginTransaction();
-                user.setPassword(BCrypt.hashpw(newPassword, BCrypt.gensalt(12)));
-                session.update(user);
+                int updated = session.createQuery(
+                                "update User u set u.password = :newHash where u.id = :userId and u.password = :expectedHash")
+                        .setParameter("newHash", newHash)
+                        .setParameter("userId", userId)
+                        .setParameter("expectedHash", expectedHash)
+                        .executeUpdate();
                 transaction.commit();
-                return true;
-            } else {
-                return false;
+                return updated == 1;
+            } catch (RuntimeException e) {
+                if (transaction != null && transaction.isActive()) transaction.rollback();
+                LOGGER.log(Level.WARNING, "Nie udało się zastąpić hasza hasła", e);
+                throw e;
+            } finally {
+                userCache.invalidateId(userId);
             }
-        } catch (Exception e) {
-            if (transaction != null) transaction.rollback();
-            e.printStackTrace();
-            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie udało się, sproboj ponownie " + e.getMessage());
+        });
+    }
 
-            return false;
-        }
+    /**
+     * Ustawia nowy hasz hasła bez sprawdzania starego hasła (reset przez administratora).
+     *
+     * @param email   adres e-mail użytkownika.
+     * @param newHash hasz nowego hasła.
+     * @return {@code true}, jeśli użytkownik istnieje.
+     */
+    public boolean resetPasswordHash(String email, String newHash) {
+        return METRICS.time("UserManager.resetPasswordHash", () -> {
+            Transaction transaction = null;
+            try (Session session = sessionFactory.openSession()) {
+                transaction = session.beginTransaction();
+                int updated = session.createQuery("update User u set u.password = :newHash where u.email = :email")
+                        .setParameter("newHash", newHash)
+                        .setParameter("email", email)
+                        .executeUpdate();
+                transaction.commit();
+                return updated > 0;
+            } catch (RuntimeException e) {
+                if (transaction != null && transaction.isActive()) transaction.rollback();
+                LOGGER.log(Level.WARNING, "Nie udało się zresetować hasła", e);
+                throw e;
+            } finally {
+                userCache.invalidateEmail(email);
+            }
+        });
     }
 
     public void deleteUser(User userByEmail) {
-        Session session = sessionFactory.openSession();
-        Transaction transaction = null;
-        try {
-            transaction = session.beginTransaction();
-            session.delete(userByEmail);
-            transaction.commit();
-        } catch (Exception e) {
-            if (transaction != null) transaction.rollback();
-            e.printStackTrace();
-            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie udało się, sproboj ponownie " + e.getMessage());
+        METRICS.run("UserManager.deleteUser", () -> {
+            Session session = sessionFactory.openSession();
+            Transaction transaction = null;
+            try {
+                transaction = session.beginTransaction();
+                session.delete(userByEmail);
+                transaction.commit();
+            } catch (Exception e) {
+                if (transaction != null) transaction.rollback();
+                METRICS.failed(e);
+                AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie udało się, sproboj ponownie " + e.getMessage());
 
-        }finally {
-            session.close();
-        }
+            }finally {
+                session.close();
+                userCache.invalidate(userByEmail);
+            }
+        });
     }
 
-    public void handleAssignCourse(User userByEmail, String courseName) {
-        Session session = sessionFactory.openSession();
-        Transaction transaction = null;
-        try {
-            transaction = session.beginTransaction();
-            User user = session.get(User.class, userByEmail.getId());
-            user.getCourses().add(session.get(Course.class, courseName));
-            session.update(user);
-            transaction.commit();
-        } catch (Exception e) {
-            if (transaction != null) transaction.rollback();
-            e.printStackTrace();
-            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie udało się, sproboj ponownie " + e.getMessage());
+    /**
+     * Przypisuje kurs jednemu użytkownikowi.
+     *
+     * @param userByEmail użytkownik.
+     * @param courseName  nazwa kursu.
+     * @return podsumowanie (m.in. czy kurs istnieje).
+     */
+    public EnrollmentResult handleAssignCourse(User userByEmail, String courseName) {
+        return METRICS.time("UserManager.handleAssignCourse", () -> {
+            try {
+                return assignCourses(Collections.singletonList(userByEmail.getEmail()), Collections.singletonList(courseName));
+            } finally {
+                userCache.invalidate(userByEmail);
+            }
+        });
+    }
+
+    /**
+     * Usuwa kurs jednemu użytkownikowi.
+     *
+     * @param userByEmail użytkownik.
+     * @param courseName  nazwa kursu.
+     * @return podsumowanie (m.in. czy kurs istnieje).
+     */
+    public EnrollmentResult handleRemoveCourse(User userByEmail, String courseName) {
+        return METRICS.time("UserManager.handleRemoveCourse", () -> {
+            try {
+                return removeCourses(Collections.singletonList(userByEmail.getEmail()), Collections.singletonList(courseName));
+            } finally {
+                userCache.invalidate(userByEmail);
+            }
+        });
+    }
+
+    /**
+     * Przypisuje kursy wielu użytkownikom w jednej transakcji (zob. {@link CourseEnrollment}).
+     *
+     * @param emails      adresy e-mail użytkowników.
+     * @param courseNames nazwy kursów.
+     * @return podsumowanie z listą nieznanych e-maili i kursów.
+     */
+    public EnrollmentResult assignCourses(Collection<String> emails, Collection<String> courseNames) {
+        return METRICS.time("UserManager.assignCourses", () -> new CourseEnrollment(sessionFactory, userCache).apply(emails, courseNames, true));
+    }
+
+    /**
+     * Usuwa kursy wielu użytkownikom w jednej transakcji (zob. {@link CourseEnrollment}).
+     *
+     * @param emails      adresy e-mail użytkowników.
+     * @param courseNames nazwy kursów.
+     * @return podsumowanie z listą nieznanych e-maili i kursów.
+     */
+    public EnrollmentResult removeCourses(Collection<String> emails, Collection<String> courseNames) {
+        return METRICS.time("UserManager.removeCourses", () -> new CourseEnrollment(sessionFactory, userCache).apply(emails, courseNames, false));
+    }
+
+    /**
+     * Kupuje kurs dla użytkownika w jednej transakcji, bez wczytywania i nadpisywania całego użytkownika.
+     *
+     * <p>Cena i istnienie kursu odczytywane są z bazy w tej transakcji, a nie z cache drugiego
+     * poziomu - kurs usunięty lub przeceniony przez innego administratora nie zostanie sprzedany
+     * po starej cenie. Warunkowy {@code UPDATE} pobiera opłatę tylko przy wystarczającym saldzie
+     * i blokuje wiersz użytkownika do końca transakcji, więc równoległe zakupy tego samego
+     * użytkownika wykonują się po kolei. Następnie jeden {@code INSERT ... SELECT ... WHERE NOT EXISTS}
+     * przypisuje kurs, o ile nadal istnieje; w przeciwnym razie transakcja jest wycofywana razem z opłatą.</p>
+     *
+     * @param userId   identyfikator kupującego.
+     * @param courseId identyfikator kursu.
+     * @return wynik zakupu; błędy bazy danych są propagowane do wywołującego.
+     */
+    public PurchaseResult purchaseCourse(Long userId, Long courseId) {
+        return METRICS.time("UserManager.purchaseCourse", () -> {
+            Transaction transaction = null;
+            try (Session session = sessionFactory.openSession()) {
+                transaction = session.beginTransaction();
+                Number price = (Number) session.createNativeQuery("SELECT price FROM courses WHERE id = :courseId")
+                        .setParameter("courseId", courseId)
+                        .uniqueResult();
+                if (price == null) {
+                    transaction.rollback();
+                    return PurchaseResult.NOT_FOUND;
+                }
+
+                int debited = session.createNativeQuery(
+                                "UPDATE users SET balance = balance - :price WHERE id = :userId AND balance >= :price")
+                        .setParameter("price", price.doubleValue())
+                        .setParameter("userId", userId)
+                        .addSynchronizedEntityClass(User.class)
+                        .executeUpdate();
+                if (debited == 0) {
+                    transaction.rollback();
+                    return purchaseFailure(session, userId, courseId);
+                }
+
+                int assigned = session.createNativeQuery(
+                                "INSERT INTO user_courses (user_id, course_id) SELECT :userId, c.id FROM courses c"
+                                        + " WHERE c.id = :courseId AND NOT EXISTS"
+                                        + " (SELECT 1 FROM user_courses WHERE user_id = :userId AND course_id = :courseId)")
+                        .setParameter("userId", userId)
+                        .setParameter("courseId", courseId)
+                        .addSynchronizedQuerySpace("user_courses")
+                        .executeUpdate();
+                if (assigned == 0) {
+                    transaction.rollback();
+                    return purchaseFailure(session, userId, courseId);
+                }
+
+                transaction.commit();
+                return PurchaseResult.SUCCESS;
+            } catch (RuntimeException e) {
+                if (transaction != null && transaction.isActive()) transaction.rollback();
+                LOGGER.log(Level.WARNING, "Nie udało się kupić kursu", e);
+                throw e;
+            } finally {
+                userCache.invalidateId(userId);
+            }
+        });
+    }
+
+    /**
+     * Doładowuje konto jednym {@code UPDATE ... SET balance = balance + ?}, bez nadpisywania salda
+     * wczytanego wcześniej - równoległy zakup (zob. {@link #purchaseCourse(Long, Long)}) nie zostanie cofnięty.
+     *
+     * @param userId identyfikator użytkownika.
+     * @param amount kwota doładowania.
+     * @return saldo po doładowaniu lub {@code null}, jeśli użytkownik nie istnieje; błędy bazy danych
+     *         są propagowane do wywołującego.
+     */
+    public Double addFunds(Long userId, double amount) {
+        return METRICS.time("UserManager.addFunds", () -> {
+            Transaction transaction = null;
+            try (Session session = sessionFactory.openSession()) {
+                transaction = session.beginTransaction();
+                int updated = session.createNativeQuery("UPDATE users SET balance = balance + :amount WHERE id = :userId")
+                        .setParameter("amount", amount)
+                        .setParameter("userId", userId)
+                        .addSynchronizedEntityClass(User.class)
+                        .executeUpdate();
+                if (updated == 0) {
+                    transaction.rollback();
+                    return null;
+                }
+                // Wiersz jest zablokowany do końca transakcji, więc odczytane saldo obejmuje to doładowanie
+                Number balance = (Number) session.createNativeQuery("SELECT balance FROM users WHERE id = :userId")
+                        .setParameter("userId", userId)
+                        .uniqueResult();
+                transaction.commit();
+                return balance.doubleValue();
+            } catch (RuntimeException e) {
+                if (transaction != null && transaction.isActive()) transaction.rollback();
+                LOGGER.log(Level.WARNING, "Nie udało się doładować konta", e);
+                throw e;
+            } finally {
+                userCache.invalidateId(userId);
+            }
+        });
+    }
 
-        }finally {
-            session.close();
+    /**
+     * Ustawia saldo użytkownika (korekta przez administratora) jednym {@code UPDATE} jednej kolumny,
+     * bez wczytywania i nadpisywania pozostałych pól.
+     *
+     * @param email   adres e-mail użytkownika.
+     * @param balance nowe saldo.
+     * @return {@code true}, jeśli użytkownik istnieje; błędy bazy danych są propagowane do wywołującego.
+     */
+    public boolean setBalance(String email, double balance) {
+        return METRICS.time("UserManager.setBalance", () -> {
+            Transaction transaction = null;
+            try (Session session = sessionFactory.openSession()) {
+                transaction = session.beginTransaction();
+                int updated = session.createQuery("update User u set u.balance = :balance where u.email = :email")
+                        .setParameter("balance", balance)
+                        .setParameter("email", email)
+                        .executeUpdate();
+                transaction.commit();
+                return updated > 0;
+            } catch (RuntimeException e) {
+                if (transaction != null && transaction.isActive()) transaction.rollback();
+                LOGGER.log(Level.WARNING, "Nie udało się ustawić salda", e);
+                throw e;
+            } finally {
+                userCache.invalidateEmail(email);
+            }
+        });
+    }
+
+    /** Ustala przyczynę nieudanego zakupu: brak kursu lub użytkownika, posiadany kurs lub brak środków. */
+    private PurchaseResult purchaseFailure(Session session, Long userId, Long courseId) {
+        Number courses = (Number) session.createNativeQuery("SELECT COUNT(*) FROM courses WHERE id = :courseId")
+                .setParameter("courseId", courseId)
+                .uniqueResult();
+        if (courses.intValue() == 0) {
+            return PurchaseResult.NOT_FOUND;
         }
+        Number owned = (Number) session.createNativeQuery(
+                        "SELECT COUNT(*) FROM user_courses WHERE user_id = :userId AND course_id = :courseId")
+                .setParameter("userId", userId)
+                .setParameter("courseId", courseId)
+                .uniqueResult();
+        if (owned.intValue() > 0) {
+            return PurchaseResult.ALREADY_OWNED;
+        }
+        Number users = (Number) session.createNativeQuery("SELECT COUNT(*) FROM users WHERE id = :userId")
+                .setParameter("userId", userId)
+                .uniqueResult();
+        return users.intValue() == 0 ? PurchaseResult.NOT_FOUND : PurchaseResult.INSUFFICIENT_FUNDS;
     }
 
-    public void handleRemoveCourse(User userByEmail, String courseName) {
+    /**
+     * Zwraca łączne statystyki pamięci podręcznej wyszukiwań użytkowników.
+     *
+     * @return liczniki trafień, chybień i usunięć.
+     */
+    public CacheStats getUserCacheStats() {
+        return userCache.getStats();
+    }
 
-        Session session = sessionFactory.openSession();
-        Transaction transaction = null;
-        try {
-            transaction = session.beginTransaction();
-            User user = session.get(User.class, userByEmail.getId());
-            user.getCourses().remove(session.get(Course.class, courseName));
-            session.update(user);
-            transaction.commit();
-        } catch (Exception e) {
-            if (transaction != null) transaction.rollback();
-            e.printStackTrace();
-            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie udało się, sproboj ponownie " + e.getMessage());
+    // ======================== WERSJE ASYNCHRONICZNE ========================
+
+    /**
+     * Asynchroniczne odpowiedniki metod {@link UserManager}, wykonywane na {@link DatabaseExecutor}.
+     * Wynik należy przekazać na wątek JavaFX np. przez {@link pl.kakusz.fx.FxAsync#onFx}.
+     */
+    public CompletableFuture<Void> saveUserAsync(User user) {
+        return DatabaseExecutor.getInstance().run(() -> saveUser(user));
+    }
+
+    public CompletableFuture<Void> updateUserAsync(User user) {
+        return DatabaseExecutor.getInstance().run(() -> updateUser(user));
+    }
+
+    public CompletableFuture<LongHashSet> getOwnedCourseIdsAsync(Long userId) {
+        return DatabaseExecutor.getInstance().submit(() -> getOwnedCourseIds(userId));
+    }
+
+    public CompletableFuture<User> getCurrentUserWithCoursesAsync(Long userId) {
+        return DatabaseExecutor.getInstance().submit(() -> getCurrentUserWithCourses(userId));
+    }
+
+    public CompletableFuture<Boolean> userExistsAsync(String username) {
+        return DatabaseExecutor.getInstance().submit(() -> userExists(username));
+    }
 
-        }finally {
-            session.close();
+    public CompletableFuture<Boolean> emailExistsAsync(String email) {
+        return DatabaseExecutor.getInstance().submit(() -> emailExists(email));
+    }
+
+    /**
+     * Sprawdza, czy nazwa użytkownika jest wolna - podpowiedź w trakcie wpisywania. Jeśli filtr Blooma
+     * odpowie "na pewno nie ma", wynik jest natychmiastowy, bez zapytania do bazy; tylko możliwe kolizje
+     * sprawdzane są w bazie.
+     *
+     * <p>Filtr nie zna użytkowników zarejestrowanych przez inne klienty, dlatego przed zapisem
+     * należy użyć {@link #usernameTakenAsync(String)}.</p>
+     *
+     * @param username nazwa użytkownika.
+     * @return future z {@code true}, jeśli nazwa jest wolna.
+     */
+    public CompletableFuture<Boolean> isUsernameAvailableAsync(String username) {
+        BloomFilter filter = usernameFilter;
+        if (filter != null && !filter.mightContain(availabilityKey(username))) {
+            return CompletableFuture.completedFuture(true);
         }
+        return DatabaseExecutor.getInstance().submit(() -> !userExists(username));
+    }
+
+    /**
+     * Jak {@link #isUsernameAvailableAsync(String)}, dla adresu e-mail; przed zapisem należy użyć
+     * {@link #emailTakenAsync(String)}.
+     *
+     * @param email adres e-mail.
+     * @return future z {@code true}, jeśli adres nie jest używany.
+     */
+    public CompletableFuture<Boolean> isEmailAvailableAsync(String email) {
+        BloomFilter filter = emailFilter;
+        if (filter != null && !filter.mightContain(availabilityKey(email))) {
+            return CompletableFuture.completedFuture(true);
+        }
+        return DatabaseExecutor.getInstance().submit(() -> !emailExists(email));
+    }
+
+    public CompletableFuture<Boolean> usernameTakenAsync(String username) {
+        return DatabaseExecutor.getInstance().submit(() -> usernameTaken(username));
+    }
+
+    public CompletableFuture<Boolean> emailTakenAsync(String email) {
+        return DatabaseExecutor.getInstance().submit(() -> emailTaken(email));
+    }
+
+    public CompletableFuture<User> getUserByUsernameAsync(String username) {
+        return DatabaseExecutor.getInstance().submit(() -> getUserByUsername(username));
+    }
+
+    public CompletableFuture<User> getUserByEmailAsync(String email) {
+        return DatabaseExecutor.getInstance().submit(() -> getUserByEmail(email));
+    }
+
+    public CompletableFuture<User> getUserWithCoursesAsync(String email) {
+        return DatabaseExecutor.getInstance().submit(() -> getUserWithCourses(email));
+    }
+
+    /**
+     * Zmienia hasło po sprawdzeniu starego. Zapytania wykonują się na puli bazodanowej,
+     * a BCrypt na puli {@link PasswordHasher}.
+     *
+     * @return future z {@code false}, gdy użytkownik nie istnieje lub stare hasło jest błędne.
+     */
+    public CompletableFuture<Boolean> updatePasswordAsync(String email, String oldPassword, String newPassword) {
+        PasswordHasher hasher = PasswordHasher.getInstance();
+        return getUserByEmailAsync(email).thenCompose(user -> {
+            if (user == null) {
+                return CompletableFuture.completedFuture(false);
+            }
+            return hasher.verifyAsync(oldPassword, user.getPassword()).thenCompose(matches -> !matches
+                    ? CompletableFuture.completedFuture(false)
+                    : hasher.hashAsync(newPassword).thenCompose(newHash -> DatabaseExecutor.getInstance()
+                            .submit(() -> replacePasswordHash(user.getId(), user.getPassword(), newHash))));
+        });
+    }
+
+    /**
+     * Ustawia nowe hasło bez znajomości starego (panel administratora).
+     *
+     * @return future z {@code false}, gdy użytkownik nie istnieje.
+     */
+    public CompletableFuture<Boolean> resetPasswordAsync(String email, String newPassword) {
+        return PasswordHasher.getInstance().hashAsync(newPassword)
+                .thenCompose(newHash -> DatabaseExecutor.getInstance().submit(() -> resetPasswordHash(email, newHash)));
+    }
+
+    /**
+     * Sprawdza hasło użytkownika przy logowaniu. Jeśli hasło pasuje, a hasz ma przestarzały koszt,
+     * w tle zapisywany jest nowy hasz - logowanie na to nie czeka.
+     *
+     * @param user     użytkownik odczytany z bazy.
+     * @param password hasło podane przy logowaniu.
+     * @return future z wynikiem weryfikacji.
+     */
+    public CompletableFuture<Boolean> verifyPasswordAsync(User user, String password) {
+        PasswordHasher hasher = PasswordHasher.getInstance();
+        String storedHash = user.getPassword();
+        return hasher.verifyAsync(password, storedHash).thenApply(matches -> {
+            if (matches && hasher.needsRehash(storedHash)) {
+                hasher.hashAsync(password)
+                        .thenCompose(newHash -> DatabaseExecutor.getInstance()
+                                .submit(() -> replacePasswordHash(user.getId(), storedHash, newHash)))
+                        .whenComplete((updated, error) -> {
+                            if (error != null) {
+                                LOGGER.log(Level.WARNING, "Nie udało się zaktualizować hasza hasła po logowaniu", error);
+                            }
+                        });
+            }
+            return matches;
+        });
+    }
+
+    public CompletableFuture<Void> deleteUserAsync(User user) {
+        return DatabaseExecutor.getInstance().run(() -> deleteUser(user));
+    }
+
+    public CompletableFuture<PurchaseResult> purchaseCourseAsync(Long userId, Long courseId) {
+        return DatabaseExecutor.getInstance().submit(() -> purchaseCourse(userId, courseId));
+    }
+
+    public CompletableFuture<Double> addFundsAsync(Long userId, double amount) {
+        return DatabaseExecutor.getInstance().submit(() -> addFunds(userId, amount));
+    }
+
+    public CompletableFuture<Boolean> setBalanceAsync(String email, double balance) {
+        return DatabaseExecutor.getInstance().submit(() -> setBalance(email, balance));
+    }
+
+    public CompletableFuture<EnrollmentResult> handleAssignCourseAsync(User user, String courseName) {
+        return DatabaseExecutor.getInstance().submit(() -> handleAssignCourse(user, courseName));
+    }
+
+    public CompletableFuture<EnrollmentResult> handleRemoveCourseAsync(User user, String courseName) {
+        return DatabaseExecutor.getInstance().submit(() -> handleRemoveCourse(user, courseName));
+    }
+
+    /** Operacje zbiorcze mogą obejmować setki użytkowników, dlatego nie mają limitu czasu. */
+    public CompletableFuture<EnrollmentResult> assignCoursesAsync(Collection<String> emails, Collection<String> courseNames) {
+        return DatabaseExecutor.getInstance().submit(() -> assignCourses(emails, courseNames), 0, TimeUnit.SECONDS);
+    }
+
+    public CompletableFuture<EnrollmentResult> removeCoursesAsync(Collection<String> emails, Collection<String> courseNames) {
+        return DatabaseExecutor.getInstance().submit(() -> removeCourses(emails, courseNames), 0, TimeUnit.SECONDS);
     }
 }
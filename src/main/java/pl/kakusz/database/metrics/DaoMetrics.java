@@ -0,0 +1,271 @@
+package pl.kakusz.database.metrics;
+
+import pl.kakusz.database.managers.DatabaseExecutor;
+import pl.kakusz.util.LatencyHistogram;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pomiary operacji DAO ({@link pl.kakusz.database.managers.UserManager},
+ * {@link pl.kakusz.database.managers.CourseManager}): czas wywołań, liczba wywołań, błędów
+ * i wywołań w toku dla każdej operacji oraz liczba otwartych i zamkniętych sesji Hibernate.
+ *
+ * <h3>Założenia:</h3>
+ * <ul>
+ *   <li>Operacja to publiczna metoda menedżera owinięta w {@link #time(String, DaoCall)} lub
+ *       {@link #run(String, DaoRunnable)}. Wywołania zagnieżdżone liczone są osobno dla każdej operacji.</li>
+ *   <li>Błędem jest wyjątek wychodzący z operacji albo błąd obsłużony w jej wnętrzu
+ *       i zgłoszony przez {@link #failed(Throwable)}.</li>
+ *   <li>Każda operacja i całość są widoczne przez JMX pod {@code pl.kakusz:type=DaoOperation,name=...}
+ *       i {@code pl.kakusz:type=DaoMetrics}; po {@link #start()} migawka trafia też okresowo do dziennika.</li>
+ * </ul>
+ */
+public class DaoMetrics implements DaoMetricsMXBean {
+
+    /** Właściwość systemowa z odstępem między zrzutami do dziennika w sekundach; 0 wyłącza zrzuty. */
+    public static final String DUMP_INTERVAL_PROPERTY = "dao.metrics.dumpIntervalSeconds";
+
+    private static final long DEFAULT_DUMP_INTERVAL_SECONDS = 300;
+    private static final String JMX_DOMAIN = "pl.kakusz";
+    private static final Logger LOGGER = Logger.getLogger(DaoMetrics.class.getName());
+
+    private static DaoMetrics instance;
+
+    private final ConcurrentMap<String, DaoOperation> operations = new ConcurrentHashMap<>();
+    private final LongAdder sessionsOpened = new LongAdder();
+    private final LongAdder sessionsClosed = new LongAdder();
+    private final LatencyHistogram sessionTime = new LatencyHistogram();
+
+    /** Bieżące wywołanie na danym wątku - do oznaczania błędów obsłużonych wewnątrz operacji. */
+    private final ThreadLocal<Call> current = new ThreadLocal<>();
+
+    private ScheduledExecutorService dumper;
+
+    /** Operacja DAO zwracająca wynik. */
+    @FunctionalInterface
+    public interface DaoCall<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    /** Operacja DAO bez wyniku. */
+    @FunctionalInterface
+    public interface DaoRunnable<E extends Exception> {
+        void run() throws E;
+    }
+
+    private static final class Call {
+        private final Call parent;
+        private boolean failed;
+
+        private Call(Call parent) {
+            this.parent = parent;
+        }
+    }
+
+    public static synchronized DaoMetrics getInstance() {
+        if (instance == null) {
+            instance = new DaoMetrics();
+            register(objectName("type=DaoMetrics"), instance);
+        }
+        return instance;
+    }
+
+    /**
+     * Wykonuje operację i zapisuje jej czas.
+     *
+     * @param operation nazwa operacji, np. {@code UserManager.purchaseCourse}.
+     * @param body      treść operacji.
+     * @return wynik operacji.
+     * @throws E wyjątek operacji, przekazywany bez zmian.
+     */
+    public <T, E extends Exception> T time(String operation, DaoCall<T, E> body) throws E {
+        DaoOperation stats = operation(operation);
+        Call call = new Call(current.get());
+        current.set(call);
+        stats.begin();
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            T result = body.call();
+            completed = true;
+            return result;
+        } finally {
+            stats.end(System.nanoTime() - start, !completed || call.failed);
+            if (call.parent == null) {
+                current.remove();
+            } else {
+                current.set(call.parent);
+            }
+        }
+    }
+
+    /**
+     * Jak {@link #time(String, DaoCall)}, dla operacji bez wyniku.
+     *
+     * @param operation nazwa operacji.
+     * @param body      treść operacji.
+     * @throws E wyjątek operacji, przekazywany bez zmian.
+     */
+    public <E extends Exception> void run(String operation, DaoRunnable<E> body) throws E {
+        time(operation, () -> {
+            body.run();
+            return null;
+        });
+    }
+
+    /**
+     * Zapisuje błąd w dzienniku i oznacza bieżącą operację jako zakończoną błędem - dla bloków
+     * {@code catch}, które obsługują błąd zamiast go rzucać dalej.
+     *
+     * @param error obsłużony błąd.
+     */
+    public void failed(Throwable error) {
+        LOGGER.log(Level.WARNING, "Operacja bazy danych zakończona błędem", error);
+        Call call = current.get();
+        if (call != null) {
+            call.failed = true;
+        }
+    }
+
+    void sessionOpened() {
+        sessionsOpened.increment();
+    }
+
+    void sessionClosed(long nanos) {
+        sessionsClosed.increment();
+        sessionTime.record(nanos);
+    }
+
+    /**
+     * Uruchamia okresowy zapis migawki do dziennika ({@value #DUMP_INTERVAL_PROPERTY});
+     * kolejne wywołania nic nie robią.
+     */
+    public synchronized void start() {
+        long interval = Long.getLong(DUMP_INTERVAL_PROPERTY, DEFAULT_DUMP_INTERVAL_SECONDS);
+        if (dumper != null || interval <= 0) {
+            return;
+        }
+        dumper = Executors.newSingleThreadScheduledExecutor(DatabaseExecutor.namedDaemonThreads("dao-metrics"));
+        dumper.scheduleAtFixedRate(() -> LOGGER.info(dump()), interval, interval, TimeUnit.SECONDS);
+    }
+
+    /** Zatrzymuje okresowe zrzuty; liczniki i MBeany pozostają dostępne. */
+    public synchronized void stop() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+        }
+    }
+
+    /**
+     * @param operation nazwa operacji.
+     * @return liczniki operacji lub {@code null}, jeśli nie była jeszcze wywołana.
+     */
+    public DaoOperation get(String operation) {
+        return operations.get(operation);
+    }
+
+    private DaoOperation operation(String name) {
+        DaoOperation stats = operations.get(name);
+        if (stats != null) {
+            return stats;
+        }
+        DaoOperation created = new DaoOperation(name);
+        stats = operations.putIfAbsent(name, created);
+        if (stats != null) {
+            return stats;
+        }
+        register(objectName("type=DaoOperation,name=" + name), created);
+        return created;
+    }
+
+    private List<DaoOperation> sortedOperations() {
+        List<DaoOperation> sorted = new ArrayList<>(operations.values());
+        sorted.sort((a, b) -> a.getName().compareTo(b.getName()));
+        return sorted;
+    }
+
+    @Override
+    public String[] getOperations() {
+        List<String> names = new ArrayList<>(operations.keySet());
+        Collections.sort(names);
+        return names.toArray(new String[0]);
+    }
+
+    @Override
+    public long getSessionsOpened() {
+        return sessionsOpened.sum();
+    }
+
+    @Override
+    public long getSessionsClosed() {
+        return sessionsClosed.sum();
+    }
+
+    @Override
+    public long getOpenSessions() {
+        return Math.max(0, getSessionsOpened() - getSessionsClosed());
+    }
+
+    @Override
+    public double getSessionP99Millis() {
+        return sessionTime.snapshot().getP99Nanos() / 1_000_000.0;
+    }
+
+    @Override
+    public String dump() {
+        return toString();
+    }
+
+    @Override
+    public void reset() {
+        for (DaoOperation stats : operations.values()) {
+            stats.reset();
+        }
+        sessionTime.reset();
+    }
+
+    private static ObjectName objectName(String properties) {
+        try {
+            return new ObjectName(JMX_DOMAIN + ":" + properties);
+        } catch (JMException e) {
+            throw new IllegalArgumentException(properties, e);
+        }
+    }
+
+    private static void register(ObjectName name, Object mbean) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (!server.isRegistered(name)) {
+                server.registerMBean(mbean, name);
+            }
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, "Nie udało się zarejestrować MBeana " + name, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("Operacje DAO: sesje otwarte=").append(getSessionsOpened())
+                .append(", zamknięte=").append(getSessionsClosed())
+                .append(", czas życia sesji: ").append(sessionTime.snapshot());
+        for (DaoOperation stats : sortedOperations()) {
+            text.append("\n  ").append(stats);
+        }
+        return text.toString();
+    }
+}
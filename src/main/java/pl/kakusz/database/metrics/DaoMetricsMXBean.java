@@ -0,0 +1,29 @@
+package pl.kakusz.database.metrics;
+
+/**
+ * Widok JMX całej warstwy DAO ({@code pl.kakusz:type=DaoMetrics}); szczegóły operacji
+ * są osobnymi MBeanami {@link DaoOperationMXBean}.
+ */
+public interface DaoMetricsMXBean {
+
+    /** @return nazwy operacji, które zostały choć raz wywołane. */
+    String[] getOperations();
+
+    /** @return liczba sesji Hibernate otwartych od uruchomienia aplikacji. */
+    long getSessionsOpened();
+
+    /** @return liczba zamkniętych sesji Hibernate. */
+    long getSessionsClosed();
+
+    /** @return liczba sesji otwartych w tej chwili. */
+    long getOpenSessions();
+
+    /** @return p99 czasu życia sesji w milisekundach. */
+    double getSessionP99Millis();
+
+    /** @return migawka wszystkich liczników w postaci tekstu, jak w okresowym zrzucie. */
+    String dump();
+
+    /** Zeruje liczniki wszystkich operacji i histogram czasu życia sesji. */
+    void reset();
+}
@@ -0,0 +1,109 @@
+package pl.kakusz.database.metrics;
+
+import pl.kakusz.util.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Liczniki i histogram czasu jednej operacji DAO. Zapis nie używa blokad - to kilka
+ * operacji na {@link LongAdder} i jedna na tablicy histogramu.
+ */
+public class DaoOperation implements DaoOperationMXBean {
+
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder inFlight = new LongAdder();
+
+    DaoOperation(String name) {
+        this.name = name;
+    }
+
+    void begin() {
+        calls.increment();
+        inFlight.increment();
+    }
+
+    void end(long nanos, boolean failed) {
+        inFlight.decrement();
+        latency.record(nanos);
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    /** @return migawka histogramu czasu wywołań. */
+    public LatencyHistogram.Snapshot getLatency() {
+        return latency.snapshot();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return millis(getLatency().getMeanNanos());
+    }
+
+    @Override
+    public double getP50Millis() {
+        return millis(getLatency().getP50Nanos());
+    }
+
+    @Override
+    public double getP90Millis() {
+        return millis(getLatency().getP90Nanos());
+    }
+
+    @Override
+    public double getP99Millis() {
+        return millis(getLatency().getP99Nanos());
+    }
+
+    @Override
+    public double getP999Millis() {
+        return millis(getLatency().getP999Nanos());
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return millis(getLatency().getMaxNanos());
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        calls.reset();
+        errors.reset();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": wywołania=" + getCalls()
+                + ", błędy=" + getErrors()
+                + ", w toku=" + getInFlight()
+                + ", " + getLatency();
+    }
+}
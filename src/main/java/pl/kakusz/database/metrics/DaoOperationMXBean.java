@@ -0,0 +1,35 @@
+package pl.kakusz.database.metrics;
+
+/**
+ * Widok JMX jednej operacji DAO ({@code pl.kakusz:type=DaoOperation,name=...}).
+ * Czasy w milisekundach, liczone od uruchomienia aplikacji lub ostatniego {@link #reset()}.
+ */
+public interface DaoOperationMXBean {
+
+    /** @return nazwa operacji, np. {@code UserManager.purchaseCourse}. */
+    String getName();
+
+    /** @return liczba rozpoczętych wywołań. */
+    long getCalls();
+
+    /** @return liczba wywołań zakończonych wyjątkiem lub obsłużonym błędem. */
+    long getErrors();
+
+    /** @return liczba wywołań trwających w tej chwili. */
+    long getInFlight();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP90Millis();
+
+    double getP99Millis();
+
+    double getP999Millis();
+
+    double getMaxMillis();
+
+    /** Zeruje liczniki i histogram (poza wywołaniami w toku). */
+    void reset();
+}
@@ -0,0 +1,240 @@
+package pl.kakusz.database.metrics;
+
+import lombok.Getter;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Statystyki Hibernate ({@link Statistics}) włączane tylko na czas obserwacji, np. gdy otwarta
+ * jest zakładka diagnostyki w panelu administratora.
+ *
+ * <p>Przy wyłączonych statystykach Hibernate niczego nie zlicza - każda sesja, zapytanie i odczyt
+ * encji sprawdza jedynie flagę. Po włączeniu zliczany jest każdy z tych kroków, dlatego statystyki
+ * są aktywne tylko między {@link #acquire()} a {@link #release()}.</p>
+ *
+ * <h3>Założenia:</h3>
+ * <ul>
+ *   <li>Kilku obserwatorów (np. dwa okna administratora) może korzystać ze statystyk jednocześnie;
+ *       wyłącza je dopiero ostatni {@link #release()}.</li>
+ *   <li>Pierwszy {@link #acquire()} zeruje liczniki, żeby migawka obejmowała tylko czas obserwacji.</li>
+ *   <li>Jeśli statystyki włączono w konfiguracji ({@code hibernate.generate_statistics}), pozostają włączone.</li>
+ * </ul>
+ */
+public class HibernateDiagnostics {
+
+    private final SessionFactory sessionFactory;
+
+    private int observers;
+    /** Czy statystyki były włączone przed pierwszym {@link #acquire()} - wtedy ich nie wyłączamy. */
+    private boolean enabledByConfig;
+
+    /**
+     * @param sessionFactory fabryka sesji, której statystyki są obserwowane.
+     */
+    public HibernateDiagnostics(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    /** Włącza zbieranie statystyk dla kolejnego obserwatora. */
+    public synchronized void acquire() {
+        Statistics statistics = sessionFactory.getStatistics();
+        if (observers++ == 0) {
+            enabledByConfig = statistics.isStatisticsEnabled();
+            statistics.clear();
+            statistics.setStatisticsEnabled(true);
+        }
+    }
+
+    /** Kończy obserwację; ostatni obserwator wyłącza zbieranie statystyk. */
+    public synchronized void release() {
+        if (observers == 0) {
+            return;
+        }
+        if (--observers == 0 && !enabledByConfig) {
+            sessionFactory.getStatistics().setStatisticsEnabled(false);
+        }
+    }
+
+    /** @return {@code true}, jeśli statystyki są w tej chwili zbierane. */
+    public boolean isActive() {
+        return sessionFactory.getStatistics().isStatisticsEnabled();
+    }
+
+    /** Zeruje liczniki bez przerywania obserwacji. */
+    public void clear() {
+        sessionFactory.getStatistics().clear();
+    }
+
+    /** @return migawka bieżących statystyk. */
+    public Snapshot snapshot() {
+        return new Snapshot(sessionFactory.getStatistics());
+    }
+
+    private static double ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private static String percent(double ratio) {
+        return String.format(Locale.ROOT, "%.1f%%", ratio * 100);
+    }
+
+    /** Migawka statystyk; czasy w milisekundach. */
+    @Getter
+    public static class Snapshot {
+        private final long observedMillis;
+        private final long sessionsOpened;
+        private final long transactions;
+        private final long preparedStatements;
+        private final long queryExecutions;
+        private final long queryMaxMillis;
+        private final String slowestQuery;
+        private final long entityLoads;
+        private final long entityFetches;
+        private final long entityInserts;
+        private final long entityUpdates;
+        private final long entityDeletes;
+        private final long secondLevelHits;
+        private final long secondLevelMisses;
+        private final long secondLevelPuts;
+        private final double secondLevelHitRatio;
+        private final long queryCacheHits;
+        private final long queryCacheMisses;
+        private final double queryCacheHitRatio;
+        /** Wykonane zapytania od najwolniejszego (czas maksymalny). */
+        private final List<QueryRow> queries;
+        private final List<EntityRow> entities;
+        private final List<RegionRow> regions;
+
+        private Snapshot(Statistics statistics) {
+            long startTime = statistics.getStartTime();
+            this.observedMillis = startTime > 0 ? System.currentTimeMillis() - startTime : 0;
+            this.sessionsOpened = statistics.getSessionOpenCount();
+            this.transactions = statistics.getTransactionCount();
+            this.preparedStatements = statistics.getPrepareStatementCount();
+            this.queryExecutions = statistics.getQueryExecutionCount();
+            this.queryMaxMillis = statistics.getQueryExecutionMaxTime();
+            this.slowestQuery = statistics.getQueryExecutionMaxTimeQueryString();
+            this.entityLoads = statistics.getEntityLoadCount();
+            this.entityFetches = statistics.getEntityFetchCount();
+            this.entityInserts = statistics.getEntityInsertCount();
+            this.entityUpdates = statistics.getEntityUpdateCount();
+            this.entityDeletes = statistics.getEntityDeleteCount();
+            this.secondLevelHits = statistics.getSecondLevelCacheHitCount();
+            this.secondLevelMisses = statistics.getSecondLevelCacheMissCount();
+            this.secondLevelPuts = statistics.getSecondLevelCachePutCount();
+            this.secondLevelHitRatio = ratio(secondLevelHits, secondLevelMisses);
+            this.queryCacheHits = statistics.getQueryCacheHitCount();
+            this.queryCacheMisses = statistics.getQueryCacheMissCount();
+            this.queryCacheHitRatio = ratio(queryCacheHits, queryCacheMisses);
+
+            List<QueryRow> queryRows = new ArrayList<>();
+            for (String query : statistics.getQueries()) {
+                QueryRow row = new QueryRow(query, statistics.getQueryStatistics(query));
+                // Zapytania natywne rejestrowane są też w postaci przed podstawieniem parametrów, z zerem wykonań
+                if (row.getExecutionCount() > 0) {
+                    queryRows.add(row);
+                }
+            }
+            queryRows.sort(Comparator.comparingLong(QueryRow::getMaxMillis).reversed());
+            this.queries = Collections.unmodifiableList(queryRows);
+
+            List<EntityRow> entityRows = new ArrayList<>();
+            for (String entity : statistics.getEntityNames()) {
+                entityRows.add(new EntityRow(entity, statistics.getEntityStatistics(entity)));
+            }
+            this.entities = Collections.unmodifiableList(entityRows);
+
+            List<RegionRow> regionRows = new ArrayList<>();
+            for (String region : statistics.getSecondLevelCacheRegionNames()) {
+                CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+                if (regionStatistics != null) {
+                    regionRows.add(new RegionRow(region, regionStatistics));
+                }
+            }
+            this.regions = Collections.unmodifiableList(regionRows);
+        }
+
+        /** @return {@link #getSecondLevelHitRatio()} w procentach. */
+        public String getSecondLevelHitRatioText() {
+            return percent(secondLevelHitRatio);
+        }
+
+        /** @return {@link #getQueryCacheHitRatio()} w procentach. */
+        public String getQueryCacheHitRatioText() {
+            return percent(queryCacheHitRatio);
+        }
+    }
+
+    /** Statystyki jednego zapytania HQL lub SQL. */
+    @Getter
+    public static class QueryRow {
+        private final String query;
+        private final long executionCount;
+        private final long averageMillis;
+        private final long maxMillis;
+        private final long rowCount;
+        private final long cacheHits;
+
+        private QueryRow(String query, QueryStatistics statistics) {
+            this.query = query;
+            this.executionCount = statistics.getExecutionCount();
+            this.averageMillis = statistics.getExecutionAvgTime();
+            this.maxMillis = statistics.getExecutionMaxTime();
+            this.rowCount = statistics.getExecutionRowCount();
+            this.cacheHits = statistics.getCacheHitCount();
+        }
+    }
+
+    /** Odczyty i zapisy jednej encji. */
+    @Getter
+    public static class EntityRow {
+        private final String entity;
+        private final long loadCount;
+        private final long fetchCount;
+        private final long insertCount;
+        private final long updateCount;
+        private final long deleteCount;
+
+        private EntityRow(String entity, EntityStatistics statistics) {
+            this.entity = entity.substring(entity.lastIndexOf('.') + 1);
+            this.loadCount = statistics.getLoadCount();
+            this.fetchCount = statistics.getFetchCount();
+            this.insertCount = statistics.getInsertCount();
+            this.updateCount = statistics.getUpdateCount();
+            this.deleteCount = statistics.getDeleteCount();
+        }
+    }
+
+    /** Trafienia jednego regionu cache drugiego poziomu. */
+    @Getter
+    public static class RegionRow {
+        private final String region;
+        private final long hitCount;
+        private final long missCount;
+        private final long putCount;
+        private final double hitRatio;
+
+        private RegionRow(String region, CacheRegionStatistics statistics) {
+            this.region = region;
+            this.hitCount = statistics.getHitCount();
+            this.missCount = statistics.getMissCount();
+            this.putCount = statistics.getPutCount();
+            this.hitRatio = ratio(hitCount, missCount);
+        }
+
+        /** @return {@link #getHitRatio()} w procentach. */
+        public String getHitRatioText() {
+            return percent(hitRatio);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package pl.kakusz.database.metrics;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Liczy otwarte i zamknięte sesje Hibernate (zwykłe i bezstanowe) oraz czas ich życia.
+ *
+ * <p>Hibernate tworzy osobny egzemplarz dla każdej sesji, jeśli klasa jest wskazana we właściwości
+ * {@code hibernate.session.events.auto} (ustawia ją {@link pl.kakusz.database.managers.HibernateManager}),
+ * i wywołuje {@link #end()} przy zamknięciu sesji.</p>
+ */
+public class SessionTracker extends BaseSessionEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final DaoMetrics METRICS = DaoMetrics.getInstance();
+
+    private final long openedAt = System.nanoTime();
+
+    public SessionTracker() {
+        METRICS.sessionOpened();
+    }
+
+    @Override
+    public void end() {
+        METRICS.sessionClosed(System.nanoTime() - openedAt);
+    }
+}
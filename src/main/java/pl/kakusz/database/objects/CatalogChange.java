@@ -0,0 +1,37 @@
+package pl.kakusz.database.objects;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Wpis dziennika zmian katalogu kursów.
+ *
+ * <p>Identyfikator jest jednocześnie numerem wersji katalogu: każde dodanie, zmiana lub usunięcie
+ * kursu zapisuje w tej samej transakcji nowy wiersz. Klient pamiętający wersję N pyta tylko
+ * o wiersze {@code id > N}, więc koszt odświeżenia zależy od liczby zmian, a nie od wielkości katalogu.
+ * Usunięte kursy zostawiają wpis z flagą {@link #deleted} (tzw. tombstone).</p>
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "catalog_changes")
+public class CatalogChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    /** {@code true}, jeśli kurs został usunięty. */
+    @Column(nullable = false)
+    private boolean deleted;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "changed_at", nullable = false)
+    private Date changedAt;
+}
@@ -2,6 +2,11 @@ package pl.kakusz.database.objects;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import pl.kakusz.database.cache.CacheRegions;
 
 import javax.persistence.*;
 import java.math.BigDecimal;
@@ -12,11 +17,29 @@ import java.util.List;
 @Getter
 @Setter
 @Entity
-@Table(name = "courses")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.COURSE)
+@Table(name = "courses", indexes = {
+        // Indeksy złożone pod stronicowanie keyset po (cena, id) i (nazwa, id)
+        @Index(name = "idx_courses_price_id", columnList = "price, id"),
+        @Index(name = "idx_courses_name_id", columnList = "name, id")
+})
 public class Course {
 
+    /** Tabela (lub sekwencja) przydzielająca identyfikatory kursów pulami po 50. */
+    public static final String ID_SEQUENCE = "courses_seq";
+
+    /**
+     * Identyfikator przydzielany przez optymalizator {@code pooled-lo} zamiast IDENTITY,
+     * dzięki czemu Hibernate może grupować INSERT-y w paczki JDBC (np. przy imporcie).
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "course_id")
+    @GenericGenerator(name = "course_id", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+            @Parameter(name = "sequence_name", value = ID_SEQUENCE),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     private Long id;
 
     @Column(nullable = false)
@@ -36,5 +59,4 @@ public class Course {
 
 
 
-
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package pl.kakusz.database.paging;
+
+import lombok.Getter;
+import pl.kakusz.database.objects.Course;
+
+/**
+ * Klucz ostatniego wiersza strony - punkt, od którego zapytanie keyset pobiera następną stronę.
+ */
+@Getter
+public class CourseCursor {
+
+    private final Long id;
+    private final Double price;
+    private final String name;
+
+    public CourseCursor(Long id, Double price, String name) {
+        this.id = id;
+        this.price = price;
+        this.name = name;
+    }
+
+    /**
+     * Tworzy kursor wskazujący na podany kurs.
+     *
+     * @param course ostatni kurs na stronie.
+     * @return kursor.
+     */
+    public static CourseCursor of(Course course) {
+        return new CourseCursor(course.getId(), course.getPrice(), course.getName());
+    }
+}
@@ -0,0 +1,30 @@
+package pl.kakusz.database.paging;
+
+import lombok.Getter;
+import pl.kakusz.database.objects.Course;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Jedna strona wyników katalogu kursów.
+ */
+@Getter
+public class CoursePage {
+
+    /** Pusta strona. */
+    public static final CoursePage EMPTY = new CoursePage(Collections.<Course>emptyList(), false);
+
+    private final List<Course> items;
+    private final boolean hasNext;
+
+    public CoursePage(List<Course> items, boolean hasNext) {
+        this.items = Collections.unmodifiableList(items);
+        this.hasNext = hasNext;
+    }
+
+    /** @return kursor ostatniego elementu strony lub {@code null}, jeśli strona jest pusta. */
+    public CourseCursor getLastCursor() {
+        return items.isEmpty() ? null : CourseCursor.of(items.get(items.size() - 1));
+    }
+}
@@ -0,0 +1,45 @@
+package pl.kakusz.database.paging;
+
+import lombok.Getter;
+
+/**
+ * Dostępne porządki sortowania katalogu kursów.
+ *
+ * <p>Każdy porządek jest jednoznaczny dzięki dołączeniu identyfikatora kursu jako
+ * drugiego klucza, co jest warunkiem stronicowania metodą keyset (seek).</p>
+ */
+@Getter
+public enum CourseSort {
+    PRICE_DESC("Sortuj według ceny: od największej"),
+    PRICE_ASC("Sortuj według ceny: od najmniejszej"),
+    NAME("Sortuj według nazwy"),
+    /** Trafność wyszukiwania pełnotekstowego; bez zapytania działa jak {@link #PRICE_DESC}. */
+    RELEVANCE("Sortuj według trafności");
+
+    /** Etykieta wyświetlana w polu wyboru sortowania. */
+    private final String label;
+
+    CourseSort(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Zwraca porządek sortowania odpowiadający etykiecie z interfejsu.
+     *
+     * @param label etykieta z {@code sortComboBox}.
+     * @return porządek sortowania; {@link #PRICE_DESC}, jeśli etykieta jest nieznana.
+     */
+    public static CourseSort fromLabel(String label) {
+        for (CourseSort sort : values()) {
+            if (sort.label.equals(label)) {
+                return sort;
+            }
+        }
+        return PRICE_DESC;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
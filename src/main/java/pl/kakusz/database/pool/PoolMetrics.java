@@ -0,0 +1,106 @@
+package pl.kakusz.database.pool;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import pl.kakusz.util.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metryki puli połączeń zbierane bezpośrednio z HikariCP.
+ *
+ * <p>Przechowuje bieżący stan puli (aktywne, bezczynne, oczekujące wątki) oraz histogramy
+ * czasu pozyskania połączenia, czasu jego używania i czasu tworzenia nowych połączeń.</p>
+ */
+public class PoolMetrics implements MetricsTrackerFactory {
+
+    private final LatencyHistogram acquireTime = new LatencyHistogram();
+    private final LatencyHistogram usageTime = new LatencyHistogram();
+    private final LatencyHistogram creationTime = new LatencyHistogram();
+    private final LongAdder timeouts = new LongAdder();
+
+    private volatile PoolStats poolStats;
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolStats = poolStats;
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                creationTime.record(connectionCreatedMillis, TimeUnit.MILLISECONDS);
+            }
+
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquireTime.record(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usageTime.record(elapsedBorrowedMillis, TimeUnit.MILLISECONDS);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    /** @return liczba połączeń aktualnie wypożyczonych z puli. */
+    public int getActiveConnections() {
+        PoolStats stats = poolStats;
+        return stats == null ? 0 : stats.getActiveConnections();
+    }
+
+    /** @return liczba bezczynnych połączeń w puli. */
+    public int getIdleConnections() {
+        PoolStats stats = poolStats;
+        return stats == null ? 0 : stats.getIdleConnections();
+    }
+
+    /** @return liczba wątków czekających na połączenie. */
+    public int getPendingThreads() {
+        PoolStats stats = poolStats;
+        return stats == null ? 0 : stats.getPendingThreads();
+    }
+
+    /** @return łączna liczba otwartych połączeń. */
+    public int getTotalConnections() {
+        PoolStats stats = poolStats;
+        return stats == null ? 0 : stats.getTotalConnections();
+    }
+
+    /** @return liczba nieudanych prób pozyskania połączenia w zadanym czasie. */
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    /** @return histogram czasu oczekiwania na połączenie. */
+    public LatencyHistogram.Snapshot getAcquireTime() {
+        return acquireTime.snapshot();
+    }
+
+    /** @return histogram czasu, przez jaki połączenia były wypożyczone. */
+    public LatencyHistogram.Snapshot getUsageTime() {
+        return usageTime.snapshot();
+    }
+
+    /** @return histogram czasu zestawiania nowych połączeń z bazą. */
+    public LatencyHistogram.Snapshot getCreationTime() {
+        return creationTime.snapshot();
+    }
+
+    @Override
+    public String toString() {
+        return "Pula połączeń: aktywne=" + getActiveConnections()
+                + ", bezczynne=" + getIdleConnections()
+                + ", oczekujące=" + getPendingThreads()
+                + ", timeouty=" + getTimeouts()
+                + "\n  pozyskanie: " + getAcquireTime()
+                + "\n  użycie: " + getUsageTime()
+                + "\n  tworzenie: " + getCreationTime();
+    }
+}
@@ -0,0 +1,170 @@
+package pl.kakusz.database.pool;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Getter;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Dostawca połączeń dla Hibernate oparty o pulę HikariCP.
+ *
+ * <p>Zastępuje wbudowaną, nieprodukcyjną pulę Hibernate. Obsługuje dwa tryby pracy:</p>
+ * <ul>
+ *   <li><b>client</b> (domyślny) - aplikacja desktopowa: zero bezczynnych połączeń,
+ *       mała pula i szybkie zwalnianie połączeń, dzięki czemu setki klientów
+ *       nie trzymają otwartych sesji we wspólnej bazie MySQL.</li>
+ *   <li><b>server</b> - stała liczba gotowych połączeń i keepalive.</li>
+ * </ul>
+ *
+ * <p>Ustawienia czytane są z {@code hibernate.cfg.xml} (klucze {@code hibernate.pool.*}),
+ * a statystyki puli dostępne są przez {@link #getMetrics()} oraz JMX ({@code com.zaxxer.hikari:*}).
+ * Połączenia mierzą czas instrukcji SQL i zapisują wolne zapytania do dziennika ({@link #getSlowQueryLog()}).</p>
+ */
+public class PooledConnectionProvider implements ConnectionProvider, Configurable, Stoppable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String MODE = "hibernate.pool.mode";
+    public static final String MAX_SIZE = "hibernate.pool.max_size";
+    public static final String MIN_IDLE = "hibernate.pool.min_idle";
+    public static final String IDLE_TIMEOUT = "hibernate.pool.idle_timeout";
+    public static final String CONNECTION_TIMEOUT = "hibernate.pool.connection_timeout";
+    public static final String VALIDATION_TIMEOUT = "hibernate.pool.validation_timeout";
+    public static final String LEAK_DETECTION_THRESHOLD = "hibernate.pool.leak_detection_threshold";
+    public static final String MAX_LIFETIME = "hibernate.pool.max_lifetime";
+    /** Próg w ms, od którego instrukcja SQL trafia do dziennika (zob. {@link SlowQueryLog}); ujemny wyłącza pomiar. */
+    public static final String SLOW_QUERY_THRESHOLD = "hibernate.pool.slow_query_threshold";
+
+    private static final String POOL_NAME = "speedspeak-pool";
+
+    @Getter
+    private final PoolMetrics metrics = new PoolMetrics();
+
+    private HikariDataSource dataSource;
+
+    /** Pomiar instrukcji SQL; {@code null}, gdy wyłączony. */
+    @Getter
+    private SlowQueryLog slowQueryLog;
+
+    @Override
+    @SuppressWarnings("rawtypes") // sygnatura Configurable z Hibernate 5
+    public void configure(Map configurationValues) {
+        boolean clientMode = !"server".equalsIgnoreCase(getString(configurationValues, MODE, "client"));
+
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(POOL_NAME);
+        config.setJdbcUrl(getString(configurationValues, AvailableSettings.URL, null));
+        config.setUsername(getString(configurationValues, AvailableSettings.USER, null));
+        config.setPassword(getString(configurationValues, AvailableSettings.PASS, null));
+        String driver = getString(configurationValues, AvailableSettings.DRIVER, null);
+        if (driver != null) {
+            config.setDriverClassName(driver);
+        }
+
+        // Tryb klienta: połączenia otwierane na żądanie i szybko zamykane po bezczynności
+        config.setMaximumPoolSize(getInt(configurationValues, MAX_SIZE, clientMode ? 4 : 20));
+        config.setMinimumIdle(getInt(configurationValues, MIN_IDLE, clientMode ? 0 : 5));
+        config.setIdleTimeout(getLong(configurationValues, IDLE_TIMEOUT, clientMode ? 30_000 : 600_000));
+        config.setConnectionTimeout(getLong(configurationValues, CONNECTION_TIMEOUT, clientMode ? 5_000 : 10_000));
+        config.setValidationTimeout(getLong(configurationValues, VALIDATION_TIMEOUT, 2_000));
+        // Import kursów legalnie trzyma jedno połączenie przez minutę i dłużej - krótszy próg dawałby fałszywe alarmy
+        config.setLeakDetectionThreshold(getLong(configurationValues, LEAK_DETECTION_THRESHOLD, 120_000));
+        config.setMaxLifetime(getLong(configurationValues, MAX_LIFETIME, clientMode ? 300_000 : 1_800_000));
+        if (!clientMode) {
+            config.setKeepaliveTime(120_000);
+        }
+
+        // Pula nie blokuje startu aplikacji, gdy baza jest chwilowo niedostępna
+        config.setInitializationFailTimeout(-1);
+        config.setRegisterMbeans(true);
+        config.setMetricsTrackerFactory(metrics);
+
+        // Pamięć podręczna przygotowanych zapytań po stronie sterownika MySQL (H2 odrzuca nieznane ustawienia)
+        if (config.getJdbcUrl() != null && config.getJdbcUrl().startsWith("jdbc:mysql:")) {
+            config.addDataSourceProperty("cachePrepStmts", "true");
+            config.addDataSourceProperty("prepStmtCacheSize", "250");
+            config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        }
+
+        this.dataSource = new HikariDataSource(config);
+
+        long slowQueryThreshold = getLong(configurationValues, SLOW_QUERY_THRESHOLD, 200);
+        if (slowQueryThreshold >= 0) {
+            this.slowQueryLog = new SlowQueryLog(slowQueryThreshold);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        return slowQueryLog == null ? connection : TimedJdbc.wrap(connection, slowQueryLog);
+    }
+
+    @Override
+    public void closeConnection(Connection connection) throws SQLException {
+        connection.close();
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    /** @return źródło danych puli. */
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes") // sygnatura Wrapped z Hibernate 5
+    public boolean isUnwrappableAs(Class unwrapType) {
+        return ConnectionProvider.class.equals(unwrapType)
+                || PooledConnectionProvider.class.isAssignableFrom(unwrapType)
+                || DataSource.class.isAssignableFrom(unwrapType);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (ConnectionProvider.class.equals(unwrapType) || PooledConnectionProvider.class.isAssignableFrom(unwrapType)) {
+            return (T) this;
+        }
+        if (DataSource.class.isAssignableFrom(unwrapType)) {
+            return (T) dataSource;
+        }
+        throw new IllegalArgumentException("Nieobsługiwany typ: " + unwrapType);
+    }
+
+    @Override
+    public void stop() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+        if (slowQueryLog != null) {
+            slowQueryLog.stop();
+        }
+    }
+
+    private static String getString(Map<?, ?> values, String key, String defaultValue) {
+        Object value = values.get(key);
+        return value == null ? defaultValue : value.toString().trim();
+    }
+
+    private static int getInt(Map<?, ?> values, String key, int defaultValue) {
+        String value = getString(values, key, null);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static long getLong(Map<?, ?> values, String key, long defaultValue) {
+        String value = getString(values, key, null);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+}
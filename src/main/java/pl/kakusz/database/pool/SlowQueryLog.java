@@ -0,0 +1,222 @@
+package pl.kakusz.database.pool;
+
+import pl.kakusz.util.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Czas wykonania i pobierania wyników każdej instrukcji SQL oraz dziennik instrukcji wolniejszych
+ * niż zadany próg. Zastępuje {@code hibernate.show_sql}, który synchronicznie wypisywał każde zapytanie.
+ *
+ * <p>Pomiar wolnej instrukcji trafia do ograniczonej kolejki i jest zapisywany do dziennika
+ * ({@link Logger}) na osobnym wątku - wątek wykonujący zapytanie nie czeka na zapis, a przy
+ * przepełnionej kolejce wpis jest pomijany i zliczany. Zapytania szybsze od progu kosztują
+ * jedynie zapis do dwóch histogramów.</p>
+ *
+ * <h3>Założenia:</h3>
+ * <ul>
+ *   <li>Zapytanie zapisywane jest w postaci {@link SqlFingerprint} - bez literałów, z identyfikatorem
+ *       wspólnym dla wszystkich wykonań.</li>
+ *   <li>Wartości parametrów są maskowane: widać liczby, wartości logiczne i {@code null}, a z tekstów
+ *       i pozostałych typów tylko typ i długość - hasze haseł ani e-maile nie trafiają do dziennika.</li>
+ *   <li>Czas pobierania to czas spędzony w {@code ResultSet.next()}; instrukcja jest mierzona
+ *       do zamknięcia jej wyników.</li>
+ * </ul>
+ */
+public class SlowQueryLog {
+
+    private static final Logger LOGGER = Logger.getLogger(SlowQueryLog.class.getName());
+
+    /** Liczba wolnych instrukcji czekających na zapis; nadmiarowe są pomijane. */
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private final long thresholdNanos;
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writer;
+
+    private final LatencyHistogram executionTime = new LatencyHistogram();
+    private final LatencyHistogram fetchTime = new LatencyHistogram();
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder slowStatements = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile boolean running = true;
+
+    /**
+     * @param thresholdMillis czas (wykonanie + pobranie), od którego instrukcja trafia do dziennika.
+     */
+    public SlowQueryLog(long thresholdMillis) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.writer = new Thread(this::writeLoop, "slow-query-log");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Zapisuje pomiar jednej instrukcji.
+     *
+     * @param sql            treść instrukcji.
+     * @param parameters     parametry w kolejności indeksów (może zawierać {@code null}) lub {@code null}.
+     * @param batchSize      liczba zestawów parametrów w paczce; 0 dla pojedynczego wykonania.
+     * @param executionNanos czas wykonania.
+     * @param fetchNanos     czas pobierania wyników.
+     * @param rows           liczba pobranych wierszy.
+     * @param failed         czy instrukcja zakończyła się błędem.
+     */
+    void record(String sql, List<Object> parameters, int batchSize,
+                long executionNanos, long fetchNanos, long rows, boolean failed) {
+        statements.increment();
+        executionTime.record(executionNanos);
+        fetchTime.record(fetchNanos);
+        if (executionNanos + fetchNanos < thresholdNanos) {
+            return;
+        }
+        slowStatements.increment();
+        // Jedyna kopia parametrów - tylko dla wolnych instrukcji, bo instrukcja może zostać
+        // wykonana ponownie z nowymi wartościami, zanim wpis zostanie zapisany
+        Entry entry = new Entry(sql, parameters == null ? null : new ArrayList<>(parameters), batchSize,
+                executionNanos, fetchNanos, rows, failed);
+        if (!running || !queue.offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    /** Zatrzymuje zapis, dopisując wcześniej instrukcje czekające w kolejce. */
+    public void stop() {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        while (running) {
+            try {
+                write(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Nie udało się zapisać wolnego zapytania", e);
+            }
+        }
+        Entry entry;
+        while ((entry = queue.poll()) != null) {
+            write(entry);
+        }
+    }
+
+    private void write(Entry entry) {
+        String fingerprint = SqlFingerprint.normalize(entry.sql);
+        StringBuilder line = new StringBuilder("Wolne zapytanie")
+                .append(entry.failed ? " (błąd)" : "")
+                .append(": ").append(millis(entry.executionNanos + entry.fetchNanos)).append(" ms")
+                .append(" (wykonanie ").append(millis(entry.executionNanos))
+                .append(" ms, pobieranie ").append(millis(entry.fetchNanos))
+                .append(" ms, wiersze ").append(entry.rows);
+        if (entry.batchSize > 0) {
+            line.append(", paczka ").append(entry.batchSize);
+        }
+        line.append(") #").append(SqlFingerprint.id(fingerprint)).append(' ').append(fingerprint);
+        if (entry.parameters != null && !entry.parameters.isEmpty()) {
+            line.append(" | parametry: ").append(redact(entry.parameters));
+        }
+        LOGGER.warning(line.toString());
+    }
+
+    /**
+     * @param parameters wartości parametrów.
+     * @return parametry w postaci {@code [1=42, 2=<String:12>]}.
+     */
+    static String redact(List<Object> parameters) {
+        StringBuilder out = new StringBuilder("[");
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            out.append(i + 1).append('=').append(redact(parameters.get(i)));
+        }
+        return out.append(']').toString();
+    }
+
+    private static String redact(Object value) {
+        if (value == null || value instanceof Number || value instanceof Boolean) {
+            return String.valueOf(value);
+        }
+        if (value instanceof CharSequence) {
+            return "<" + value.getClass().getSimpleName() + ":" + ((CharSequence) value).length() + ">";
+        }
+        if (value instanceof byte[]) {
+            return "<byte[]:" + ((byte[]) value).length + ">";
+        }
+        return "<" + value.getClass().getSimpleName() + ">";
+    }
+
+    private static String millis(long nanos) {
+        return String.valueOf(TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    /** @return liczba zmierzonych instrukcji. */
+    public long getStatements() {
+        return statements.sum();
+    }
+
+    /** @return liczba instrukcji powyżej progu. */
+    public long getSlowStatements() {
+        return slowStatements.sum();
+    }
+
+    /** @return liczba wolnych instrukcji pominiętych przy przepełnionej kolejce. */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /** @return histogram czasu wykonania instrukcji. */
+    public LatencyHistogram.Snapshot getExecutionTime() {
+        return executionTime.snapshot();
+    }
+
+    /** @return histogram czasu pobierania wyników. */
+    public LatencyHistogram.Snapshot getFetchTime() {
+        return fetchTime.snapshot();
+    }
+
+    @Override
+    public String toString() {
+        return "Instrukcje SQL: wykonane=" + getStatements()
+                + ", wolne=" + getSlowStatements()
+                + ", pominięte w dzienniku=" + getDropped()
+                + "\n  wykonanie: " + getExecutionTime()
+                + "\n  pobieranie: " + getFetchTime();
+    }
+
+    private static final class Entry {
+        private final String sql;
+        private final List<Object> parameters;
+        private final int batchSize;
+        private final long executionNanos;
+        private final long fetchNanos;
+        private final long rows;
+        private final boolean failed;
+
+        private Entry(String sql, List<Object> parameters, int batchSize,
+                      long executionNanos, long fetchNanos, long rows, boolean failed) {
+            this.sql = sql;
+            this.parameters = parameters;
+            this.batchSize = batchSize;
+            this.executionNanos = executionNanos;
+            this.fetchNanos = fetchNanos;
+            this.rows = rows;
+            this.failed = failed;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package pl.kakusz.database.pool;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Znormalizowana postać zapytania SQL, wspólna dla wszystkich jego wykonań.
+ *
+ * <p>Literały tekstowe i liczbowe zastępowane są przez {@code ?}, białe znaki zwijane do jednej spacji,
+ * a listy {@code IN (?, ?, ...)} dowolnej długości do {@code IN (?+)}. Dzięki temu w dzienniku nie
+ * pojawiają się dane wpisane wprost w treść zapytania, a wykonania tego samego zapytania
+ * z innymi wartościami mają ten sam identyfikator ({@link #id(String)}).</p>
+ */
+public final class SqlFingerprint {
+
+    private static final Pattern IN_LIST = Pattern.compile("\\bin \\(\\?(?:, ?\\?)+\\)");
+
+    private SqlFingerprint() {
+    }
+
+    /**
+     * @param sql treść zapytania.
+     * @return zapytanie bez literałów, małymi literami, z zwiniętymi białymi znakami i listami {@code IN}.
+     */
+    public static String normalize(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(sql.length());
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                // Literał tekstowy; '' wewnątrz to escapowany apostrof
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                out.append('?');
+                i++;
+            } else if (Character.isDigit(c) && !continuesIdentifier(out)) {
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                out.append('?');
+            } else if (Character.isWhitespace(c)) {
+                while (i < length && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (out.length() > 0) {
+                    out.append(' ');
+                }
+            } else {
+                out.append(Character.toLowerCase(c));
+                i++;
+            }
+        }
+        String normalized = out.toString().trim();
+        return IN_LIST.matcher(normalized).replaceAll("in (?+)");
+    }
+
+    /**
+     * @param normalized zapytanie po {@link #normalize(String)}.
+     * @return 16-znakowy identyfikator szesnastkowy (FNV-1a, 64 bity).
+     */
+    public static String id(String normalized) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < normalized.length(); i++) {
+            hash ^= normalized.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return String.format(Locale.ROOT, "%016x", hash);
+    }
+
+    /** Cyfra w nazwie, np. {@code course0_}, nie jest literałem. */
+    private static boolean continuesIdentifier(StringBuilder out) {
+        if (out.length() == 0) {
+            return false;
+        }
+        char previous = out.charAt(out.length() - 1);
+        return Character.isLetterOrDigit(previous) || previous == '_' || previous == '$';
+    }
+}
@@ -0,0 +1,296 @@
+package pl.kakusz.database.pool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pośredniki JDBC mierzące czas instrukcji dla {@link SlowQueryLog}.
+ *
+ * <p>Połączenie z puli owijane jest w pośrednika, który owija tworzone instrukcje; te z kolei
+ * zapamiętują parametry, mierzą wykonanie i owijają zwrócone {@link ResultSet}, żeby zmierzyć
+ * pobieranie wierszy. Pomiar trafia do dziennika po zamknięciu wyników, ponownym wykonaniu
+ * lub zamknięciu instrukcji - zależnie od tego, co nastąpi pierwsze.</p>
+ */
+final class TimedJdbc {
+
+    private TimedJdbc() {
+    }
+
+    /**
+     * @param connection połączenie z puli.
+     * @param log        dziennik pomiarów.
+     * @return połączenie mierzące czas instrukcji; zamknięcie oddaje oryginał do puli.
+     */
+    static Connection wrap(Connection connection, SlowQueryLog log) {
+        return proxy(Connection.class, new ConnectionHandler(connection, log));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(TimedJdbc.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    /** Wspólna obsługa metod {@link Object} i przekazywania wywołań do oryginału. */
+    private abstract static class Delegating implements InvocationHandler {
+        final Object target;
+
+        Delegating(Object target) {
+            this.target = target;
+        }
+
+        Object delegate(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        /** @return wynik dla metod {@link Object} lub {@code null}, jeśli to nie jest taka metoda. */
+        Object objectMethod(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "equals":
+                    return args != null && args.length == 1 ? proxy == args[0] : null;
+                case "hashCode":
+                    return args == null || args.length == 0 ? System.identityHashCode(proxy) : null;
+                case "toString":
+                    return args == null || args.length == 0 ? "Timed" + target : null;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    private static final class ConnectionHandler extends Delegating {
+        private final SlowQueryLog log;
+
+        ConnectionHandler(Connection target, SlowQueryLog log) {
+            super(target);
+            this.log = log;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = objectMethod(proxy, method, args);
+            if (result != null) {
+                return result;
+            }
+            result = delegate(method, args);
+            switch (method.getName()) {
+                case "prepareCall":
+                    return TimedJdbc.proxy(CallableStatement.class, new StatementHandler(result, (String) args[0], log));
+                case "prepareStatement":
+                    return TimedJdbc.proxy(PreparedStatement.class, new StatementHandler(result, (String) args[0], log));
+                case "createStatement":
+                    return TimedJdbc.proxy(Statement.class, new StatementHandler(result, null, log));
+                default:
+                    return result;
+            }
+        }
+    }
+
+    private static final class StatementHandler extends Delegating {
+        private final String sql;
+        private final SlowQueryLog log;
+        /**
+         * Wartości parametrów według indeksu (od 1, pod indeksem listy o jeden mniejszym). Lista jest
+         * współdzielona z wykonaniem, którego wyniki są jeszcze pobierane - zob. {@link #ownParameters()}.
+         */
+        private List<Object> parameters = new ArrayList<>();
+        private int batchSize;
+        private String batchSql;
+        /** Wykonanie, którego wyniki są jeszcze pobierane. */
+        private Execution pending;
+
+        StatementHandler(Object target, String sql, SlowQueryLog log) {
+            super(target);
+            this.sql = sql;
+            this.log = log;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = objectMethod(proxy, method, args);
+            if (result != null) {
+                return result;
+            }
+
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer && (Integer) args[0] >= 1) {
+                setParameter((Integer) args[0], name.equals("setNull") ? null : args[1]);
+                return delegate(method, args);
+            }
+            switch (name) {
+                case "clearParameters":
+                    if (sharesParameters()) {
+                        parameters = new ArrayList<>();
+                    } else {
+                        parameters.clear();
+                    }
+                    return delegate(method, args);
+                case "addBatch":
+                    batchSize++;
+                    if (batchSql == null && args != null && args.length == 1) {
+                        batchSql = (String) args[0];
+                    }
+                    return delegate(method, args);
+                case "clearBatch":
+                    batchSize = 0;
+                    batchSql = null;
+                    return delegate(method, args);
+                case "execute":
+                case "executeQuery":
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                case "executeBatch":
+                case "executeLargeBatch":
+                    return execute(method, args);
+                case "getResultSet":
+                    return wrapResults(delegate(method, args));
+                case "close":
+                    finishPending();
+                    return delegate(method, args);
+                default:
+                    return delegate(method, args);
+            }
+        }
+
+        private void setParameter(int index, Object value) {
+            ownParameters();
+            while (parameters.size() < index) {
+                parameters.add(null);
+            }
+            parameters.set(index - 1, value);
+        }
+
+        /** @return czy lista parametrów należy też do wykonania, którego wyniki są jeszcze pobierane. */
+        private boolean sharesParameters() {
+            return pending != null && !pending.finished && pending.parameters == parameters;
+        }
+
+        /**
+         * Kopiuje parametry przed ich zmianą, jeśli wykonanie z otwartymi wynikami nadal z nich korzysta -
+         * zwykle wyniki są zamykane wcześniej i kopia nie jest potrzebna.
+         */
+        private void ownParameters() {
+            if (sharesParameters()) {
+                parameters = new ArrayList<>(parameters);
+            }
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            finishPending();
+            boolean batch = method.getName().endsWith("Batch");
+            String statementSql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0]
+                    : batch && batchSql != null ? batchSql : sql;
+            Execution execution = new Execution(statementSql, sql != null ? parameters : null, batch ? batchSize : 0);
+            if (batch) {
+                batchSize = 0;
+                batchSql = null;
+            }
+
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = delegate(method, args);
+            } catch (Throwable e) {
+                execution.executionNanos = System.nanoTime() - start;
+                execution.failed = true;
+                execution.finish(log);
+                throw e;
+            }
+            execution.executionNanos = System.nanoTime() - start;
+
+            if (result instanceof ResultSet || Boolean.TRUE.equals(result)) {
+                // Wyniki pobierane później - pomiar kończy ich zamknięcie
+                pending = execution;
+                return result instanceof ResultSet ? wrapResults(result) : result;
+            }
+            execution.finish(log);
+            return result;
+        }
+
+        private Object wrapResults(Object results) {
+            if (!(results instanceof ResultSet) || pending == null) {
+                return results;
+            }
+            return TimedJdbc.proxy(ResultSet.class, new ResultSetHandler(results, pending, log));
+        }
+
+        private void finishPending() {
+            if (pending != null) {
+                pending.finish(log);
+                pending = null;
+            }
+        }
+    }
+
+    private static final class ResultSetHandler extends Delegating {
+        private final Execution execution;
+        private final SlowQueryLog log;
+
+        ResultSetHandler(Object target, Execution execution, SlowQueryLog log) {
+            super(target);
+            this.execution = execution;
+            this.log = log;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = objectMethod(proxy, method, args);
+            if (result != null) {
+                return result;
+            }
+            switch (method.getName()) {
+                case "next":
+                    long start = System.nanoTime();
+                    result = delegate(method, args);
+                    execution.fetchNanos += System.nanoTime() - start;
+                    if (Boolean.TRUE.equals(result)) {
+                        execution.rows++;
+                    }
+                    return result;
+                case "close":
+                    execution.finish(log);
+                    return delegate(method, args);
+                default:
+                    return delegate(method, args);
+            }
+        }
+    }
+
+    /** Pomiar jednego wykonania instrukcji; zapisywany do dziennika tylko raz. */
+    private static final class Execution {
+        private final String sql;
+        private final List<Object> parameters;
+        private final int batchSize;
+        private long executionNanos;
+        private long fetchNanos;
+        private long rows;
+        private boolean failed;
+        private boolean finished;
+
+        Execution(String sql, List<Object> parameters, int batchSize) {
+            this.sql = sql;
+            this.parameters = parameters;
+            this.batchSize = batchSize;
+        }
+
+        void finish(SlowQueryLog log) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            log.record(sql, parameters, batchSize, executionNanos, fetchNanos, rows, failed);
+        }
+    }
+}
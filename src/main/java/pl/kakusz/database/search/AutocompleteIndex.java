@@ -0,0 +1,356 @@
+package pl.kakusz.database.search;
+
+import pl.kakusz.database.objects.Course;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Indeks podpowiedzi dla pola wyszukiwania kursów, trzymany w pamięci.
+ *
+ * <p>Nazwy kursów są sprowadzane przez {@link TextFolding} i dzielone na słowa. Każde słowo
+ * trafia do drzewa prefiksowego (trie), w którym każdy węzeł zna identyfikatory kursów
+ * o danym prefiksie - podpowiedź dla prefiksu to przejście ścieżką długości zapytania.
+ * Literówki obsługuje indeks trigramów: kandydaci o wspólnych trigramach są weryfikowani
+ * ograniczoną odległością Damerau-Levenshteina (z przestawieniem sąsiednich liter).</p>
+ *
+ * <h3>Założenia:</h3>
+ * <ul>
+ *   <li>Każde słowo zapytania musi pasować jako prefiks do któregoś słowa nazwy, np. "ang bizn"
+ *       podpowiada "Angielski biznesowy".</li>
+ *   <li>Dopuszczalna liczba błędów zależy od długości słowa: 0 do 3 liter, 1 do 6 liter, potem 2.</li>
+ *   <li>Zmiany są przyrostowe ({@link #add(Course)}, {@link #remove(Long)}); odczyty i zapisy
+ *       z różnych wątków chroni blokada odczytu/zapisu.</li>
+ * </ul>
+ */
+public class AutocompleteIndex {
+
+    /** Domyślna liczba podpowiedzi. */
+    public static final int DEFAULT_LIMIT = 8;
+
+    /** Znacznik początku słowa w trigramach - pierwsze litery ważą więcej przy dopasowaniu prefiksu. */
+    private static final char WORD_START = '^';
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node root = new Node();
+    private final Map<String, Set<Long>> trigrams = new HashMap<>();
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    /** Węzeł drzewa prefiksowego. */
+    private static class Node {
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private final Set<Long> ids = new HashSet<>(4);
+    }
+
+    /** Zaindeksowany kurs wraz z jego słowami. */
+    private static class Entry {
+        private final Course course;
+        private final List<String> tokens;
+
+        private Entry(Course course, List<String> tokens) {
+            this.course = course;
+            this.tokens = tokens;
+        }
+    }
+
+    /**
+     * Zastępuje zawartość indeksu podanymi kursami.
+     *
+     * @param courses wszystkie kursy katalogu.
+     */
+    public void rebuild(Collection<Course> courses) {
+        lock.writeLock().lock();
+        try {
+            root.children.clear();
+            root.ids.clear();
+            trigrams.clear();
+            entries.clear();
+            for (Course course : courses) {
+                addLocked(course);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Dodaje kurs lub aktualizuje jego nazwę w indeksie.
+     *
+     * @param course dodany lub zmieniony kurs.
+     */
+    public void add(Course course) {
+        if (course == null || course.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(course.getId());
+            addLocked(course);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Usuwa kurs z indeksu.
+     *
+     * @param courseId identyfikator usuniętego kursu.
+     */
+    public void remove(Long courseId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(courseId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** @return liczba zaindeksowanych kursów. */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Zwraca najlepsze podpowiedzi dla tekstu wpisanego przez użytkownika.
+     *
+     * <p>Najpierw kursy dopasowane bez błędów, potem według liczby poprawek;
+     * przy remisie krótsze nazwy, a następnie alfabetycznie.</p>
+     *
+     * @param input tekst z pola wyszukiwania.
+     * @param limit maksymalna liczba podpowiedzi.
+     * @return kursy w kolejności trafności; pusta lista, jeśli nic nie pasuje.
+     */
+    public List<Course> suggest(String input, int limit) {
+        List<String> words = TextFolding.tokens(input);
+        if (words.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+            for (String word : words) {
+                Map<Long, Integer> matches = match(word);
+                if (scores == null) {
+                    scores = matches;
+                } else {
+                    scores.keySet().retainAll(matches.keySet());
+                    for (Map.Entry<Long, Integer> score : scores.entrySet()) {
+                        score.setValue(score.getValue() + matches.get(score.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+
+            Map<Long, Integer> ranking = scores;
+            List<Long> ids = new ArrayList<>(ranking.keySet());
+            ids.sort(Comparator.<Long>comparingInt(ranking::get)
+                    .thenComparingInt(id -> entries.get(id).course.getName().length())
+                    .thenComparing(id -> entries.get(id).course.getName()));
+
+            List<Course> result = new ArrayList<>(Math.min(limit, ids.size()));
+            for (Long id : ids) {
+                if (result.size() == limit) {
+                    break;
+                }
+                result.add(entries.get(id).course);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param word słowo zapytania (po {@link TextFolding}).
+     * @return identyfikatory kursów pasujących do słowa wraz z liczbą potrzebnych poprawek.
+     */
+    private Map<Long, Integer> match(String word) {
+        Map<Long, Integer> result = new HashMap<>();
+        Node node = find(word);
+        if (node != null) {
+            for (Long id : node.ids) {
+                result.put(id, 0);
+            }
+        }
+
+        int maxEdits = maxEdits(word.length());
+        if (maxEdits == 0) {
+            return result;
+        }
+
+        // Kandydaci z literówką: każda poprawka niszczy najwyżej trzy trigramy
+        List<String> grams = trigramsOf(word);
+        int required = Math.max(1, grams.size() - 3 * maxEdits);
+        Map<Long, Integer> shared = new HashMap<>();
+        for (String gram : grams) {
+            Set<Long> ids = trigrams.get(gram);
+            if (ids != null) {
+                for (Long id : ids) {
+                    if (!result.containsKey(id)) {
+                        shared.merge(id, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+
+        for (Map.Entry<Long, Integer> candidate : shared.entrySet()) {
+            if (candidate.getValue() < required) {
+                continue;
+            }
+            int best = maxEdits + 1;
+            for (String token : entries.get(candidate.getKey()).tokens) {
+                best = Math.min(best, prefixDistance(word, token, maxEdits));
+            }
+            if (best <= maxEdits) {
+                result.put(candidate.getKey(), best);
+            }
+        }
+        return result;
+    }
+
+    private Node find(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        return node;
+    }
+
+    private void addLocked(Course course) {
+        List<String> tokens = TextFolding.tokens(course.getName());
+        entries.put(course.getId(), new Entry(course, tokens));
+        for (String token : tokens) {
+            Node node = root;
+            for (int i = 0; i < token.length(); i++) {
+                node = node.children.computeIfAbsent(token.charAt(i), c -> new Node());
+                node.ids.add(course.getId());
+            }
+            for (String gram : trigramsOf(token)) {
+                trigrams.computeIfAbsent(gram, g -> new HashSet<>(4)).add(course.getId());
+            }
+        }
+    }
+
+    private void removeLocked(Long courseId) {
+        Entry entry = entries.remove(courseId);
+        if (entry == null) {
+            return;
+        }
+        for (String token : entry.tokens) {
+            removePath(root, token, 0, courseId);
+            for (String gram : trigramsOf(token)) {
+                Set<Long> ids = trigrams.get(gram);
+                if (ids != null && ids.remove(courseId) && ids.isEmpty()) {
+                    trigrams.remove(gram);
+                }
+            }
+        }
+    }
+
+    /** Usuwa identyfikator ze ścieżki słowa i przycina puste gałęzie. */
+    private static void removePath(Node node, String token, int depth, Long courseId) {
+        if (depth == token.length()) {
+            return;
+        }
+        Node child = node.children.get(token.charAt(depth));
+        if (child == null) {
+            return;
+        }
+        child.ids.remove(courseId);
+        removePath(child, token, depth + 1, courseId);
+        if (child.ids.isEmpty()) {
+            node.children.remove(token.charAt(depth));
+        }
+    }
+
+    private static int maxEdits(int length) {
+        if (length <= 3) {
+            return 0;
+        }
+        return length <= 6 ? 1 : 2;
+    }
+
+    private static List<String> trigramsOf(String token) {
+        String padded = WORD_START + token;
+        List<String> grams = new ArrayList<>(Math.max(1, padded.length() - 2));
+        if (padded.length() < 3) {
+            grams.add(padded);
+            return grams;
+        }
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    /**
+     * Najmniejsza odległość między słowem zapytania a którymkolwiek prefiksem słowa z nazwy,
+     * którego długość różni się o najwyżej {@code maxEdits}.
+     *
+     * @return odległość lub {@code maxEdits + 1}, jeśli przekracza limit.
+     */
+    static int prefixDistance(String word, String token, int maxEdits) {
+        int best = maxEdits + 1;
+        int from = Math.max(1, word.length() - maxEdits);
+        int to = Math.min(token.length(), word.length() + maxEdits);
+        for (int length = from; length <= to && best > 0; length++) {
+            best = Math.min(best, distance(word, token.substring(0, length), maxEdits));
+        }
+        return best;
+    }
+
+    /**
+     * Odległość Damerau-Levenshteina (wariant OSA) z przerwaniem po przekroczeniu limitu.
+     *
+     * @return odległość lub {@code maxEdits + 1}, jeśli przekracza limit.
+     */
+    static int distance(String a, String b, int maxEdits) {
+        if (Math.abs(a.length() - b.length()) > maxEdits) {
+            return maxEdits + 1;
+        }
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], maxEdits + 1);
+    }
+}
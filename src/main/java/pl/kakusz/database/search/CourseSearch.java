@@ -0,0 +1,172 @@
+package pl.kakusz.database.search;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.NativeQuery;
+import pl.kakusz.database.managers.ReadOnlySessions;
+import pl.kakusz.database.objects.Course;
+import pl.kakusz.database.paging.CoursePage;
+import pl.kakusz.database.paging.CourseSort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Wyszukiwanie pełnotekstowe kursów po nazwie i opisie, wykonywane w bazie danych.
+ *
+ * <p>Na MySQL używany jest indeks {@code FULLTEXT (name, description)} i zapytanie
+ * {@code MATCH ... AGAINST ... IN BOOLEAN MODE}; wyniki są szeregowane według trafności
+ * zwracanej przez MySQL. Indeks tworzony jest przy starcie, jeśli go brakuje.</p>
+ *
+ * <p>Na pozostałych bazach (H2 przy uruchomieniu lokalnym) wbudowany indeks pełnotekstowy
+ * nie obsługuje fraz ani prefiksów, dlatego człony dopasowywane są przez {@code LIKE},
+ * a trafność liczona jest z wagami: dopasowanie w nazwie 2, w opisie 1.</p>
+ */
+public class CourseSearch {
+
+    private static final Logger LOGGER = Logger.getLogger(CourseSearch.class.getName());
+
+    /** Nazwa indeksu pełnotekstowego na tabeli {@code courses}. */
+    public static final String FULLTEXT_INDEX = "ft_courses_name_description";
+
+    /** Domyślna wartość {@code innodb_ft_min_token_size}; krótsze słowa nie trafiają do indeksu. */
+    private static final int MIN_TOKEN_SIZE = 3;
+
+    private static final String MATCH = "MATCH(c.name, c.description) AGAINST (:q IN BOOLEAN MODE)";
+
+    private final SessionFactory sessionFactory;
+    private final boolean fullText;
+
+    public CourseSearch(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+        Dialect dialect = sessionFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        this.fullText = dialect instanceof MySQLDialect;
+    }
+
+    /**
+     * Tworzy indeks {@value #FULLTEXT_INDEX}, jeśli jeszcze nie istnieje.
+     * Adnotacje JPA nie pozwalają zadeklarować indeksu FULLTEXT, więc robimy to ręcznie.
+     */
+    public void ensureIndex() {
+        if (!fullText) {
+            return;
+        }
+
+        Transaction transaction = null;
+        try (Session session = sessionFactory.openSession()) {
+            transaction = session.beginTransaction();
+            Number existing = (Number) session.createNativeQuery("SELECT COUNT(*) FROM information_schema.STATISTICS"
+                            + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'courses' AND INDEX_NAME = :index")
+                    .setParameter("index", FULLTEXT_INDEX)
+                    .uniqueResult();
+            if (existing.intValue() == 0) {
+                session.createNativeQuery("ALTER TABLE courses ADD FULLTEXT INDEX " + FULLTEXT_INDEX + " (name, description)")
+                        .executeUpdate();
+            }
+            transaction.commit();
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) transaction.rollback();
+            LOGGER.log(Level.WARNING, "Nie udało się założyć indeksu pełnotekstowego kursów", e);
+        }
+    }
+
+    /**
+     * Zwraca stronę wyników wyszukiwania.
+     *
+     * @param query     zapytanie (niepuste).
+     * @param sort      porządek; {@link CourseSort#RELEVANCE} szereguje według trafności.
+     * @param pageIndex numer strony (od zera).
+     * @param pageSize  liczba kursów na stronie.
+     * @return strona wyników.
+     */
+    public CoursePage search(SearchQuery query, CourseSort sort, int pageIndex, int pageSize) {
+        try (Session session = ReadOnlySessions.open(sessionFactory)) {
+            List<Object> parameters = new ArrayList<>();
+            String where = where(query, parameters);
+            String sql = "SELECT c.* FROM courses c WHERE " + where + " ORDER BY " + orderBy(query, sort, parameters);
+
+            @SuppressWarnings("unchecked")
+            NativeQuery<Course> nativeQuery = session.createNativeQuery(sql, Course.class);
+            bind(nativeQuery, query, parameters);
+            nativeQuery.setFirstResult(pageIndex * pageSize);
+            nativeQuery.setMaxResults(pageSize + 1);
+
+            List<Course> rows = nativeQuery.getResultList();
+            boolean hasNext = rows.size() > pageSize;
+            return new CoursePage(hasNext ? new ArrayList<>(rows.subList(0, pageSize)) : rows, hasNext);
+        }
+    }
+
+    /**
+     * Zwraca liczbę kursów pasujących do zapytania.
+     *
+     * @param query zapytanie (niepuste).
+     * @return liczba wyników.
+     */
+    public long count(SearchQuery query) {
+        try (Session session = ReadOnlySessions.open(sessionFactory)) {
+            List<Object> parameters = new ArrayList<>();
+            NativeQuery<?> nativeQuery = session.createNativeQuery("SELECT COUNT(*) FROM courses c WHERE " + where(query, parameters));
+            bind(nativeQuery, query, parameters);
+            return ((Number) nativeQuery.uniqueResult()).longValue();
+        }
+    }
+
+    private String where(SearchQuery query, List<Object> parameters) {
+        List<String> predicates = new ArrayList<>();
+        List<SearchQuery.Term> likeTerms;
+        if (fullText) {
+            if (!query.toBooleanMode(MIN_TOKEN_SIZE).isEmpty()) {
+                predicates.add(MATCH);
+            }
+            likeTerms = query.shortTerms(MIN_TOKEN_SIZE);
+        } else {
+            likeTerms = query.getTerms();
+        }
+
+        for (SearchQuery.Term term : likeTerms) {
+            String name = "t" + parameters.size();
+            parameters.add(SearchQuery.likePattern(term.getText()));
+            predicates.add("(LOWER(c.name) LIKE :" + name + " ESCAPE '!' OR LOWER(c.description) LIKE :" + name + " ESCAPE '!')");
+        }
+        return String.join(" AND ", predicates);
+    }
+
+    private String orderBy(SearchQuery query, CourseSort sort, List<Object> parameters) {
+        switch (sort) {
+            case PRICE_ASC:
+                return "c.price ASC, c.id ASC";
+            case PRICE_DESC:
+                return "c.price DESC, c.id DESC";
+            case NAME:
+                return "c.name ASC, c.id ASC";
+            case RELEVANCE:
+            default:
+                if (fullText) {
+                    return query.toBooleanMode(MIN_TOKEN_SIZE).isEmpty() ? "c.id ASC" : MATCH + " DESC, c.id ASC";
+                }
+                // Parametry t0..tN zostały już dodane przez where(); nazwa trafia przed opis
+                List<String> weights = new ArrayList<>();
+                for (int i = 0; i < parameters.size(); i++) {
+                    weights.add("CASE WHEN LOWER(c.name) LIKE :t" + i + " ESCAPE '!' THEN 2 ELSE 0 END"
+                            + " + CASE WHEN LOWER(c.description) LIKE :t" + i + " ESCAPE '!' THEN 1 ELSE 0 END");
+                }
+                return "(" + String.join(" + ", weights) + ") DESC, c.id ASC";
+        }
+    }
+
+    private void bind(NativeQuery<?> nativeQuery, SearchQuery query, List<Object> parameters) {
+        if (fullText && !query.toBooleanMode(MIN_TOKEN_SIZE).isEmpty()) {
+            nativeQuery.setParameter("q", query.toBooleanMode(MIN_TOKEN_SIZE));
+        }
+        for (int i = 0; i < parameters.size(); i++) {
+            nativeQuery.setParameter("t" + i, parameters.get(i));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package pl.kakusz.database.search;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Zapytanie wyszukiwania kursów rozbite na frazy i słowa.
+ *
+ * <p>Tekst w cudzysłowie traktowany jest jako fraza (słowa w tej kolejności),
+ * pozostałe słowa jako prefiksy - {@code "ang"} znajdzie „Angielski”. Wszystkie człony
+ * muszą pasować. Znaki operatorów MySQL ({@code + - < > ( ) ~ * @}) są usuwane,
+ * więc użytkownik nie może zmienić znaczenia zapytania.</p>
+ */
+@Getter
+public class SearchQuery {
+
+    /** Pojedynczy człon zapytania: fraza lub prefiks słowa. */
+    @Getter
+    public static class Term {
+        private final String text;
+        private final boolean phrase;
+
+        Term(String text, boolean phrase) {
+            this.text = text;
+            this.phrase = phrase;
+        }
+    }
+
+    private final List<Term> terms;
+
+    private SearchQuery(List<Term> terms) {
+        this.terms = Collections.unmodifiableList(terms);
+    }
+
+    /**
+     * Rozbija tekst wpisany przez użytkownika na człony.
+     *
+     * @param input tekst z pola wyszukiwania (może być {@code null}).
+     * @return zapytanie; puste, jeśli nie zawiera żadnego słowa.
+     */
+    public static SearchQuery parse(String input) {
+        List<Term> terms = new ArrayList<>();
+        if (input == null) {
+            return new SearchQuery(terms);
+        }
+
+        String text = input.toLowerCase(Locale.ROOT);
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                int end = text.indexOf('"', i + 1);
+                if (end < 0) {
+                    end = text.length();
+                }
+                addTerm(terms, text.substring(i + 1, end), true);
+                i = end + 1;
+            } else if (Character.isWhitespace(c)) {
+                i++;
+            } else {
+                int end = i;
+                while (end < text.length() && !Character.isWhitespace(text.charAt(end)) && text.charAt(end) != '"') {
+                    end++;
+                }
+                addTerm(terms, text.substring(i, end), false);
+                i = end;
+            }
+        }
+        return new SearchQuery(terms);
+    }
+
+    private static void addTerm(List<Term> terms, String raw, boolean phrase) {
+        String cleaned = raw.replaceAll("[+\\-<>()~*@\"]", " ").trim().replaceAll("\\s+", " ");
+        if (cleaned.isEmpty()) {
+            return;
+        }
+        terms.add(new Term(cleaned, phrase));
+    }
+
+    /** @return {@code true}, jeśli zapytanie nie zawiera żadnego członu. */
+    public boolean isEmpty() {
+        return terms.isEmpty();
+    }
+
+    /**
+     * Zapytanie w składni MySQL {@code IN BOOLEAN MODE}: każdy człon jest wymagany ({@code +}),
+     * frazy w cudzysłowie, słowa z operatorem prefiksu ({@code *}).
+     *
+     * @param minTokenSize minimalna długość słowa w indeksie; krótsze słowa są pomijane.
+     * @return tekst dla {@code MATCH ... AGAINST}.
+     */
+    public String toBooleanMode(int minTokenSize) {
+        StringBuilder query = new StringBuilder();
+        for (Term term : terms) {
+            if (!term.phrase && term.text.length() < minTokenSize) {
+                continue; // zob. shortTerms(int)
+            }
+            if (query.length() > 0) {
+                query.append(' ');
+            }
+            if (term.phrase) {
+                query.append("+\"").append(term.text).append('"');
+            } else {
+                query.append('+').append(term.text).append('*');
+            }
+        }
+        return query.toString();
+    }
+
+    /**
+     * Człony, które w zapytaniu {@code MATCH ... AGAINST} są pomijane, bo są krótsze niż
+     * minimalna długość słowa w indeksie pełnotekstowym ({@code innodb_ft_min_token_size}).
+     *
+     * @param minTokenSize minimalna długość słowa w indeksie.
+     * @return krótkie słowa, które trzeba dopasować warunkiem {@code LIKE}.
+     */
+    public List<Term> shortTerms(int minTokenSize) {
+        List<Term> result = new ArrayList<>();
+        for (Term term : terms) {
+            if (!term.phrase && term.text.length() < minTokenSize) {
+                result.add(term);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Wzorzec {@code LIKE ... ESCAPE '!'} dopasowujący tekst w dowolnym miejscu.
+     *
+     * @param text szukany fragment.
+     * @return wzorzec z poprzedzonymi znakami specjalnymi lub {@code null} dla pustego tekstu.
+     */
+    public static String likePattern(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return null;
+        }
+        String escaped = text.trim().toLowerCase(Locale.ROOT)
+                .replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_");
+        return "%" + escaped + "%";
+    }
+
+    /** @return znormalizowana postać zapytania, używana jako klucz pamięci podręcznej. */
+    public String toKey() {
+        StringBuilder key = new StringBuilder();
+        for (Term term : terms) {
+            key.append(term.phrase ? '"' : '~').append(term.text).append('\u0000');
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,49 @@
+package pl.kakusz.database.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Sprowadzanie tekstu do postaci porównywalnej niezależnie od wielkości liter i znaków diakrytycznych.
+ *
+ * <p>„Język Polski” i „jezyk polski” dają ten sam wynik. Litera „ł” nie rozkłada się w Unicode
+ * na „l” i znak łączący, dlatego jest zamieniana osobno.</p>
+ */
+public final class TextFolding {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private TextFolding() {
+    }
+
+    /**
+     * @param text dowolny tekst (może być {@code null}).
+     * @return tekst małymi literami, bez znaków diakrytycznych, ze słowami rozdzielonymi pojedynczą spacją.
+     */
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT).replace('ł', 'l');
+        String stripped = COMBINING_MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+        return NON_ALPHANUMERIC.matcher(stripped).replaceAll(" ").trim();
+    }
+
+    /**
+     * @param text dowolny tekst (może być {@code null}).
+     * @return słowa tekstu po {@link #fold(String)}.
+     */
+    public static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : fold(text).split(" ")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
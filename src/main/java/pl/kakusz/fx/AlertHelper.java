@@ -1,24 +1,19 @@
 package pl.kakusz.fx;
 
-import javafx.application.Platform;
 import javafx.scene.control.Alert;
 
 public class AlertHelper {
     /**
-     * Wyświetla alert z komunikatem o podanym typie.
+     * Wyświetla komunikat o podanym typie jako niemodalne powiadomienie.
+     *
+     * <p>Można wywołać z dowolnego wątku, również z bloków {@code catch} w warstwie dostępu do danych -
+     * powtórzenia są łączone, a nadmiar pomijany (zob. {@link NotificationCenter}).</p>
      *
      * @param alertType typ alertu (np. informacja, błąd).
      * @param title     tytuł alertu.
      * @param message   treść komunikatu do wyświetlenia.
      */
-
     public static void showAlert(Alert.AlertType alertType, String title, String message) {
-        Platform.runLater(() -> {
-            Alert alert = new Alert(alertType);
-            alert.setTitle(title);
-            alert.setHeaderText(null);
-            alert.setContentText(message);
-            alert.showAndWait();
-        });
+        NotificationCenter.getInstance().post(alertType, title, message);
     }
 }
@@ -0,0 +1,84 @@
+package pl.kakusz.fx;
+
+import javafx.css.PseudoClass;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.ContentDisplay;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.layout.VBox;
+import pl.kakusz.database.objects.Course;
+
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+/**
+ * Komórka listy kursów w sekcji "Kup kurs" - karta z nazwą, opisem i przyciskiem zakupu.
+ *
+ * <p>{@link javafx.scene.control.ListView} tworzy tylko tyle komórek, ile mieści się na ekranie,
+ * i przy przewijaniu podaje im kolejne kursy. Węzły karty powstają raz w konstruktorze,
+ * a {@link #updateItem(Course, boolean)} zmienia jedynie teksty i pseudoklasę; wygląd pochodzi
+ * z klas stylu w {@code dashboard.css}, więc nic nie jest parsowane przy przewijaniu.</p>
+ */
+public class CourseCell extends ListCell<Course> {
+
+    /** Pseudoklasa karty kursu, który użytkownik już posiada (także kart popularnych kursów). */
+    public static final PseudoClass OWNED = PseudoClass.getPseudoClass("owned");
+
+    /** Pseudoklasa karty, której kurs jeszcze się wczytuje. */
+    private static final PseudoClass LOADING = PseudoClass.getPseudoClass("loading");
+
+    private final VBox card = new VBox(10);
+    private final Label name = new Label();
+    private final Label description = new Label();
+    private final Button buyButton = new Button();
+
+    private final LongPredicate owned;
+
+    /**
+     * @param owned czy użytkownik posiada kurs o danym identyfikatorze.
+     * @param onBuy akcja przycisku zakupu.
+     */
+    public CourseCell(LongPredicate owned, Consumer<Course> onBuy) {
+        this.owned = owned;
+
+        getStyleClass().add("course-cell");
+        card.getStyleClass().add("course-card");
+        name.getStyleClass().add("course-name");
+        description.getStyleClass().add("course-description");
+        description.setWrapText(true);
+        buyButton.getStyleClass().add("course-buy-button");
+        buyButton.setOnAction(event -> {
+            Course course = getItem();
+            if (course != null) {
+                onBuy.accept(course);
+            }
+        });
+
+        card.setAlignment(Pos.CENTER);
+        card.getChildren().addAll(name, description, buyButton);
+        setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
+    }
+
+    @Override
+    protected void updateItem(Course course, boolean empty) {
+        super.updateItem(course, empty);
+
+        if (empty) {
+            setGraphic(null);
+            return;
+        }
+
+        boolean loading = course == null;
+        boolean hasCourse = !loading && owned.test(course.getId());
+        card.pseudoClassStateChanged(LOADING, loading);
+        card.pseudoClassStateChanged(OWNED, hasCourse);
+
+        name.setText(loading ? "Wczytywanie..." : course.getName());
+        description.setText(loading ? "" : course.getDescription());
+        buyButton.setText(hasCourse ? "Posiadasz kurs" : loading ? "" : "Kup za " + course.getPrice() + " zł");
+        buyButton.setDisable(loading || hasCourse);
+        buyButton.setVisible(!loading);
+        setGraphic(card);
+    }
+}
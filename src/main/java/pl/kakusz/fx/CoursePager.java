@@ -0,0 +1,157 @@
+package pl.kakusz.fx;
+
+import lombok.Getter;
+import pl.kakusz.database.managers.CourseManager;
+import pl.kakusz.database.paging.CourseCursor;
+import pl.kakusz.database.paging.CoursePage;
+import pl.kakusz.database.paging.CourseSort;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Źródło stron kursów dla listy {@link LazyCourseList}.
+ *
+ * <p>Strony są pobierane na żądanie przez {@link CourseManager#findPageAsync}, a strona
+ * następna i poprzednia ładują się w tle, zanim użytkownik w nie kliknie. Pamiętanych jest
+ * najwyżej {@value #MAX_CACHED_PAGES} stron, więc zużycie pamięci nie rośnie wraz z katalogiem.</p>
+ *
+ * <h3>Założenia:</h3>
+ * <ul>
+ *   <li>Bez tekstu wyszukiwania strony pochodzą z katalogu; z tekstem - z
+ *       {@link CourseManager#searchAsync}, stronicowanego przez {@code OFFSET}.</li>
+ *   <li>Dla ostatnio używanych stron (najwyżej {@value #MAX_CURSORS}) zapamiętywany jest kursor
+ *       ich ostatniego kursu; kolejna strona pobierana jest metodą keyset od tego kursora.</li>
+ *   <li>Przy skoku na stronę bez znanego kursora - również dawno odwiedzoną - używany jest {@code OFFSET}.</li>
+ *   <li>Jeden pager obsługuje jedną kombinację zapytania i sortowania - ich zmiana wymaga nowego pagera.</li>
+ * </ul>
+ */
+public class CoursePager {
+
+    /** Maksymalna liczba stron trzymanych w pamięci (bieżąca i sąsiednie). */
+    private static final int MAX_CACHED_PAGES = 5;
+
+    /** Maksymalna liczba zapamiętanych kursorów - okno stron w pamięci z zapasem na przewijanie. */
+    private static final int MAX_CURSORS = 2 * MAX_CACHED_PAGES;
+
+    private final CourseManager courseManager;
+    @Getter
+    private final CourseSort sort;
+    /** Tekst wyszukiwania; pusty oznacza cały katalog. */
+    @Getter
+    private final String query;
+    @Getter
+    private final int pageSize;
+
+    /** Strony (również w trakcie ładowania) w kolejności ostatniego użycia. */
+    private final Map<Integer, CompletableFuture<CoursePage>> pages =
+            new LinkedHashMap<Integer, CompletableFuture<CoursePage>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, CompletableFuture<CoursePage>> eldest) {
+                    return size() > MAX_CACHED_PAGES;
+                }
+            };
+
+    /** Kursor ostatniego kursu ostatnio używanych stron, w kolejności ostatniego użycia. */
+    private final Map<Integer, CourseCursor> cursors =
+            new LinkedHashMap<Integer, CourseCursor>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, CourseCursor> eldest) {
+                    return size() > MAX_CURSORS;
+                }
+            };
+
+    public CoursePager(CourseManager courseManager, CourseSort sort, String query, int pageSize) {
+        this.courseManager = courseManager;
+        this.sort = sort;
+        this.query = query == null ? "" : query.trim();
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Zwraca stronę o podanym numerze i rozpoczyna ładowanie stron sąsiednich.
+     *
+     * @param pageIndex numer strony (od zera).
+     * @return future ze stroną; kończy się natychmiast, jeśli strona jest już w pamięci.
+     */
+    public synchronized CompletableFuture<CoursePage> page(int pageIndex) {
+        CompletableFuture<CoursePage> page = load(pageIndex);
+
+        // Następną stronę pobieramy po bieżącej, żeby znać jej kursor i uniknąć OFFSET
+        page.thenAccept(loaded -> {
+            if (loaded.isHasNext()) {
+                prefetch(pageIndex + 1);
+            }
+        });
+        if (pageIndex > 0) {
+            prefetch(pageIndex - 1);
+        }
+        return page;
+    }
+
+    /**
+     * Zwraca stronę tylko wtedy, gdy jest już wczytana - bez zapytań i bez ładowania sąsiadów.
+     * Wywoływane przy każdym rysowaniu komórki listy, więc nie może niczego alokować.
+     *
+     * @param pageIndex numer strony (od zera).
+     * @return wczytana strona lub {@code null}.
+     */
+    public synchronized CoursePage peek(int pageIndex) {
+        CompletableFuture<CoursePage> page = pages.get(pageIndex);
+        return page != null && page.isDone() && !page.isCompletedExceptionally() ? page.getNow(null) : null;
+    }
+
+    private synchronized void prefetch(int pageIndex) {
+        if (!pages.containsKey(pageIndex)) {
+            load(pageIndex);
+        }
+    }
+
+    private CompletableFuture<CoursePage> load(int pageIndex) {
+        CompletableFuture<CoursePage> cached = pages.get(pageIndex);
+        if (cached != null && !cached.isCompletedExceptionally() && !cached.isCancelled()) {
+            return cached;
+        }
+
+        CompletableFuture<CoursePage> request;
+        CourseCursor after = pageIndex == 0 ? null : cursors.get(pageIndex - 1);
+        if (!query.isEmpty()) {
+            request = courseManager.searchAsync(query, sort, pageIndex, pageSize);
+        } else if (pageIndex == 0 || after != null) {
+            request = courseManager.findPageAsync(sort, null, after, pageSize);
+        } else {
+            request = courseManager.findPageAtAsync(sort, null, pageIndex, pageSize);
+        }
+
+        CompletableFuture<CoursePage> page = request.thenApply(loaded -> {
+            CourseCursor last = loaded.getLastCursor();
+            if (last != null) {
+                synchronized (this) {
+                    cursors.put(pageIndex, last);
+                }
+            }
+            return loaded;
+        });
+        // Anulowanie strony (np. po zmianie filtra) przerywa też zapytanie
+        page.whenComplete((loaded, error) -> {
+            if (error instanceof CancellationException) {
+                request.cancel(true);
+            }
+        });
+        pages.put(pageIndex, page);
+        return page;
+    }
+
+    /**
+     * Anuluje strony, które jeszcze się ładują. Wywoływane, gdy pager przestaje być potrzebny -
+     * po zmianie kryteriów wyszukiwania lub przy wylogowaniu.
+     */
+    public synchronized void cancel() {
+        for (CompletableFuture<CoursePage> page : pages.values()) {
+            page.cancel(true);
+        }
+        pages.clear();
+    }
+}
@@ -0,0 +1,106 @@
+package pl.kakusz.fx;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.control.Alert;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class FxAsync {
+
+    private static final Logger LOGGER = Logger.getLogger(FxAsync.class.getName());
+
+    /**
+     * Przekazuje wynik operacji asynchronicznej z powrotem na wątek JavaFX.
+     *
+     * <p>Anulowane operacje są pomijane. Błędy są rozpakowywane z {@link CompletionException}
+     * przed przekazaniem do {@code onError}.</p>
+     *
+     * @param future    operacja wykonywana w tle.
+     * @param onSuccess akcja wykonywana na wątku JavaFX z wynikiem operacji.
+     * @param onError   akcja wykonywana na wątku JavaFX w przypadku błędu.
+     * @param <T>       typ wyniku.
+     */
+    public static <T> void onFx(CompletableFuture<T> future, Consumer<? super T> onSuccess, Consumer<Throwable> onError) {
+        future.whenComplete((result, error) -> runOnFx(() -> {
+            if (error == null) {
+                onSuccess.accept(result);
+                return;
+            }
+            Throwable cause = unwrap(error);
+            if (!(cause instanceof CancellationException)) {
+                onError.accept(cause);
+            }
+        }));
+    }
+
+    /**
+     * Jak {@link #onFx(CompletableFuture, Consumer, Consumer)}, z domyślną obsługą błędów
+     * w postaci alertu.
+     */
+    public static <T> void onFx(CompletableFuture<T> future, Consumer<? super T> onSuccess) {
+        onFx(future, onSuccess, FxAsync::showError);
+    }
+
+    /**
+     * Wyłącza kontrolkę na czas trwania operacji, a następnie przekazuje wynik na wątek JavaFX.
+     * Kontrolka jest odblokowywana niezależnie od wyniku, również po anulowaniu.
+     *
+     * @param busy      kontrolka (np. przycisk) blokowana do zakończenia operacji.
+     * @param future    operacja wykonywana w tle.
+     * @param onSuccess akcja wykonywana na wątku JavaFX z wynikiem operacji.
+     * @param <T>       typ wyniku.
+     */
+    public static <T> void onFx(Node busy, CompletableFuture<T> future, Consumer<? super T> onSuccess) {
+        busy.setDisable(true);
+        // Odblokowanie przy każdym zakończeniu - także anulowaniu, które pomija onError
+        CompletableFuture<T> settled = future.whenComplete((result, error) -> runOnFx(() -> busy.setDisable(false)));
+        onFx(settled, onSuccess, FxAsync::showError);
+    }
+
+    /**
+     * Uruchamia akcję na wątku JavaFX - od razu, jeśli jesteśmy już na tym wątku.
+     *
+     * @param action akcja do wykonania.
+     */
+    public static void runOnFx(Runnable action) {
+        if (Platform.isFxApplicationThread()) {
+            action.run();
+        } else {
+            Platform.runLater(action);
+        }
+    }
+
+    /**
+     * Zwraca właściwą przyczynę błędu operacji asynchronicznej.
+     *
+     * @param error błąd przekazany przez {@link CompletableFuture}.
+     * @return błąd bez opakowań {@link CompletionException} / {@link ExecutionException}.
+     */
+    public static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static void showError(Throwable error) {
+        LOGGER.log(Level.WARNING, "Operacja w tle zakończona błędem", error);
+        if (error instanceof TimeoutException) {
+            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Serwer nie odpowiada. Spróbuj ponownie za chwilę.");
+        } else if (error instanceof RejectedExecutionException) {
+            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Aplikacja jest przeciążona. Spróbuj ponownie za chwilę.");
+        } else {
+            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie udało się, sproboj ponownie " + error.getMessage());
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package pl.kakusz.fx;
+
+import javafx.collections.ObservableListBase;
+import pl.kakusz.database.managers.CourseManager;
+import pl.kakusz.database.objects.Course;
+import pl.kakusz.database.paging.CoursePage;
+import pl.kakusz.database.paging.CourseSort;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Lista kursów dla {@link javafx.scene.control.ListView}, wczytywana stronami dopiero wtedy,
+ * gdy lista pyta o widoczne elementy.
+ *
+ * <p>{@code ListView} tworzy komórki tylko dla widocznych wierszy i wywołuje {@link #get(int)}
+ * dla każdej z nich. Jeśli strona z danym indeksem nie jest jeszcze wczytana, lista zwraca
+ * {@code null} (komórka pokazuje "Wczytywanie...") i zleca pobranie strony przez {@link CoursePager};
+ * po jej nadejściu zgłasza zamianę tylko tego zakresu.</p>
+ *
+ * <h3>Założenia:</h3>
+ * <ul>
+ *   <li>Rozmiar listy to przybliżona liczba kursów; koryguje go każda wczytana strona
+ *       (brak następnej strony wyznacza dokładny koniec).</li>
+ *   <li>Pamiętanych jest tylko kilka stron (zob. {@link CoursePager}); przewinięcie do strony
+ *       usuniętej z pamięci pobiera ją ponownie.</li>
+ *   <li>Wszystkie metody wywoływane są na wątku JavaFX.</li>
+ * </ul>
+ */
+public class LazyCourseList extends ObservableListBase<Course> {
+
+    private final CourseManager courseManager;
+    private final CourseSort sort;
+    private final String query;
+    private final int pageSize;
+
+    private CoursePager pager;
+    /** Pager sprzed {@link #refresh()} - jego strony są wyświetlane, dopóki nowe się nie wczytają. */
+    private CoursePager stale;
+
+    /** Strony zlecone bieżącemu pagerowi i jeszcze niewczytane (lub zakończone błędem). */
+    private final Set<Integer> requested = new HashSet<>();
+
+    private int size;
+    /** Czy znany jest dokładny koniec listy (wczytano stronę bez następnej). */
+    private boolean exactSize;
+    private boolean disposed;
+
+    /**
+     * @param courseManager źródło kursów.
+     * @param sort          porządek sortowania.
+     * @param query         tekst wyszukiwania; pusty oznacza cały katalog.
+     * @param pageSize      liczba kursów pobieranych jednym zapytaniem.
+     */
+    public LazyCourseList(CourseManager courseManager, CourseSort sort, String query, int pageSize) {
+        this.courseManager = courseManager;
+        this.sort = sort;
+        this.query = query == null ? "" : query.trim();
+        this.pageSize = pageSize;
+        this.pager = new CoursePager(courseManager, sort, this.query, pageSize);
+        requestCount();
+        request(0);
+    }
+
+    /** @return porządek sortowania listy. */
+    public CourseSort getSort() {
+        return sort;
+    }
+
+    /** @return tekst wyszukiwania listy. */
+    public String getQuery() {
+        return query;
+    }
+
+    @Override
+    public Course get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Indeks: " + index + ", rozmiar: " + size);
+        }
+        int pageIndex = index / pageSize;
+        CoursePage page = pager.peek(pageIndex);
+        if (page == null) {
+            request(pageIndex);
+            page = stale != null ? stale.peek(pageIndex) : null;
+            if (page == null) {
+                return null;
+            }
+        }
+        int offset = index - pageIndex * pageSize;
+        return offset < page.getItems().size() ? page.getItems().get(offset) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Pobiera listę ponownie z tymi samymi kryteriami, bez zmiany pozycji przewinięcia.
+     * Do czasu nadejścia nowych stron widoczne są poprzednie.
+     */
+    public void refresh() {
+        if (disposed) {
+            return;
+        }
+        if (stale != null) {
+            stale.cancel();
+        }
+        stale = pager;
+        pager = new CoursePager(courseManager, sort, query, pageSize);
+        requested.clear();
+        exactSize = false;
+        requestCount();
+        fireReplaced(0, size);
+    }
+
+    /** Anuluje wczytywanie stron; lista przestaje się zmieniać. */
+    public void dispose() {
+        disposed = true;
+        pager.cancel();
+        if (stale != null) {
+            stale.cancel();
+        }
+    }
+
+    private void requestCount() {
+        CoursePager owner = pager;
+        FxAsync.onFx(courseManager.countSearchAsync(query), count -> {
+            if (owner == pager && !disposed && !exactSize) {
+                resize((int) Math.min(Integer.MAX_VALUE, count));
+            }
+        });
+    }
+
+    private void request(int pageIndex) {
+        if (disposed || !requested.add(pageIndex)) {
+            return;
+        }
+        CoursePager owner = pager;
+        // Błąd zostawia stronę w "requested" - bez ponawiania przy każdym rysowaniu komórki
+        FxAsync.onFx(owner.page(pageIndex), page -> onPageLoaded(owner, pageIndex, page));
+    }
+
+    private void onPageLoaded(CoursePager owner, int pageIndex, CoursePage page) {
+        if (owner != pager || disposed) {
+            return;
+        }
+        requested.remove(pageIndex);
+
+        int from = pageIndex * pageSize;
+        int end = from + page.getItems().size();
+        if (!page.isHasNext()) {
+            exactSize = true;
+            resize(end);
+        } else if (size <= end) {
+            resize(end + 1);
+        }
+        fireReplaced(from, Math.min(end, size));
+    }
+
+    private void resize(int newSize) {
+        if (newSize == size) {
+            return;
+        }
+        int oldSize = size;
+        beginChange();
+        size = newSize;
+        if (newSize > oldSize) {
+            nextAdd(oldSize, newSize);
+        } else {
+            nextRemove(newSize, Collections.<Course>nCopies(oldSize - newSize, null));
+        }
+        endChange();
+    }
+
+    /** Zgłasza zamianę zakresu - {@code ListView} przerysowuje tylko komórki z tego zakresu. */
+    private void fireReplaced(int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        beginChange();
+        for (int i = from; i < to; i++) {
+            nextSet(i, null);
+        }
+        endChange();
+    }
+}
@@ -0,0 +1,399 @@
+package pl.kakusz.fx;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Label;
+import javafx.scene.layout.VBox;
+import javafx.stage.Popup;
+import javafx.stage.Window;
+import javafx.util.Duration;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Niemodalne powiadomienia ("toasty") w prawym dolnym rogu aktywnego okna.
+ *
+ * <p>Zastępuje modalne {@link Alert#showAndWait()}: seria błędów bazy danych zgłaszanych z wielu
+ * wątków nie otwiera stosu okien dialogowych ani zagnieżdżonych pętli zdarzeń. Zgłoszenie to wpis
+ * do krótkiej kolejki pod blokadą i co najwyżej jedno {@link Platform#runLater(Runnable)} na serię.</p>
+ *
+ * <h3>Założenia:</h3>
+ * <ul>
+ *   <li>{@link #post} można wywołać z dowolnego wątku; nigdy nie blokuje na interfejsie.</li>
+ *   <li>Powtórzenia tego samego komunikatu są łączone - w kolejce i z widocznym już toastem,
+ *       który pokazuje wtedy licznik powtórzeń.</li>
+ *   <li>W kolejce czeka najwyżej {@value #MAX_PENDING} różnych komunikatów; nadmiar jest pomijany.</li>
+ *   <li>Widoczne są najwyżej {@value #MAX_VISIBLE} toasty, a kolejne pojawiają się nie częściej
+ *       niż co {@value #MIN_INTERVAL_MILLIS} ms.</li>
+ *   <li>Wyświetlone, połączone i pominięte powiadomienia trafiają do dziennika ({@link Logger}).</li>
+ * </ul>
+ */
+public class NotificationCenter {
+
+    private static final Logger LOGGER = Logger.getLogger(NotificationCenter.class.getName());
+
+    /** Maksymalna liczba różnych komunikatów oczekujących na wyświetlenie. */
+    private static final int MAX_PENDING = 32;
+
+    /** Maksymalna liczba toastów widocznych jednocześnie. */
+    private static final int MAX_VISIBLE = 3;
+
+    /** Minimalny odstęp między pojawieniem się kolejnych toastów. */
+    private static final long MIN_INTERVAL_MILLIS = 300;
+
+    /** Ponowna próba, gdy nie ma jeszcze żadnego okna, w którym można pokazać toast. */
+    private static final long NO_WINDOW_RETRY_MILLIS = 500;
+
+    private static final Duration INFO_DURATION = Duration.seconds(4);
+    private static final Duration ERROR_DURATION = Duration.seconds(7);
+
+    private static NotificationCenter instance;
+
+    /** Chroni {@link #pending} i {@link #droppedSinceLog}. */
+    private final Object lock = new Object();
+    private final LinkedHashMap<String, Notification> pending = new LinkedHashMap<>();
+    private long droppedSinceLog;
+
+    /** Czy na wątku JavaFX czeka już zlecone opróżnienie kolejki. */
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    private final LongAdder posted = new LongAdder();
+    private final LongAdder shown = new LongAdder();
+    private final LongAdder merged = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    // Stan widoku - tylko na wątku JavaFX
+    private final Map<String, Toast> visible = new HashMap<>();
+    private Popup popup;
+    private VBox toastBox;
+    private Window owner;
+    private PauseTransition retry;
+    private long lastShownNanos;
+
+    public static synchronized NotificationCenter getInstance() {
+        if (instance == null) {
+            instance = new NotificationCenter();
+        }
+        return instance;
+    }
+
+    /** Oczekujący komunikat wraz z liczbą powtórzeń. */
+    private static final class Notification {
+        private final String key;
+        private final Alert.AlertType type;
+        private final String title;
+        private final String message;
+        private int count = 1;
+
+        private Notification(String key, Alert.AlertType type, String title, String message) {
+            this.key = key;
+            this.type = type;
+            this.title = title;
+            this.message = message;
+        }
+    }
+
+    /** Widoczny toast. */
+    private final class Toast {
+        private final Notification notification;
+        private final VBox node = new VBox(4);
+        private final Label title = new Label();
+        private final PauseTransition timer;
+        private int count;
+
+        private Toast(Notification notification) {
+            this.notification = notification;
+            this.count = notification.count;
+
+            Label message = new Label(notification.message);
+            message.setWrapText(true);
+            message.getStyleClass().add("toast-message");
+            title.getStyleClass().add("toast-title");
+            node.getStyleClass().addAll("toast", styleClassOf(notification.type));
+            node.getChildren().addAll(title, message);
+            node.setOnMouseClicked(event -> close());
+            updateTitle();
+
+            timer = new PauseTransition(notification.type == Alert.AlertType.ERROR ? ERROR_DURATION : INFO_DURATION);
+            timer.setOnFinished(event -> close());
+            timer.play();
+        }
+
+        /** Dolicza powtórzenia i od nowa odmierza czas wyświetlania. */
+        private void repeat(int times) {
+            count += times;
+            updateTitle();
+            timer.playFromStart();
+        }
+
+        private void updateTitle() {
+            title.setText(count > 1 ? notification.title + " (×" + count + ")" : notification.title);
+        }
+
+        private void close() {
+            timer.stop();
+            if (visible.remove(notification.key) == this) {
+                toastBox.getChildren().remove(node);
+                if (count > notification.count) {
+                    LOGGER.log(Level.INFO, "Połączono {0} powtórzeń komunikatu \"{1}\"",
+                            new Object[]{count, notification.message});
+                }
+                if (visible.isEmpty()) {
+                    popup.hide();
+                }
+                scheduleDrain();
+            }
+        }
+    }
+
+    /**
+     * Zgłasza powiadomienie; bezpieczne z dowolnego wątku.
+     *
+     * @param type    rodzaj (informacja, ostrzeżenie, błąd).
+     * @param title   tytuł.
+     * @param message treść.
+     */
+    public void post(Alert.AlertType type, String title, String message) {
+        posted.increment();
+        String key = type + "\u0000" + title + "\u0000" + message;
+        synchronized (lock) {
+            Notification existing = pending.get(key);
+            if (existing != null) {
+                existing.count++;
+                merged.increment();
+            } else if (pending.size() >= MAX_PENDING) {
+                dropped.increment();
+                droppedSinceLog++;
+            } else {
+                pending.put(key, new Notification(key, type, title, message));
+            }
+        }
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            try {
+                Platform.runLater(this::drain);
+            } catch (IllegalStateException e) {
+                // JavaFX nie działa (start lub zamykanie aplikacji) - zostaje tylko dziennik
+                drainScheduled.set(false);
+                logPendingWithoutUi();
+            }
+        }
+    }
+
+    /** Przenosi oczekujące komunikaty na ekran, z zachowaniem limitów. Wątek JavaFX. */
+    private void drain() {
+        drainScheduled.set(false);
+        logDropped();
+
+        while (true) {
+            Notification next;
+            long delay = 0;
+            // Pod blokadą tylko decyzja i zdjęcie z kolejki - interfejs zmieniany jest już poza nią
+            synchronized (lock) {
+                Iterator<Notification> iterator = pending.values().iterator();
+                if (!iterator.hasNext()) {
+                    return;
+                }
+                next = iterator.next();
+                if (!visible.containsKey(next.key)) {
+                    if (visible.size() >= MAX_VISIBLE) {
+                        // Kolejne opróżnienie po zamknięciu któregoś toastu
+                        return;
+                    }
+                    long sinceLast = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastShownNanos);
+                    delay = Math.max(0, MIN_INTERVAL_MILLIS - sinceLast);
+                }
+                if (delay == 0) {
+                    iterator.remove();
+                }
+            }
+            if (delay > 0) {
+                retryAfter(delay);
+                return;
+            }
+
+            // Taki sam komunikat jest już widoczny - tylko licznik
+            Toast toast = visible.get(next.key);
+            if (toast != null) {
+                toast.repeat(next.count);
+                continue;
+            }
+            if (!attachTo(activeWindow())) {
+                requeue(next);
+                retryAfter(NO_WINDOW_RETRY_MILLIS);
+                return;
+            }
+            show(next);
+        }
+    }
+
+    /** Zwraca komunikat do kolejki, łącząc go z powtórzeniami zgłoszonymi w międzyczasie. */
+    private void requeue(Notification notification) {
+        synchronized (lock) {
+            Notification newer = pending.remove(notification.key);
+            if (newer != null) {
+                notification.count += newer.count;
+            }
+            pending.put(notification.key, notification);
+        }
+    }
+
+    private void show(Notification notification) {
+        Toast toast = new Toast(notification);
+        visible.put(notification.key, toast);
+        toastBox.getChildren().add(toast.node);
+        lastShownNanos = System.nanoTime();
+        shown.increment();
+        if (!popup.isShowing()) {
+            popup.show(owner);
+        }
+        LOGGER.log(levelOf(notification.type), notification.count > 1 ? "{0}: {1} (×{2})" : "{0}: {1}",
+                new Object[]{notification.title, notification.message, notification.count});
+    }
+
+    /**
+     * Przygotowuje okno toastów dla podanego okna; przy widocznych toastach zostaje przy dotychczasowym.
+     *
+     * @return {@code false}, jeśli nie ma gdzie pokazać toastu.
+     */
+    private boolean attachTo(Window window) {
+        if (popup != null && (window == owner || !visible.isEmpty()) && owner.isShowing()) {
+            return true;
+        }
+        if (window == null) {
+            return false;
+        }
+        if (popup != null) {
+            popup.hide();
+            toastBox.getChildren().clear();
+            visible.clear();
+        }
+
+        toastBox = new VBox(8);
+        toastBox.getStyleClass().add("toast-box");
+        popup = new Popup();
+        popup.setAutoFix(true);
+        popup.getContent().add(toastBox);
+        popup.getScene().getStylesheets().add(UiResources.class.getResource("/notifications.css").toExternalForm());
+        owner = window;
+
+        // Prawy dolny róg okna, również gdy zmienia się liczba toastów lub rozmiar okna
+        toastBox.heightProperty().addListener((observable, oldHeight, newHeight) -> reposition());
+        toastBox.widthProperty().addListener((observable, oldWidth, newWidth) -> reposition());
+        window.xProperty().addListener((observable, oldX, newX) -> reposition());
+        window.yProperty().addListener((observable, oldY, newY) -> reposition());
+        window.widthProperty().addListener((observable, oldWidth, newWidth) -> reposition());
+        window.heightProperty().addListener((observable, oldHeight, newHeight) -> reposition());
+        return true;
+    }
+
+    private void reposition() {
+        if (popup == null || owner == null) {
+            return;
+        }
+        popup.setX(owner.getX() + owner.getWidth() - toastBox.getWidth() - 20);
+        popup.setY(owner.getY() + owner.getHeight() - toastBox.getHeight() - 20);
+    }
+
+    /** @return okno z fokusem, a bez niego dowolne widoczne okno aplikacji (poza samymi toastami). */
+    private Window activeWindow() {
+        Window fallback = null;
+        for (Window window : Window.getWindows()) {
+            if (window instanceof Popup || !window.isShowing()) {
+                continue;
+            }
+            if (window.isFocused()) {
+                return window;
+            }
+            if (fallback == null) {
+                fallback = window;
+            }
+        }
+        return fallback;
+    }
+
+    private void retryAfter(long millis) {
+        if (retry == null) {
+            retry = new PauseTransition();
+            retry.setOnFinished(event -> scheduleDrain());
+        }
+        retry.setDuration(Duration.millis(millis));
+        retry.playFromStart();
+    }
+
+    private void logDropped() {
+        long count;
+        synchronized (lock) {
+            count = droppedSinceLog;
+            droppedSinceLog = 0;
+        }
+        if (count > 0) {
+            LOGGER.log(Level.WARNING, "Pominięto {0} powiadomień - kolejka pełna", count);
+        }
+    }
+
+    private void logPendingWithoutUi() {
+        logDropped();
+        synchronized (lock) {
+            for (Notification notification : pending.values()) {
+                LOGGER.log(levelOf(notification.type), "{0}: {1} (×{2})",
+                        new Object[]{notification.title, notification.message, notification.count});
+            }
+            pending.clear();
+        }
+    }
+
+    private static Level levelOf(Alert.AlertType type) {
+        if (type == Alert.AlertType.ERROR) {
+            return Level.SEVERE;
+        }
+        return type == Alert.AlertType.WARNING ? Level.WARNING : Level.INFO;
+    }
+
+    private static String styleClassOf(Alert.AlertType type) {
+        if (type == Alert.AlertType.ERROR) {
+            return "toast-error";
+        }
+        return type == Alert.AlertType.WARNING ? "toast-warning" : "toast-info";
+    }
+
+    /** @return liczba zgłoszonych powiadomień. */
+    public long getPostedCount() {
+        return posted.sum();
+    }
+
+    /** @return liczba wyświetlonych toastów. */
+    public long getShownCount() {
+        return shown.sum();
+    }
+
+    /** @return liczba powtórzeń połączonych z oczekującym komunikatem. */
+    public long getMergedCount() {
+        return merged.sum();
+    }
+
+    /** @return liczba powiadomień pominiętych przy pełnej kolejce. */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "Powiadomienia: zgłoszone=" + getPostedCount()
+                + ", wyświetlone=" + getShownCount()
+                + ", połączone=" + getMergedCount()
+                + ", pominięte=" + getDroppedCount();
+    }
+}
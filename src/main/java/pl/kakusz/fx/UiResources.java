@@ -0,0 +1,142 @@
+package pl.kakusz.fx;
+
+import javafx.fxml.FXMLLoader;
+import javafx.scene.image.Image;
+import lombok.Getter;
+import pl.kakusz.database.managers.DatabaseExecutor;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Wspólne zasoby interfejsu: obrazy dekodowane raz oraz widoki FXML przygotowywane w tle.
+ *
+ * <p>Drzewa węzłów z FXML nie da się użyć w dwóch scenach naraz, a kontroler każdego widoku
+ * ma własny stan, więc zamiast jednego wzorca przechowywany jest zapasowy, już wczytany egzemplarz
+ * widoku. {@link #load(View)} oddaje go od razu i zleca przygotowanie kolejnego - przełączenie
+ * ekranu nie czeka na parsowanie FXML, ładowanie klas kontrolera ani arkuszy stylów.</p>
+ *
+ * <h3>Założenia:</h3>
+ * <ul>
+ *   <li>Widoki oznaczone przez {@link #preload(View...)} mają zawsze jeden zapasowy egzemplarz;
+ *       pozostałe wczytywane są na żądanie.</li>
+ *   <li>Widoki budowane są na jednym wątku w tle. Węzły niepodłączone do sceny można tworzyć
+ *       poza wątkiem JavaFX, dlatego metody {@code initialize()} kontrolerów nie mogą zależeć
+ *       od zalogowanego użytkownika ani pokazywać okien.</li>
+ *   <li>Jeśli przygotowanie w tle się nie powiodło, widok wczytywany jest zwyczajnie na wątku wywołującym.</li>
+ * </ul>
+ */
+public class UiResources {
+
+    private static final Logger LOGGER = Logger.getLogger(UiResources.class.getName());
+
+    /** Logo aplikacji. */
+    public static final String LOGO = "/logo.png";
+
+    /** Widoki aplikacji wraz z plikami FXML. */
+    @Getter
+    public enum View {
+        LOGIN("/Login.fxml"),
+        REGISTER("/Register.fxml"),
+        RESET_PASSWORD("/ResetPassword.fxml"),
+        PRIVACY_POLICY("/PrivacyPolicy.fxml"),
+        DASHBOARD("/Dashboard.fxml"),
+        ADMIN("/AdminController.fxml");
+
+        private final String path;
+
+        View(String path) {
+            this.path = path;
+        }
+    }
+
+    private static UiResources instance;
+
+    private final Map<String, Image> images = new ConcurrentHashMap<>();
+    private final Map<View, CompletableFuture<FXMLLoader>> spares = new ConcurrentHashMap<>();
+    private final Set<View> keepWarm = Collections.synchronizedSet(EnumSet.noneOf(View.class));
+    private final ExecutorService preloader = Executors.newSingleThreadExecutor(DatabaseExecutor.namedDaemonThreads("ui-preload"));
+
+    public static synchronized UiResources getInstance() {
+        if (instance == null) {
+            instance = new UiResources();
+        }
+        return instance;
+    }
+
+    /**
+     * Zwraca obraz z zasobów, dekodowany tylko przy pierwszym użyciu.
+     * Jeden obiekt {@link Image} może być wyświetlany w wielu {@link javafx.scene.image.ImageView}.
+     *
+     * @param path ścieżka w zasobach, np. {@value #LOGO}.
+     * @return obraz.
+     */
+    public Image image(String path) {
+        return images.computeIfAbsent(path, key -> new Image(Objects.requireNonNull(UiResources.class.getResourceAsStream(key))));
+    }
+
+    /**
+     * Przygotowuje w tle wspólne obrazy i po jednym egzemplarzu podanych widoków; po każdym
+     * {@link #load(View)} tych widoków w tle powstaje następny.
+     *
+     * @param views widoki, które mają być zawsze gotowe.
+     */
+    public void preload(View... views) {
+        preloader.execute(() -> image(LOGO));
+        for (View view : views) {
+            keepWarm.add(view);
+            spares.computeIfAbsent(view, this::prepare);
+        }
+    }
+
+    /**
+     * Zwraca wczytany widok - zapasowy egzemplarz, jeśli jest (lub właśnie powstaje), w przeciwnym razie
+     * wczytuje FXML od razu.
+     *
+     * @param view widok.
+     * @return loader po {@link FXMLLoader#load()}; korzeń i kontroler przez {@code getRoot()} i {@code getController()}.
+     * @throws IOException gdy pliku FXML nie da się wczytać.
+     */
+    public FXMLLoader load(View view) throws IOException {
+        CompletableFuture<FXMLLoader> spare = spares.remove(view);
+        if (keepWarm.contains(view)) {
+            spares.put(view, prepare(view));
+        }
+        if (spare != null) {
+            try {
+                return spare.join();
+            } catch (CompletionException | CancellationException e) {
+                LOGGER.log(Level.WARNING, "Nie udało się przygotować widoku w tle - wczytywany jest ponownie", e);
+            }
+        }
+        return loadNow(view);
+    }
+
+    private CompletableFuture<FXMLLoader> prepare(View view) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return loadNow(view);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, preloader);
+    }
+
+    private static FXMLLoader loadNow(View view) throws IOException {
+        FXMLLoader loader = new FXMLLoader(Objects.requireNonNull(UiResources.class.getResource(view.getPath())));
+        loader.load();
+        return loader;
+    }
+}
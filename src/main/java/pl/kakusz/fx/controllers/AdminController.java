@@ -3,22 +3,54 @@ package pl.kakusz.fx.controllers;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+import pl.kakusz.database.imports.CourseImporter;
+import pl.kakusz.database.imports.EmailListReader;
+import pl.kakusz.database.managers.CourseManager;
 import pl.kakusz.database.managers.DatabaseManager;
+import pl.kakusz.database.managers.EnrollmentResult;
+import pl.kakusz.database.managers.HibernateManager;
+import pl.kakusz.database.managers.UserManager;
+import pl.kakusz.database.metrics.HibernateDiagnostics;
 import pl.kakusz.database.objects.Course;
 import pl.kakusz.database.objects.User;
 import pl.kakusz.fx.AlertHelper;
+import pl.kakusz.fx.FxAsync;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 public class AdminController {
+
+    private static final Logger LOGGER = Logger.getLogger(AdminController.class.getName());
+
     @FXML
     private TextField amountField, searchField, courseNameField, courseDescriptionField, coursePriceField, courseLinkField;
     @FXML
     private TextField userEmailField, courseIdField, passwordField, deleteCourseIdField;
+    @FXML
+    private TextField importChunkSizeField;
+    /** Lista e-maili do zbiorczego przypisania kursów (jeden w wierszu lub rozdzielone przecinkami). */
+    @FXML
+    private TextArea bulkEmailsArea;
+    @FXML
+    private Button addCourseButton, importCoursesButton, deleteCourseButton, deleteUserButton, resetPasswordButton, assignCourseButton,
+            removeCourseButton, updateBalanceButton, checkBalanceButton, checkUserCoursesButton, loadEmailsButton;
 
     // ======================== OBSŁUGA ADMINISTRATORA ========================
 
@@ -46,13 +78,6 @@ public class AdminController {
                 return;
             }
 
-            Course courseData = DatabaseManager.getInstance().getCourseManager().getCourseByName(name);
-
-            if (courseData != null) {
-                AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Kurs o tej nazwie juz istnieje.");
-                return;
-            }
-
             if(price < 0) {
                 AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Cena musi być dodatnia.");
                 return;
@@ -76,8 +101,20 @@ public class AdminController {
             course.setPrice(price);
             course.setLink(link);
 
-            DatabaseManager.getInstance().getCourseManager().addCourse(course);
-            AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Sukces", "Dodano nowy kurs: " + name);
+            // Sprawdzenie duplikatu i zapis wykonywane są w tle
+            CourseManager courseManager = DatabaseManager.getInstance().getCourseManager();
+            CompletableFuture<Boolean> added = courseManager.getCourseByNameAsync(name)
+                    .thenCompose(courseData -> courseData != null
+                            ? CompletableFuture.completedFuture(false)
+                            : courseManager.addCourseAsync(course).thenApply(ignored -> true));
+
+            FxAsync.onFx(addCourseButton, added, success -> {
+                if (success) {
+                    AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Sukces", "Dodano nowy kurs: " + name);
+                } else {
+                    AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Kurs o tej nazwie juz istnieje.");
+                }
+            });
         } catch (NumberFormatException e) {
             AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Cena kursu musi być liczbą.");
         } catch (Exception e) {
@@ -85,6 +122,45 @@ public class AdminController {
         }
     }
 
+    /**
+     * Obsługuje import wielu kursów z pliku CSV lub JSON.
+     *
+     * <p>Plik jest czytany strumieniowo w tle, a kursy zapisywane wsadowo w porcjach
+     * o rozmiarze podanym w polu {@code importChunkSizeField}.</p>
+     *
+     * @see pl.kakusz.database.imports.CourseImporter
+     */
+    @FXML
+    private void handleImportCourses() {
+        int chunkSize = CourseImporter.DEFAULT_CHUNK_SIZE;
+        String chunkText = importChunkSizeField.getText();
+        if (chunkText != null && !chunkText.trim().isEmpty()) {
+            try {
+                chunkSize = Integer.parseInt(chunkText.trim());
+            } catch (NumberFormatException e) {
+                chunkSize = -1;
+            }
+            if (chunkSize < 1) {
+                AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Rozmiar porcji musi być dodatnią liczbą.");
+                return;
+            }
+        }
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Wybierz plik z kursami");
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV / JSON", "*.csv", "*.json"),
+                new FileChooser.ExtensionFilter("Wszystkie pliki", "*.*"));
+        File file = fileChooser.showOpenDialog(importCoursesButton.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        FxAsync.onFx(importCoursesButton, DatabaseManager.getInstance().getCourseManager().importCoursesAsync(file.toPath(), chunkSize), report ->
+                AlertHelper.showAlert(report.isAborted() ? Alert.AlertType.WARNING : Alert.AlertType.INFORMATION,
+                        "Import kursów", report.toString()));
+    }
+
     /**
      * Obsługuje usunięcie kursu z systemu.
      *
@@ -95,14 +171,19 @@ public class AdminController {
         try {
             String courseName = deleteCourseIdField.getText();
 
-            Course course = DatabaseManager.getInstance().getCourseManager().getCourseByName(courseName);
-
-            if (course == null) {
-                AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Kurs o nazwie " + courseName + " nie istnieje.");
-            } else {
-                DatabaseManager.getInstance().getCourseManager().deleteCourse(courseName);
-                AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Sukces", "Kurs został usunięty.");
-            }
+            CourseManager courseManager = DatabaseManager.getInstance().getCourseManager();
+            CompletableFuture<Boolean> deleted = courseManager.getCourseByNameAsync(courseName)
+                    .thenCompose(course -> course == null
+                            ? CompletableFuture.completedFuture(false)
+                            : courseManager.deleteCourseAsync(courseName).thenApply(ignored -> true));
+
+            FxAsync.onFx(deleteCourseButton, deleted, success -> {
+                if (success) {
+                    AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Sukces", "Kurs został usunięty.");
+                } else {
+                    AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Kurs o nazwie " + courseName + " nie istnieje.");
+                }
+            });
         } catch (Exception e) {
             AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie udało się usunąć kursu.");
         }
@@ -112,28 +193,75 @@ public class AdminController {
 // ======================== OBSŁUGA UŻYTKOWNIKÓW ========================
 
     /**
-     * Obsługuje przypisanie kursu do użytkownika.
+     * Obsługuje przypisanie kursów do użytkowników.
      *
-     * <p>Na podstawie podanego adresu e-mail użytkownika i nazwy kursu,
-     * metoda przypisuje kurs do użytkownika w bazie danych.</p>
+     * <p>Kursy (nazwy rozdzielone przecinkami) przypisywane są wszystkim użytkownikom z listy
+     * e-maili, a gdy jest pusta - użytkownikowi z pola e-mail. Całość wykonuje się w jednej
+     * transakcji, niezależnie od liczby użytkowników.</p>
+     *
+     * @see UserManager#assignCourses
      */
     @FXML
     private void handleAssignCourse() {
-        String userEmail = userEmailField.getText();
-        String courseName = courseIdField.getText();
+        List<String> emails = enrollmentEmails();
+        List<String> courseNames = enrollmentCourseNames();
+        if (emails.isEmpty() || courseNames.isEmpty()) {
+            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Podaj e-maile użytkowników i nazwy kursów.");
+            return;
+        }
 
-        // Pobranie użytkownika na podstawie e-maila
-        User userByEmail = DatabaseManager.getInstance().getUserManager().getUserByEmail(userEmail);
+        FxAsync.onFx(assignCourseButton, DatabaseManager.getInstance().getUserManager().assignCoursesAsync(emails, courseNames),
+                this::showEnrollmentResult);
+    }
 
-        if (userByEmail == null) {
-            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Użytkownik o podanym adresie e-mail nie istnieje.");
+    /**
+     * Wczytuje listę e-maili z pliku CSV (np. eksportu listy klasy) do pola zbiorczego.
+     */
+    @FXML
+    private void handleLoadEmails() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Wybierz plik z adresami e-mail");
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV / TXT", "*.csv", "*.txt"),
+                new FileChooser.ExtensionFilter("Wszystkie pliki", "*.*"));
+        File file = fileChooser.showOpenDialog(loadEmailsButton.getScene().getWindow());
+        if (file == null) {
             return;
         }
 
-        // Przypisanie kursu użytkownikowi
-        DatabaseManager.getInstance().getUserManager().handleAssignCourse(userByEmail, courseName);
-        AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Sukces", "Przypisano kurs " + courseName + " użytkownikowi o e-mailu " + userEmail);
+        try {
+            List<String> emails = EmailListReader.read(file.toPath());
+            bulkEmailsArea.setText(String.join("\n", emails));
+            AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Informacja", "Wczytano adresów e-mail: " + emails.size());
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Nie udało się odczytać pliku z adresami e-mail", e);
+            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie udało się odczytać pliku: " + e.getMessage());
+        }
+    }
+
+    /** @return e-maile z pola zbiorczego lub, gdy jest puste, z pola e-mail użytkownika. */
+    private List<String> enrollmentEmails() {
+        List<String> emails = EmailListReader.parse(bulkEmailsArea.getText());
+        return emails.isEmpty() ? EmailListReader.parse(userEmailField.getText()) : emails;
+    }
+
+    /** @return nazwy kursów z pola nazwy kursu, rozdzielone przecinkami. */
+    private List<String> enrollmentCourseNames() {
+        String text = courseIdField.getText();
+        if (text == null || text.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(text.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private void showEnrollmentResult(EnrollmentResult result) {
+        AlertHelper.showAlert(result.isComplete() ? Alert.AlertType.INFORMATION : Alert.AlertType.WARNING,
+                result.isAssign() ? "Przypisanie kursów" : "Usunięcie kursów", result.toString());
     }
+
     @FXML
     private TextField userEmailFieldStats;
 
@@ -150,22 +278,22 @@ public class AdminController {
             return;
         }
 
-        User userWithCourses = DatabaseManager.getInstance().getUserManager().getUserWithCourses(userEmail);
-
-        if (userWithCourses == null) {
-            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie znaleziono użytkownika o podanym e-mailu.");
-            return;
-        }
+        FxAsync.onFx(checkUserCoursesButton, DatabaseManager.getInstance().getUserManager().getUserWithCoursesAsync(userEmail), userWithCourses -> {
+            if (userWithCourses == null) {
+                AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie znaleziono użytkownika o podanym e-mailu.");
+                return;
+            }
 
-        List<Course> purchasedCourses = userWithCourses.getCourses();
+            List<Course> purchasedCourses = userWithCourses.getCourses();
 
-        if (purchasedCourses.isEmpty()) {
-            AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Informacja", "Użytkownik nie posiada zakupionych kursów.");
-            return;
-        }
+            if (purchasedCourses.isEmpty()) {
+                AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Informacja", "Użytkownik nie posiada zakupionych kursów.");
+                return;
+            }
 
-        userPurchasedCoursesList.getItems().clear();
-        userPurchasedCoursesList.getItems().addAll(purchasedCourses.stream().map(Course::getName).collect(Collectors.toList()));
+            userPurchasedCoursesList.getItems().clear();
+            userPurchasedCoursesList.getItems().addAll(purchasedCourses.stream().map(Course::getName).collect(Collectors.toList()));
+        });
     }
 
     @FXML
@@ -183,20 +311,20 @@ public class AdminController {
             }
 
             // Pobranie użytkownika z bazy
-            User user = DatabaseManager.getInstance().getUserManager().getUserByEmail(userEmail);
-
-            if (user == null) {
-                AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie znaleziono użytkownika o podanym e-mailu.");
-                return;
-            }
-
-            // Wyświetlenie aktualnego balansu użytkownika
-            double currentBalance = user.getBalance();
-            AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Balans Użytkownika",
-                    "Aktualny balans użytkownika: " + currentBalance);
+            FxAsync.onFx(checkBalanceButton, DatabaseManager.getInstance().getUserManager().getUserByEmailAsync(userEmail), user -> {
+                if (user == null) {
+                    AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie znaleziono użytkownika o podanym e-mailu.");
+                    return;
+                }
+
+                // Wyświetlenie aktualnego balansu użytkownika
+                double currentBalance = user.getBalance();
+                AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Balans Użytkownika",
+                        "Aktualny balans użytkownika: " + currentBalance);
+            });
 
         } catch (Exception ex) {
-            ex.printStackTrace();
+            LOGGER.log(Level.WARNING, "Nie udało się sprawdzić balansu użytkownika", ex);
             AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Wystąpił błąd podczas sprawdzania balansu użytkownika.");
         }
     }
@@ -221,21 +349,19 @@ public class AdminController {
                 return;
             }
 
-            // Pobranie użytkownika z bazy
-            User user = DatabaseManager.getInstance().getUserManager().getUserByEmail(userEmail);
-
-            if (user == null) {
-                AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie znaleziono użytkownika o podanym e-mailu.");
-                return;
-            }
-
-            // Aktualizacja balansu użytkownika
-            user.setBalance(newBalance);
-            DatabaseManager.getInstance().getUserManager().updateUser(user);
-
-            AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Sukces", "Balans użytkownika został zaktualizowany.");
+            // Aktualizacja balansu w tle, jednym zapytaniem - bez nadpisywania równoległych zakupów
+            CompletableFuture<Boolean> updated = DatabaseManager.getInstance().getUserManager()
+                    .setBalanceAsync(userEmail, newBalance);
+
+            FxAsync.onFx(updateBalanceButton, updated, success -> {
+                if (success) {
+                    AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Sukces", "Balans użytkownika został zaktualizowany.");
+                } else {
+                    AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie znaleziono użytkownika o podanym e-mailu.");
+                }
+            });
         } catch (Exception ex) {
-            ex.printStackTrace();
+            LOGGER.log(Level.WARNING, "Nie udało się zaktualizować balansu użytkownika", ex);
             AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Wystąpił błąd podczas aktualizacji balansu użytkownika.");
         }
     }
@@ -251,17 +377,16 @@ public class AdminController {
         String userEmail = userEmailField.getText();
         String newPassword = passwordField.getText();
 
-        // Pobranie użytkownika z bazy
-        User userByEmail = DatabaseManager.getInstance().getUserManager().getUserByEmail(userEmail);
-
-        if (userByEmail == null) {
-            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Użytkownik o podanym adresie e-mail nie istnieje.");
-            return;
-        }
+        // Haszowanie i zapis w tle; administrator nie zna starego hasła, więc nie jest sprawdzane
+        CompletableFuture<Boolean> reset = DatabaseManager.getInstance().getUserManager().resetPasswordAsync(userEmail, newPassword);
 
-        // Resetowanie hasła użytkownika
-        DatabaseManager.getInstance().getUserManager().updatePassword(userEmail, userByEmail.getPassword(), newPassword);
-        AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Sukces", "Hasło użytkownika zostało zaktualizowane.");
+        FxAsync.onFx(resetPasswordButton, reset, success -> {
+            if (success) {
+                AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Sukces", "Hasło użytkownika zostało zaktualizowane.");
+            } else {
+                AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Użytkownik o podanym adresie e-mail nie istnieje.");
+            }
+        });
     }
 
     /**
@@ -275,44 +400,125 @@ public class AdminController {
         String userEmail = userEmailField.getText();
 
         // Pobranie użytkownika z bazy
-        User userByEmail = DatabaseManager.getInstance().getUserManager().getUserByEmail(userEmail);
-
-        if (userByEmail == null) {
-            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Użytkownik o podanym adresie e-mail nie istnieje.");
-            return;
-        } else if (userByEmail.getEmail().equals(DatabaseManager.getInstance().getUserManager().getCurrentUser().getEmail())) {
-            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie możesz usunąć siebie.");
-            return;
-        }
+        UserManager userManager = DatabaseManager.getInstance().getUserManager();
+        FxAsync.onFx(deleteUserButton, userManager.getUserByEmailAsync(userEmail), userByEmail -> {
+            if (userByEmail == null) {
+                AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Użytkownik o podanym adresie e-mail nie istnieje.");
+                return;
+            } else if (userByEmail.getEmail().equals(userManager.getCurrentUser().getEmail())) {
+                AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie możesz usunąć siebie.");
+                return;
+            }
 
-        // Usuwanie użytkownika
-        DatabaseManager.getInstance().getUserManager().deleteUser(userByEmail);
-        AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Sukces", "Użytkownik " + userEmail + " został usunięty.");
+            // Usuwanie użytkownika
+            FxAsync.onFx(deleteUserButton, userManager.deleteUserAsync(userByEmail), ignored ->
+                    AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Sukces", "Użytkownik " + userEmail + " został usunięty."));
+        });
     }
 
 
     /**
-     * Obsługuje usunięcie przypisanego kursu od użytkownika.
+     * Obsługuje usunięcie przypisanych kursów użytkownikom.
      *
-     * <p>Na podstawie podanego adresu e-mail i nazwy kursu usuwa przypisanie kursu
-     * od użytkownika w bazie danych.</p>
+     * <p>Działa jak {@link #handleAssignCourse()}: lista e-maili lub pojedynczy e-mail
+     * i nazwy kursów rozdzielone przecinkami, jedna transakcja.</p>
+     *
+     * @see UserManager#removeCourses
      */
     @FXML
     private void handleRemoveCourse() {
-        String userEmail = userEmailField.getText();
-        String courseName = courseIdField.getText();
+        List<String> emails = enrollmentEmails();
+        List<String> courseNames = enrollmentCourseNames();
+        if (emails.isEmpty() || courseNames.isEmpty()) {
+            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Podaj e-maile użytkowników i nazwy kursów.");
+            return;
+        }
+
+        FxAsync.onFx(removeCourseButton, DatabaseManager.getInstance().getUserManager().removeCoursesAsync(emails, courseNames),
+                this::showEnrollmentResult);
+    }
+
+    // ======================== DIAGNOSTYKA ========================
+
+    @FXML
+    private Tab diagnosticsTab;
+    @FXML
+    private Label diagnosticsSummary;
+    @FXML
+    private TableView<HibernateDiagnostics.QueryRow> queryStatsTable;
+    @FXML
+    private TableView<HibernateDiagnostics.EntityRow> entityStatsTable;
+    @FXML
+    private TableView<HibernateDiagnostics.RegionRow> regionStatsTable;
+
+    /** Okno panelu; statystyki zbierane są tylko, gdy jest widoczne i wybrana jest zakładka diagnostyki. */
+    private Stage window;
+    private boolean observing;
+
+    @FXML
+    private void initialize() {
+        diagnosticsTab.selectedProperty().addListener((observable, wasSelected, selected) -> updateObserving());
+    }
 
-        // Pobranie użytkownika na podstawie e-maila
-        User userByEmail = DatabaseManager.getInstance().getUserManager().getUserByEmail(userEmail);
+    /**
+     * Wiąże panel z jego oknem - zamknięcie okna kończy zbieranie statystyk Hibernate.
+     *
+     * @param window okno, w którym wyświetlany jest panel.
+     */
+    public void bindWindow(Stage window) {
+        this.window = window;
+        window.showingProperty().addListener((observable, wasShowing, showing) -> updateObserving());
+        updateObserving();
+    }
 
-        if (userByEmail == null) {
-            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Użytkownik o podanym adresie e-mail nie istnieje.");
+    /**
+     * Włącza statystyki Hibernate przy otwarciu zakładki diagnostyki i wyłącza je po jej opuszczeniu
+     * lub zamknięciu okna - poza tym czasem zbieranie statystyk nic nie kosztuje.
+     */
+    private void updateObserving() {
+        boolean open = window != null && window.isShowing() && diagnosticsTab.isSelected();
+        if (open == observing) {
             return;
         }
+        observing = open;
+        if (open) {
+            HibernateManager.getDiagnostics().acquire();
+            showDiagnostics();
+        } else {
+            HibernateManager.getDiagnostics().release();
+        }
+    }
+
+    @FXML
+    private void handleRefreshDiagnostics() {
+        showDiagnostics();
+    }
+
+    @FXML
+    private void handleClearDiagnostics() {
+        HibernateManager.getDiagnostics().clear();
+        showDiagnostics();
+    }
 
-        // Usunięcie przypisanego kursu
-        DatabaseManager.getInstance().getUserManager().handleRemoveCourse(userByEmail, courseName);
-        AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Sukces", "Usunięto kurs " + courseName + " z użytkownika o e-mailu " + userEmail);
+    /** Wyświetla bieżącą migawkę statystyk; odczyt liczników nie angażuje bazy danych. */
+    private void showDiagnostics() {
+        HibernateDiagnostics.Snapshot snapshot = HibernateManager.getDiagnostics().snapshot();
+        diagnosticsSummary.setText(String.format(
+                "Czas obserwacji: %d s, sesje: %d, transakcje: %d, instrukcje JDBC: %d%n"
+                        + "Zapytania: %d, najdłuższe: %d ms%s%n"
+                        + "Encje: wczytane %d, pobrane %d, wstawione %d, zmienione %d, usunięte %d%n"
+                        + "Cache drugiego poziomu: trafienia %d, chybienia %d, zapisy %d (%s); cache zapytań: trafienia %d, chybienia %d (%s)",
+                snapshot.getObservedMillis() / 1000, snapshot.getSessionsOpened(), snapshot.getTransactions(), snapshot.getPreparedStatements(),
+                snapshot.getQueryExecutions(), snapshot.getQueryMaxMillis(),
+                snapshot.getSlowestQuery() == null ? "" : " (" + snapshot.getSlowestQuery() + ")",
+                snapshot.getEntityLoads(), snapshot.getEntityFetches(), snapshot.getEntityInserts(),
+                snapshot.getEntityUpdates(), snapshot.getEntityDeletes(),
+                snapshot.getSecondLevelHits(), snapshot.getSecondLevelMisses(), snapshot.getSecondLevelPuts(),
+                snapshot.getSecondLevelHitRatioText(),
+                snapshot.getQueryCacheHits(), snapshot.getQueryCacheMisses(), snapshot.getQueryCacheHitRatioText()));
+        queryStatsTable.getItems().setAll(snapshot.getQueries());
+        entityStatsTable.getItems().setAll(snapshot.getEntities());
+        regionStatsTable.getItems().setAll(snapshot.getRegions());
     }
 
 
@@ -1,5 +1,6 @@
 package pl.kakusz.fx.controllers;
 
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -7,6 +8,7 @@ import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.geometry.Pos;
+import javafx.geometry.Side;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
@@ -17,18 +19,31 @@ import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import pl.kakusz.database.cache.CourseCatalog;
+import pl.kakusz.database.managers.DatabaseBootstrap;
 import pl.kakusz.database.managers.DatabaseManager;
+import pl.kakusz.database.managers.PurchaseResult;
+import pl.kakusz.database.managers.UserManager;
 import pl.kakusz.database.objects.Course;
 import pl.kakusz.database.objects.User;
+import pl.kakusz.database.paging.CourseSort;
+import pl.kakusz.database.search.AutocompleteIndex;
 import pl.kakusz.fx.AlertHelper;
 import pl.kakusz.fx.ControllerManager;
+import pl.kakusz.fx.CourseCell;
+import pl.kakusz.fx.FxAsync;
+import pl.kakusz.fx.LazyCourseList;
+import pl.kakusz.fx.UiResources;
+import pl.kakusz.util.LongHashSet;
 
 import java.io.IOException;
 import java.net.URI;
 import java.util.*;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Klasa DashBoardController zarządza logiką widoku panelu głównego aplikacji Speed Speak.
@@ -40,7 +55,7 @@ import java.util.stream.Collectors;
  * <h3>Główne funkcjonalności:</h3>
  * <ul>
  *   <li>Zarządzanie listą kursów (zakup, filtrowanie, sortowanie, wyświetlanie).</li>
- *   <li>Paginacja oraz dynamiczne ładowanie popularnych kursów.</li>
+ *   <li>Przewijana lista kursów wczytywana stronami oraz dynamiczne ładowanie popularnych kursów.</li>
  *   <li>Dodawanie i usuwanie kursów (dla administratorów).</li>
  *   <li>Zarządzanie użytkownikami, w tym zmiana hasła, usuwanie, przypisywanie kursów.</li>
  *   <li>Zarządzanie transakcjami, takie jak dodawanie środków do konta użytkownika.</li>
@@ -49,25 +64,27 @@ import java.util.stream.Collectors;
  */
 public class DashBoardController {
 
+    private static final Logger LOGGER = Logger.getLogger(DashBoardController.class.getName());
+
     // Pola FXML związane z układem interfejsu graficznego
 
     /** Kontenery dla różnych sekcji aplikacji (administracja, kursy, profil użytkownika itp.). */
     @FXML
-    private VBox adminLayout, mainContainer, myCoursesContainer, courseContainer, transactionsContainer, courseVBox;
+    private VBox adminLayout, mainContainer, myCoursesContainer, courseContainer, transactionsContainer;
 
     /** Pola tekstowe do wprowadzania danych procesowanych w aplikacji. */
     @FXML
     private TextField amountField, searchField, courseNameField, courseDescriptionField, coursePriceField, courseLinkField;
     @FXML
-    private TextField userEmailField, courseIdField, passwordField, deleteCourseIdField;
+    private TextField courseIdField, passwordField, deleteCourseIdField;
 
     /** Kontener wyświetlający kursy w sekcji "Najpopularniejsze kursy". */
     @FXML
     FlowPane coursePane;
 
-    /** Kontrola paginacji dla wyświetlania kursów na stronie. */
+    /** Wirtualizowana lista kursów w sekcji "Kup kurs" - komórki tworzone tylko dla widocznych wierszy. */
     @FXML
-    private Pagination pagination;
+    private ListView<Course> courseListView;
 
     /** Dropdown umożliwiający sortowanie kursów w sekcji "Kup kurs". */
     @FXML
@@ -93,108 +110,63 @@ public class DashBoardController {
     @FXML
     private TableColumn<Course, String> productColumn, priceColumn, descriptionColumn;
 
-    /**
-     * Pole tekstowe, w którym wprowadzany jest adres e-mail użytkownika.
-     *
-     * <p>To pole jest wykorzystywane w sekcji administracyjnej, aby umożliwić
-     * administratorowi weryfikację użytkownika na podstawie jego adresu e-mail.
-     * Obsługiwane jest głównie przez metodę `handleCheckUserCourses`, która
-     * zwraca listę kursów przypisanych do wprowadzonego użytkownika.</p>
-     *
-     * <h3>Zastosowanie:</h3>
-     * <ul>
-     *   <li>Sprawdzenie zakupionych kursów użytkownika (wraz z użyciem `handleCheckUserCourses`).</li>
-     *   <li>Pomocnicze pole do weryfikacji użytkownika w funkcjach administracyjnych.</li>
-     * </ul>
-     *
-     * @see #handleCheckUserCourses()
-     */
-    @FXML
-    private TextField userEmailFieldStats;
+    /** Lista wszystkich kursów dostępnych w systemie. */
+    private List<Course> allCourses;
 
-    /**
-     * Lista wyświetlająca kursy zakupione przez użytkownika.
-     *
-     * <p>To pole graficzne `ListView` wyświetla listę nazw kursów przypisanych
-     * do użytkownika. Jest dynamicznie wypełniana na podstawie wyników zapytania
-     * zwracanego przez metodę `handleCheckUserCourses`.</p>
-     *
-     * <h3>Funkcjonalność:</h3>
-     * <ul>
-     *   <li>Wyświetla listę nazw kursów przypisanych do użytkownika.</li>
-     *   <li>Oczyszcza dane i ponownie wypełnia listę przy każdorazowym wywołaniu
-     *       sprawdzenia kursów użytkownika.</li>
-     * </ul>
-     *
-     * @see #handleCheckUserCourses()
-     */
-    @FXML
-    private ListView<String> userPurchasedCoursesList;
+    /** Słuchacz synchronizacji katalogu; wywoływany z wątku w tle, więc przekazuje zmianę na wątek JavaFX. */
+    private final Consumer<CourseCatalog> catalogListener = catalog -> FxAsync.runOnFx(() -> onCatalogChanged(catalog));
 
-    /**
-     * Pole tekstowe do wprowadzania nowego salda użytkownika.
-     *
-     * <p>To pole jest używane w sekcji administracyjnej, aby administrator mógł zmienić
-     * stan konta dowolnego użytkownika, wprowadzając nową wartość.
-     * Wartość ta jest walidowana pod kątem poprawności formatowania liczby.</p>
-     *
-     * @see #updateUserBalance()
-     */
-    @FXML
-    private TextField userBalanceField;
+    /** Kursy dla bieżącego filtra i sortowania, wczytywane stronami; podmieniane przy każdej ich zmianie. */
+    private LazyCourseList courseList;
 
-    /** Lista wszystkich kursów dostępnych w systemie. */
-    private List<Course> allCourses;
+    /** Menu z podpowiedziami nazw kursów wyświetlane pod polem wyszukiwania. */
+    private final ContextMenu suggestionsMenu = new ContextMenu();
+
+    /** Czas bez zmian w polu wyszukiwania, po którym wysyłane jest zapytanie. */
+    private static final Duration FILTER_DELAY = Duration.millis(250);
 
-    /** Lista kursów filtrowanych w sekcji "Kup kurs". */
-    private ObservableList<Course> filteredCourseList;
+    /** Opóźnia filtrowanie do chwili, gdy użytkownik przestanie pisać. */
+    private final PauseTransition filterDebounce = new PauseTransition(FILTER_DELAY);
 
-    /** Liczba elementów wyświetlanych na jednej stronie w paginacji. */
-    private static final int ITEMS_PER_PAGE = 5;
+    /** Liczba kursów pobieranych jednym zapytaniem podczas przewijania listy. */
+    private static final int PAGE_SIZE = 50;
 
     /** Aktualnie zalogowany użytkownik. */
     private User currentUser;
 
+    /** Identyfikatory kursów posiadanych przez użytkownika - sprawdzanie posiadania przy rysowaniu kart. */
+    private LongHashSet ownedCourseIds;
+
     // =========================== FUNKCJE INICJALIZACYJNE ===========================
 
     /**
-     * Inicjalizuje dane i konfigurację kontrolera po załadowaniu widoku przez JavaFX.
-     * <p>Metoda ta odpowiada za przygotowanie danych użytkownika, listy kursów,
-     * konfigurację widocznych elementów GUI oraz ustawienia tabel i paginacji.</p>
+     * Konfiguruje widok po wczytaniu FXML: logo, listę kursów, sortowanie, tabele i wyszukiwanie.
      *
-     * @see #createAdminButton()
-     * @see #setupPagination()
+     * <p>Widok jest przygotowywany w tle przez {@link UiResources}, zanim ktokolwiek się zaloguje,
+     * dlatego metoda nie może korzystać z bazy danych ani z zalogowanego użytkownika -
+     * to robi {@link #bindUser()}.</p>
      */
     @FXML
     public void initialize() {
-        // Ładowanie logo aplikacji
-        logoImage.setImage(new Image(Objects.requireNonNull(getClass().getResourceAsStream("/logo.png"))));
-        logoImage2.setImage(new Image(Objects.requireNonNull(getClass().getResourceAsStream("/logo.png"))));
-
-        // Pobieranie danych aktualnie zalogowanego użytkownika
-        currentUser = DatabaseManager.getInstance().getUserManager()
-                .getCurrentUserWithCourses(DatabaseManager.getInstance().getUserManager().getCurrentUser().getId());
-
-        // Wyświetlenie danych użytkownika w GUI
-        usernameLabel.setText("Witaj, " + currentUser.getUsername() + "!");
-        idKontaLabel.setText("ID konta: " + currentUser.getId());
-        accountBalanceLabel.setText("Stan konta: " + String.format("%.2f", currentUser.getBalance()) + " zł");
-
-        // Dodanie przycisku Admin, jeśli aktualny użytkownik ma rolę administratora
-        if ("admin".equalsIgnoreCase(currentUser.getRole())) {
-            createAdminButton();
-        }
+        // Logo aplikacji - jeden zdekodowany obraz dla obu miejsc
+        Image logo = UiResources.getInstance().image(UiResources.LOGO);
+        logoImage.setImage(logo);
+        logoImage2.setImage(logo);
 
-        // Inicjalizacja kursów i listy filtrowanej
-        allCourses = DatabaseManager.getInstance().getCourseManager().getCourseList();
-        filteredCourseList = FXCollections.observableArrayList(allCourses);
+        courseListView.setCellFactory(view -> new CourseCell(id -> ownedCourseIds.contains(id),
+                course -> handleBuyCourse(course.getId())));
 
         // Konfiguracja dropdown dla sortowania kursów
-        sortComboBox.getItems().addAll("Sortuj według ceny: od największej", "Sortuj według ceny: od najmniejszej");
+        for (CourseSort sort : CourseSort.values()) {
+            sortComboBox.getItems().add(sort.getLabel());
+        }
         sortComboBox.setValue(sortComboBox.getItems().get(0));
 
-        // Inicjalizacja paginacji
-        setupPagination();
+        // Kolejne zapytania wyzwalają zmiany tekstu i sortowania
+        setupFilterListeners();
+
+        // Podpowiedzi podczas wpisywania w pole wyszukiwania
+        setupSearchSuggestions();
 
         // Konfiguracja kolumn tabeli kursów
         productColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
@@ -207,37 +179,65 @@ public class DashBoardController {
 
         // Akcja powiązana z przyciskiem "Otwórz kurs"
         openCourseButton.setOnAction(event -> openSelectedCourse());
-        populateRandomCoursesPane(allCourses);
+    }
 
+    /**
+     * Wypełnia widok danymi zalogowanego użytkownika; wywoływane przez {@link #showWindow(Stage)}
+     * na wątku JavaFX, tuż przed pokazaniem widoku.
+     *
+     * <p>Od razu wyświetlane są dane użytkownika z logowania. Kursy użytkownika i posiadane kursy
+     * wczytywane są w tle - karty kursów są odświeżane po ich nadejściu.</p>
+     *
+     * @see #createAdminButton()
+     */
+    public void bindUser() {
+        UserManager userManager = DatabaseManager.getInstance().getUserManager();
 
-        Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(() -> {
-            Platform.runLater(() -> {
-                try {
-                    String searchText = searchField.getText().toLowerCase();
-                    // Filtrowanie kursów w zależności od tekstu wyszukiwania
-                    filteredCourseList.setAll(allCourses.stream()
-                            .filter(course -> course.getName().toLowerCase().contains(searchText))
-                            .collect(Collectors.toList()));
+        // Dane z logowania - kursy i aktualne saldo dochodzą w tle
+        currentUser = userManager.getCurrentUser();
+        ownedCourseIds = new LongHashSet();
+        showUserDetails();
 
+        // Dodanie przycisku Admin, jeśli aktualny użytkownik ma rolę administratora
+        if ("admin".equalsIgnoreCase(currentUser.getRole())) {
+            createAdminButton();
+        }
 
-                    String selectedSort = sortComboBox.getValue();
+        CompletableFuture<LongHashSet> owned = userManager.getOwnedCourseIdsAsync(currentUser.getId());
+        FxAsync.onFx(owned, ids -> {
+            ownedCourseIds = ids;
+            courseListView.refresh();
+        });
+        FxAsync.onFx(userManager.getCurrentUserWithCoursesAsync(currentUser.getId()), user -> {
+            if (user != null) {
+                currentUser = user;
+                showUserDetails();
+            }
+        });
 
-                    // Sortowanie wyników według opcji wybranej przez użytkownika
-                    if (selectedSort != null) {
-                        if (selectedSort.contains("największej")) {
-                            filteredCourseList.sort((c1, c2) -> Double.compare(c2.getPrice(), c1.getPrice()));
-                        } else {
-                            filteredCourseList.sort(Comparator.comparingDouble(Course::getPrice));
-                        }
-                    }
+        // Katalog mógł jeszcze nie zdążyć się wczytać w tle
+        allCourses = DatabaseManager.getInstance().getCourseManager().getCourseList();
+        DatabaseManager.getInstance().getCourseManager().addCatalogListener(catalogListener);
 
+        // Pierwsze wczytanie listy kursów
+        filterCourses();
 
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-            });
-        }, 0, 2, TimeUnit.SECONDS);
+        // Popularne kursy po wczytaniu katalogu i posiadanych kursów (przy błędzie - bez oznaczeń posiadania)
+        FxAsync.onFx(DatabaseBootstrap.getInstance().whenCatalogReady(), ignored ->
+                owned.whenComplete((ids, error) -> FxAsync.runOnFx(() -> {
+                    if (ids != null) {
+                        ownedCourseIds = ids;
+                    }
+                    allCourses = DatabaseManager.getInstance().getCourseManager().getCourseList();
+                    populateRandomCoursesPane(allCourses);
+                })));
+    }
 
+    /** Wyświetla nazwę, identyfikator i saldo {@link #currentUser}. */
+    private void showUserDetails() {
+        usernameLabel.setText("Witaj, " + currentUser.getUsername() + "!");
+        idKontaLabel.setText("ID konta: " + currentUser.getId());
+        accountBalanceLabel.setText("Stan konta: " + String.format("%.2f", currentUser.getBalance()) + " zł");
     }
 
     /**
@@ -251,20 +251,21 @@ public class DashBoardController {
         adminButton.setStyle("-fx-text-fill: white; -fx-background-color: #2e3b54; -fx-background-radius: 5;");
         adminButton.setOnMouseClicked(event -> {
             try {
-                // Wczytaj FXML
-               FXMLLoader loader = new FXMLLoader(getClass().getResource("/AdminController.fxml"));
-                StackPane adminContainer = loader.load();
-                System.out.println("load");
+                // Widok przygotowany wcześniej w tle
+                FXMLLoader adminView = UiResources.getInstance().load(UiResources.View.ADMIN);
+                StackPane adminContainer = adminView.getRoot();
 
                 // Nowe okno (Stage)
                 Scene scene = new Scene(adminContainer);
                 Stage adminWindow = new Stage();
                 adminWindow.setTitle("Admin Panel");
                 adminWindow.setScene(scene);
+                AdminController adminController = adminView.getController();
+                adminController.bindWindow(adminWindow);
                 adminWindow.show();
 
             } catch (Exception e) {
-                e.printStackTrace();
+                LOGGER.log(Level.WARNING, "Nie udało się otworzyć panelu administratora", e);
             }
         });
 
@@ -279,78 +280,104 @@ public class DashBoardController {
 
     /**
      * Filtruje kursy na podstawie wprowadzonego tekstu oraz wybranej metody sortowania.
-     * <p>Metoda aktualizuje listę wyświetlanych kursów na podstawie kryteriów użytkownika
-     * wprowadzonych w polu wyszukiwania lub dropdown do sortowania.</p>
-     *
-     * @see #setupPagination()
+     * <p>Wyszukiwanie pełnotekstowe (nazwa i opis) i sortowanie wykonuje baza danych -
+     * metoda tworzy nową listę dla bieżących kryteriów i wraca na jej początek.</p>
      */
     @FXML
     private void filterCourses() {
-        String searchText = searchField.getText().toLowerCase();
-        String selectedSort = sortComboBox.getValue();
-
-        // Filtrowanie kursów w zależności od tekstu wyszukiwania
-        filteredCourseList.setAll(allCourses.stream()
-                .filter(course -> course.getName().toLowerCase().contains(searchText))
-                .collect(Collectors.toList()));
-
-        // Sortowanie wyników według opcji wybranej przez użytkownika
-        if (selectedSort != null) {
-            if (selectedSort.contains("największej")) {
-                filteredCourseList.sort((c1, c2) -> Double.compare(c2.getPrice(), c1.getPrice()));
-            } else {
-                filteredCourseList.sort(Comparator.comparingDouble(Course::getPrice));
-            }
-        }
+        String searchText = searchField.getText().trim();
+        CourseSort sort = CourseSort.fromLabel(sortComboBox.getValue());
 
-        // Aktualizacja paginacji
-        setupPagination();
+        // Strony poprzedniego filtra nie są już potrzebne
+        filterDebounce.stop();
+        if (courseList != null) {
+            courseList.dispose();
+        }
+        courseList = new LazyCourseList(DatabaseManager.getInstance().getCourseManager(), sort, searchText, PAGE_SIZE);
+        courseListView.setItems(courseList);
+        courseListView.scrollTo(0);
+    }
 
+    /**
+     * Pobiera ponownie widoczne kursy z tymi samymi kryteriami, bez zmiany pozycji przewinięcia.
+     */
+    private void refreshCurrentPage() {
+        if (courseList != null) {
+            courseList.refresh();
+        }
+    }
 
+    /**
+     * Reaguje na zmiany katalogu naniesione w tle (np. kursy dodane przez innego administratora).
+     *
+     * @param catalog nowa migawka katalogu.
+     */
+    private void onCatalogChanged(CourseCatalog catalog) {
+        allCourses = catalog.getCourses();
+        refreshCurrentPage();
     }
 
     /**
-     * Konfiguruje paginację dla listy kursów.
-     * <p>Paginacja dzieli listę kursów na mniejsze strony,
-     * umożliwiając ich bardziej czytelne wyświetlanie.</p>
+     * Podłącza filtrowanie do zmian w polu wyszukiwania i liście sortowania.
+     * <p>Tekst filtrowany jest dopiero po {@link #FILTER_DELAY} bez zmian, sortowanie od razu.
+     * Zapytanie wysyłane jest tylko wtedy, gdy kryteria różnią się od bieżących.</p>
      */
-    private void setupPagination() {
-        pagination.setPageCount((int) Math.ceil((double) filteredCourseList.size() / ITEMS_PER_PAGE));
-        //pagination.setCurrentPageIndex(0);
-        pagination.setMaxPageIndicatorCount(5);
-        pagination.setPageFactory(this::createPage);
-        showPage(0);
+    private void setupFilterListeners() {
+        filterDebounce.setOnFinished(event -> filterCoursesIfChanged());
+        searchField.textProperty().addListener((observable, oldText, newText) -> filterDebounce.playFromStart());
+        sortComboBox.valueProperty().addListener((observable, oldSort, newSort) -> filterCoursesIfChanged());
+    }
+
+    private void filterCoursesIfChanged() {
+        if (courseList == null
+                || !searchField.getText().trim().equals(courseList.getQuery())
+                || CourseSort.fromLabel(sortComboBox.getValue()) != courseList.getSort()) {
+            filterCourses();
+        }
     }
 
     /**
-     * Tworzy stronę kursów na podstawie paginacji.
-     *
-     * @param pageIndex indeks strony.
-     * @return VBox z kursami przypisanymi do danej strony.
+     * Podłącza podpowiedzi nazw kursów do pola wyszukiwania.
+     * <p>Podpowiedzi pochodzą z indeksu w pamięci, więc są liczone przy każdym naciśnięciu klawisza
+     * bez odpytywania bazy.</p>
      */
-    private VBox createPage(int pageIndex) {
-        return showPage(pageIndex);
+    private void setupSearchSuggestions() {
+        searchField.textProperty().addListener((observable, oldText, newText) -> showSuggestions(newText));
+        searchField.focusedProperty().addListener((observable, wasFocused, focused) -> {
+            if (!focused) {
+                suggestionsMenu.hide();
+            }
+        });
     }
 
     /**
-     * Wyświetla kursy na określonej stronie.
+     * Wyświetla podpowiedzi dla wpisanego tekstu; wybranie podpowiedzi od razu wyszukuje kurs.
      *
-     * @param pageIndex indeks strony.
-     * @return Kontener zawierający kursy na tej stronie.
+     * @param text aktualny tekst pola wyszukiwania.
      */
-    private VBox showPage(int pageIndex) {
-        courseVBox.getChildren().clear();
-        int start = pageIndex * ITEMS_PER_PAGE;
-        int end = Math.min(start + ITEMS_PER_PAGE, filteredCourseList.size());
-
-        // Wyświetlanie kursów
-        for (int i = start; i < end; i++) {
-            createCourseButton(filteredCourseList.get(i));
+    private void showSuggestions(String text) {
+        List<Course> suggestions = DatabaseManager.getInstance().getCourseManager()
+                .suggest(text, AutocompleteIndex.DEFAULT_LIMIT);
+        if (suggestions.isEmpty() || !searchField.isFocused()) {
+            suggestionsMenu.hide();
+            return;
         }
 
-        pagination.setCurrentPageIndex(pageIndex);
-        pagination.setPrefHeight(Integer.MAX_VALUE);
-        return courseVBox;
+        List<MenuItem> items = new ArrayList<>();
+        for (Course course : suggestions) {
+            MenuItem item = new MenuItem(course.getName());
+            item.setOnAction(event -> {
+                searchField.setText(course.getName());
+                searchField.positionCaret(course.getName().length());
+                suggestionsMenu.hide();
+                filterCourses();
+            });
+            items.add(item);
+        }
+        suggestionsMenu.getItems().setAll(items);
+        if (!suggestionsMenu.isShowing()) {
+            suggestionsMenu.show(searchField, Side.BOTTOM, 0, 0);
+        }
     }
 
     /**
@@ -391,30 +418,25 @@ public class DashBoardController {
      */
     private void createPopularCourse(Course course) {
         VBox coursesBox = new VBox(10);
+        coursesBox.getStyleClass().add("course-card");
 
         // Weryfikacja posiadania kursu przez użytkownika
-        boolean hasCourse = currentUser.getCourses().stream().anyMatch(c -> c.getId().equals(course.getId()));
+        boolean hasCourse = ownedCourseIds.contains(course.getId());
 
-        // Styl kontenera w zależności od statusu kursu
-        if (hasCourse) {
-            coursesBox.setStyle("-fx-background-color: #7a7a7a; -fx-padding: 15px;");
-        } else {
-            coursesBox.setStyle("-fx-background-color: #2e3b54; -fx-padding: 15px;");
-        }
+        // Wygląd jak na liście "Kup kurs" - klasy stylu z dashboard.css
+        coursesBox.pseudoClassStateChanged(CourseCell.OWNED, hasCourse);
 
         // Etykieta z nazwą kursu
         Label label = new Label(course.getName());
-        label.setStyle("-fx-font-size: 20px; -fx-text-fill: white; -fx-font-weight: bold;");
+        label.getStyleClass().add("course-name");
 
         // Etykieta z opisem kursu
         Label description = new Label(course.getDescription());
-        description.setStyle("-fx-font-size: 14px; -fx-text-fill: white;");
+        description.getStyleClass().add("course-description");
 
         // Przycisk z odpowiednią akcją (zakup lub informacja)
         Button button = new Button(hasCourse ? "Posiadasz kurs" : "Kup za " + course.getPrice() + " zł");
-        button.setStyle("-fx-text-fill: white; -fx-background-color: #4CAF50; -fx-background-radius: 5px; -fx-font-size: 14px;");
-        button.setPrefWidth(200);
-        button.setAlignment(Pos.CENTER);
+        button.getStyleClass().add("course-buy-button");
 
         if (hasCourse) {
             button.setDisable(true); // Jeśli użytkownik posiada kurs, przycisk jest wyłączony
@@ -433,64 +455,63 @@ public class DashBoardController {
     /**
      * Obsługuje zakup kursu przez użytkownika.
      *
-     * <p>Sprawdza, czy użytkownik posiada wystarczające środki na zakup kursu.
-     * Po zakupie kursu aktualizuje saldo użytkownika oraz przypisuje kurs do jego profilu.</p>
+     * <p>Sprawdzenie salda, pobranie opłaty i przypisanie kursu wykonuje baza danych
+     * w jednej transakcji ({@link pl.kakusz.database.managers.UserManager#purchaseCourse(Long, Long)}),
+     * więc dwa równoległe zakupy nie mogą zejść poniżej zera.</p>
      *
      * @param courseId ID kursu, który użytkownik chce zakupić.
      */
     private void handleBuyCourse(Long courseId) {
-        Course course = DatabaseManager.getInstance().getCourseManager().getCourseById(courseId);
-
-
-        if(course == null){
-
-            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Kurs nie istnieje.");
-
-            Executors.newSingleThreadScheduledExecutor().schedule(() -> {
-                Platform.runLater(() -> {
-                    try {
-                        allCourses = DatabaseManager.getInstance().getCourseManager().loadCoursesList();
-                        filterCourses();
+        FxAsync.onFx(DatabaseManager.getInstance().getUserManager().purchaseCourseAsync(currentUser.getId(), courseId),
+                result -> onCoursePurchased(courseId, result));
+    }
 
-                    } catch (Exception e) {
-                        e.printStackTrace();
+    /**
+     * Aktualizuje widok po próbie zakupu z {@link #handleBuyCourse(Long)}.
+     *
+     * @param courseId ID kupowanego kursu.
+     * @param result   wynik zakupu.
+     */
+    private void onCoursePurchased(Long courseId, PurchaseResult result) {
+        switch (result) {
+            case SUCCESS:
+            case ALREADY_OWNED:
+                // Odświeżenie widocznych kart od razu, bez czekania na bazę
+                ownedCourseIds.add(courseId);
+                courseListView.refresh();
+
+                // Saldo i lista kursów z bazy - mogły się zmienić również w innym oknie
+                FxAsync.onFx(DatabaseManager.getInstance().getUserManager().getCurrentUserWithCoursesAsync(currentUser.getId()), user -> {
+                    if (user != null) {
+                        currentUser = user;
+                    }
+                    // Aktualizacja stanu konta w interfejsie
+                    accountBalanceLabel.setText("Stan konta: " + String.format("%.2f", currentUser.getBalance()) + " zł");
+
+                    if (result == PurchaseResult.SUCCESS) {
+                        Course course = DatabaseManager.getInstance().getCourseManager().getCatalog().getById(courseId);
+                        AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Sukces",
+                                course != null ? "Zakupiono kurs: " + course.getName() : result.getMessage());
+                    } else {
+                        AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Informacja", result.getMessage());
                     }
                 });
-            }, 2,  TimeUnit.SECONDS);
-
-            Executors.newSingleThreadScheduledExecutor().schedule(() -> {
-                Platform.runLater(() -> {
-                    try {
-                        allCourses = DatabaseManager.getInstance().getCourseManager().loadCoursesList();
-                        filterCourses();
-
-                    } catch (Exception e) {
-                        e.printStackTrace();
+                break;
+            case NOT_FOUND:
+                AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", result.getMessage());
+
+                // Tylko zmiany katalogu od ostatniej synchronizacji; przy zmianach stronę odświeży słuchacz katalogu
+                FxAsync.onFx(DatabaseManager.getInstance().getCourseManager().syncCatalogAsync(), changed -> {
+                    if (changed == 0) {
+                        refreshCurrentPage();
                     }
                 });
-            }, 2,  TimeUnit.SECONDS);
-            return;
-        }
-        // Sprawdzenie, czy użytkownik ma wystarczające środki na zakup
-        if (currentUser.getBalance() < course.getPrice()) {
-            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie masz wystarczających środków na koncie.");
-            return;
+                break;
+            case INSUFFICIENT_FUNDS:
+            default:
+                AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", result.getMessage());
+                break;
         }
-
-        // Przypisanie kursu do użytkownika
-        currentUser.getCourses().add(course);
-        currentUser.setBalance(currentUser.getBalance() - course.getPrice());
-
-        // Aktualizacja danych użytkownika w bazie
-        DatabaseManager.getInstance().getUserManager().updateUser(currentUser);
-
-        // Aktualizacja stanu konta w interfejsie
-        accountBalanceLabel.setText("Stan konta: " + String.format("%.2f", currentUser.getBalance()) + " zł");
-
-        // Odświeżenie widoku kursów
-        setupPagination();
-
-        AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Sukces", "Zakupiono kurs: " + course.getName());
     }
 
     // ======================== OBSŁUGA SEKCJI PROFILE ========================
@@ -507,158 +528,6 @@ public class DashBoardController {
 
         toggleVisibility(false, false, false, true, false);
     }
-    /**
-     * Sprawdza i wyświetla listę kursów zakupionych przez użytkownika.
-     *
-     * <p>Metoda pobiera adres e-mail użytkownika z pola tekstowego,
-     * a następnie odczytuje listę kursów przypisanych do tego użytkownika.
-     * Wyniki są wyświetlane w widoku listy kursów.</p>
-     *
-     * <h3>Działanie:</h3>
-     * <ul>
-     *   <li>Walidacja pola e-mail użytkownika.</li>
-     *   <li>Pobranie użytkownika na podstawie podanego e-maila.</li>
-     *   <li>Wyświetlenie listy zakupionych kursów w widoku ListView.</li>
-     *   <li>Wyświetlenie alertu, jeśli użytkownik nie posiada kursów.</li>
-     * </ul>
-     */
-    @FXML
-    private void handleCheckUserCourses() {
-        String userEmail = userEmailFieldStats.getText();
-
-        if (userEmail == null || userEmail.isEmpty()) {
-            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Wprowadź poprawny adres e-mail użytkownika.");
-            return;
-        }
-
-        User userWithCourses = DatabaseManager.getInstance().getUserManager().getUserWithCourses(userEmail);
-
-        if (userWithCourses == null) {
-            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie znaleziono użytkownika o podanym e-mailu.");
-            return;
-        }
-
-        List<Course> purchasedCourses = userWithCourses.getCourses();
-
-        if (purchasedCourses.isEmpty()) {
-            AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Informacja", "Użytkownik nie posiada zakupionych kursów.");
-            return;
-        }
-
-        userPurchasedCoursesList.getItems().clear();
-        userPurchasedCoursesList.getItems().addAll(purchasedCourses.stream().map(Course::getName).collect(Collectors.toList()));
-    }
-    /**
-     * Aktualizuje saldo użytkownika na podstawie wprowadzonego przez administratora balansu.
-     *
-     * <p>Metoda pobiera adres e-mail użytkownika oraz nową kwotę salda wprowadzone przez administratora.
-     * Po przeprowadzeniu walidacji i sprawdzeniu poprawności danych aktualizuje saldo użytkownika w systemie.</p>
-     *
-     * <h3>Działanie:</h3>
-     * <ul>
-     *   <li>Weryfikacja, czy pola e-mail i saldo nie są puste.</li>
-     *   <li>Parsowanie kwoty i walidacja poprawności liczbowej.</li>
-     *   <li>Pobranie użytkownika z bazy i aktualizacja salda w systemie.</li>
-     *   <li>Wyświetlenie stosownego komunikatu w przypadku błędu lub sukcesu operacji.</li>
-     * </ul>
-     */
-    @FXML
-    private void updateUserBalance() {
-        try {
-            String userEmail = userEmailField.getText();
-            String balanceText = userBalanceField.getText();
-
-            // Walidacja pól
-            if (userEmail == null || userEmail.isEmpty() || balanceText == null || balanceText.isEmpty()) {
-                AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Proszę podać poprawny e-mail i balans.");
-                return;
-            }
-
-            double newBalance;
-            try {
-                newBalance = Double.parseDouble(balanceText);
-            } catch (NumberFormatException e) {
-                AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Proszę podać poprawny format liczby dla balansu.");
-                return;
-            }
-
-            // Pobranie użytkownika z bazy
-            User user = DatabaseManager.getInstance().getUserManager().getUserByEmail(userEmail);
-
-            if (user == null) {
-                AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie znaleziono użytkownika o podanym e-mailu.");
-                return;
-            }
-
-            // Aktualizacja balansu użytkownika
-            user.setBalance(newBalance);
-            DatabaseManager.getInstance().getUserManager().updateUser(user);
-
-            AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Sukces", "Balans użytkownika został zaktualizowany.");
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Wystąpił błąd podczas aktualizacji balansu użytkownika.");
-        }
-    }
-
-    /**
-     * Tworzy przycisk odpowiadający za wizualną reprezentację kursu na stronie kursów.
-     *
-     * <p>Metoda generuje dynamicznie element GUI reprezentujący kurs. Dla każdego kursu jest tworzony
-     * kontener zawierający nazwę kursu, opis oraz przycisk "Kup", który umożliwia zakup kursu,
-     * jeśli użytkownik jeszcze go nie posiada.</p>
-     *
-     * <h3>Działanie:</h3>
-     * <ul>
-     *   <li>Tworzy kontener typu `VBox` dla wizualizacji kursu.</li>
-     *   <li>Dodaje etykiety (nazwa, opis) oraz przycisk (np. "Kup za X zł").</li>
-     *   <li>Jeśli użytkownik posiada kurs, przycisk jest dezaktywowany.</li>
-     *   <li>Dodaje dynamicznie wygenerowany kontener kursu do sekcji `courseVBox`.</li>
-     * </ul>
-     *
-     * @param course obiekt kursu, który ma być dodany do widoku.
-     */
-    private void createCourseButton(Course course) {
-        VBox coursesBox = new VBox(10);
-
-        // Sprawdzenie posiadania kursu przez użytkownika
-        boolean hasCourse = currentUser.getCourses().stream().anyMatch(c -> c.getId().equals(course.getId()));
-
-        // Ustawienie stylu kontenera
-        if (hasCourse) {
-            coursesBox.setStyle("-fx-background-color: #7a7a7a; -fx-padding: 15px;");
-        } else {
-            coursesBox.setStyle("-fx-background-color: #2e3b54; -fx-padding: 15px;");
-        }
-
-        // Etykieta z nazwą kursu
-        Label label = new Label(course.getName());
-        label.setStyle("-fx-font-size: 20px; -fx-text-fill: white; -fx-font-weight: bold;");
-
-        // Etykieta z opisem kursu
-        Label description = new Label(course.getDescription());
-        description.setStyle("-fx-font-size: 14px; -fx-text-fill: white;");
-
-        // Przycisk zakupu
-        Button button = new Button(hasCourse ? "Posiadasz kurs" : "Kup za " + course.getPrice() + " zł");
-        button.setStyle("-fx-text-fill: white; -fx-background-color: #4CAF50; -fx-background-radius: 5px; -fx-font-size: 14px;");
-        button.setPrefWidth(200);
-        button.setAlignment(Pos.CENTER);
-
-        if (hasCourse) {
-            button.setDisable(true);
-        } else {
-            button.setOnAction(event -> handleBuyCourse(course.getId()));
-        }
-
-        // Dodanie elementów do kontenera kursu
-        coursesBox.getChildren().addAll(label, description, button);
-        coursesBox.setAlignment(Pos.CENTER);
-
-        // Dodanie do globalnego kontenera
-        courseVBox.getChildren().add(coursesBox);
-
-    }
 
     /**
      * Otwiera link wybranego kursu w przeglądarce internetowej użytkownika.
@@ -687,7 +556,7 @@ public class DashBoardController {
 
                 java.awt.Desktop.getDesktop().browse(new URI(link));
             } catch (Exception e) {
-                e.printStackTrace();
+                LOGGER.log(Level.WARNING, "Nie udało się otworzyć linku kursu", e);
                 AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie udało się otworzyć linku!");
             }
         } else {
@@ -728,8 +597,11 @@ public class DashBoardController {
 
 
 
-        // Ładowanie widoku z pliku Dashboard.fxml
-        Parent parent = FXMLLoader.load(Objects.requireNonNull(getClass().getResource("/Dashboard.fxml")));
+        // Widok z Dashboard.fxml przygotowany w tle; zostaje tylko wypełnić go danymi użytkownika
+        FXMLLoader view = UiResources.getInstance().load(UiResources.View.DASHBOARD);
+        DashBoardController controller = view.getController();
+        controller.bindUser();
+        Parent parent = view.getRoot();
 
         // Ustawienie tytułu okna
         stage.setTitle("Panel główny");
@@ -766,7 +638,7 @@ public class DashBoardController {
      * Przetwarza wprowadzoną kwotę w celu doładowania konta użytkownika.
      *
      * <p>Waliduje poprawność kwoty (czy jest liczbową wartością większą od zera),
-     * a następnie aktualizuje saldo użytkownika w bazie danych.</p>
+     * a następnie dodaje ją do salda w bazie danych (zob. {@link UserManager#addFunds(Long, double)}).</p>
      *
      * @param amountInput wprowadzona kwota doładowania.
      */
@@ -779,17 +651,23 @@ public class DashBoardController {
                 return;
             }
 
-            // Aktualizacja konta użytkownika
-            currentUser.setBalance(currentUser.getBalance() + amount);
-            DatabaseManager.getInstance().getUserManager().updateUser(currentUser);
-            AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Sukces", "Doładowano konto o " + amount + " zł.");
+            // Doładowanie w bazie (w tle) - saldo w interfejsie z wartości zwróconej przez bazę
+            FxAsync.onFx(DatabaseManager.getInstance().getUserManager().addFundsAsync(currentUser.getId(), amount), balance -> {
+                if (balance == null) {
+                    AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nie znaleziono konta użytkownika.");
+                    return;
+                }
+                currentUser.setBalance(balance);
+                accountBalanceLabel.setText("Stan konta: " + String.format("%.2f", balance) + " zł");
+                AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Sukces", "Doładowano konto o " + amount + " zł.");
 
-            amountField.clear();
+                amountField.clear();
+            });
         } catch (NumberFormatException e) {
             AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Niepoprawna liczba. Wprowadź liczbę.");
         } catch (Exception e) {
             AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Wystąpił błąd podczas doładowania konta.");
-            e.printStackTrace();
+            LOGGER.log(Level.WARNING, "Nie udało się doładować konta", e);
         }
     }
 
@@ -826,6 +704,15 @@ public class DashBoardController {
      * Wylogowuje użytkownika z systemu i przełącza widok na ekran logowania.
      */
     public void handleLogout() {
+        // Zatrzymanie oczekującego filtrowania i zapytań o strony tej sesji
+        filterDebounce.stop();
+        suggestionsMenu.hide();
+        if (courseList != null) {
+            courseList.dispose();
+            courseList = null;
+        }
+        DatabaseManager.getInstance().getCourseManager().removeCatalogListener(catalogListener);
+
         DatabaseManager.getInstance().getUserManager().setCurrentUser(null);
         Stage stage = (Stage) logoutButton.getScene().getWindow();
         try {
@@ -2,26 +2,30 @@ package pl.kakusz.fx.controllers;
 
 import javafx.application.Platform;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.control.PasswordField;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TextField;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.KeyCode;
 import javafx.stage.Stage;
-import org.mindrot.jbcrypt.BCrypt;
+import pl.kakusz.database.managers.DatabaseBootstrap;
 import pl.kakusz.database.managers.DatabaseManager;
 import pl.kakusz.database.objects.Course;
 import pl.kakusz.database.objects.User;
 import pl.kakusz.fx.AlertHelper;
 import pl.kakusz.fx.ControllerManager;
+import pl.kakusz.fx.FxAsync;
+import pl.kakusz.fx.UiResources;
+import pl.kakusz.security.LoginRateLimiter;
 
 import java.io.IOException;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
 
 public class LoginController {
@@ -34,9 +38,14 @@ public class LoginController {
     private PasswordField passwordField;
     @FXML
     private TextField emailField;
+    /** Postęp łączenia z bazą danych w tle - zob. {@link DatabaseBootstrap}. */
+    @FXML
+    private ProgressBar bootstrapProgress;
+    @FXML
+    private Label bootstrapStatus;
     @FXML
     public void initialize() {
-        logoImage.setImage(new Image(Objects.requireNonNull(getClass().getResourceAsStream("/logo.png"))));
+        logoImage.setImage(UiResources.getInstance().image(UiResources.LOGO));
         emailField.setOnKeyPressed(event -> {
             if (Objects.requireNonNull(event.getCode()) == KeyCode.ENTER) {
                 handleLogin();
@@ -47,7 +56,28 @@ public class LoginController {
                 handleLogin();
             }
         });
+        DatabaseBootstrap.getInstance().addListener(phase -> FxAsync.runOnFx(() -> showBootstrapPhase(phase)));
+    }
 
+    /**
+     * Pokazuje etap łączenia z bazą danych pod formularzem; po zakończeniu chowa pasek postępu.
+     *
+     * @param phase bieżący etap uruchamiania.
+     */
+    private void showBootstrapPhase(DatabaseBootstrap.Phase phase) {
+        boolean visible = phase != DatabaseBootstrap.Phase.READY;
+        bootstrapProgress.setVisible(visible && phase != DatabaseBootstrap.Phase.FAILED);
+        bootstrapProgress.setProgress(phase.getProgress() < 0 ? ProgressBar.INDETERMINATE_PROGRESS : phase.getProgress());
+        bootstrapStatus.setVisible(visible);
+
+        if (phase == DatabaseBootstrap.Phase.FAILED) {
+            Throwable failure = DatabaseBootstrap.getInstance().getFailure();
+            bootstrapStatus.setText(phase.getLabel() + (failure != null ? ": " + failure.getMessage() : ""));
+            bootstrapStatus.setStyle("-fx-text-fill: #ff6b6b; -fx-font-size: 12px;");
+        } else {
+            bootstrapStatus.setText(phase.getLabel());
+            bootstrapStatus.setStyle("-fx-text-fill: #a0a8b8; -fx-font-size: 12px;");
+        }
     }
 
     @FXML
@@ -56,7 +86,7 @@ public class LoginController {
     }
 
     public void showWindow(Stage stage) throws IOException {
-        Parent parent = FXMLLoader.load(Objects.requireNonNull(getClass().getResource("/Login.fxml")));
+        Parent parent = UiResources.getInstance().load(UiResources.View.LOGIN).getRoot();
         stage.setTitle("Logowanie");
         stage.setScene(new Scene(parent));
         stage.show();
@@ -65,9 +95,37 @@ public class LoginController {
 
     @FXML
     public void handleLogin() {
-        if (validateFields()) {
-            openWindow();
+        if (!validateFields()) {
+            return;
+        }
+
+        String email = emailField.getText();
+        String password = passwordField.getText();
+
+        // Limit prób sprawdzany przed zapytaniem do bazy i BCrypt
+        LoginRateLimiter limiter = LoginRateLimiter.getInstance();
+        LoginRateLimiter.Decision decision = limiter.tryAcquire(email);
+        if (!decision.isAllowed()) {
+            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd",
+                    "Zbyt wiele prób logowania. Spróbuj ponownie za " + decision.getRetryAfterSeconds() + " s.");
+            return;
         }
+
+        // Czekamy tylko na to, czego jeszcze brakuje: połączenie z bazą (jeśli trwa) i zapytanie o użytkownika
+        CompletableFuture<User> user = DatabaseBootstrap.getInstance().whenReady()
+                .thenCompose(database -> database.getUserManager().getUserByEmailAsync(email));
+        // Hasło sprawdzane jest na puli haszującej - BCrypt nie blokuje interfejsu
+        CompletableFuture<Boolean> matches = user.thenCompose(found -> found == null
+                ? CompletableFuture.completedFuture(false)
+                : DatabaseManager.getInstance().getUserManager().verifyPasswordAsync(found, password));
+        FxAsync.onFx(mainButton, matches, passwordMatches -> {
+            if (authenticate(user.join(), passwordMatches)) {
+                limiter.onSuccess(email);
+                openWindow();
+            } else {
+                limiter.onFailure(email);
+            }
+        });
     }
 
 
@@ -110,13 +168,16 @@ public class LoginController {
             return false;
         }
 
-        User user = DatabaseManager.getInstance().getUserManager().getUserByEmail(emailField.getText());
+        return true;
+    }
+
+    private boolean authenticate(User user, boolean passwordMatches) {
         if (user == null) {
             AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Użytkownik o podanym adresie e-mail nie istnieje.");
             return false;
         }
 
-        if (!BCrypt.checkpw(passwordField.getText(), user.getPassword())) {
+        if (!passwordMatches) {
             AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Podane hasło jest niepoprawne.");
             return false;
         }
@@ -1,13 +1,13 @@
 package pl.kakusz.fx.controllers;
 
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.TextArea;
 import javafx.stage.Stage;
 import pl.kakusz.fx.ControllerManager;
+import pl.kakusz.fx.UiResources;
 
 import java.io.IOException;
 
@@ -35,8 +35,7 @@ public class PrivacyPolicyController {
     }
 
     public void showWindow(Stage stage) throws IOException {
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/PrivacyPolicy.fxml"));
-        Parent root = loader.load();
+        Parent root = UiResources.getInstance().load(UiResources.View.PRIVACY_POLICY).getRoot();
         stage.setTitle("Polityka Prywatności");
         stage.setScene(new Scene(root));
         stage.show();
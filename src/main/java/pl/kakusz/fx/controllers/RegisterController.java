@@ -1,22 +1,28 @@
 package pl.kakusz.fx.controllers;
 
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.stage.Stage;
-import org.mindrot.jbcrypt.BCrypt;
+import javafx.util.Duration;
+import org.hibernate.exception.ConstraintViolationException;
+import pl.kakusz.database.managers.DatabaseBootstrap;
 import pl.kakusz.database.managers.DatabaseManager;
+import pl.kakusz.database.managers.UserManager;
 import pl.kakusz.database.objects.User;
 import pl.kakusz.fx.AlertHelper;
 import pl.kakusz.fx.ControllerManager;
+import pl.kakusz.fx.FxAsync;
+import pl.kakusz.fx.UiResources;
+import pl.kakusz.security.PasswordHasher;
 
 import javax.imageio.ImageIO;
 import java.awt.*;
@@ -27,12 +33,18 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Objects;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 public class RegisterController {
 
+    private static final Logger LOGGER = Logger.getLogger(RegisterController.class.getName());
+
     @FXML
     private ImageView logoImage, captchaImage;
     @FXML
@@ -45,11 +57,104 @@ public class RegisterController {
     private Button registerButton, backToLoginButton;
     @FXML
     private Hyperlink privacyPolicyLink;
+    /** Informacja o dostępności nazwy użytkownika i adresu e-mail, aktualizowana podczas pisania. */
+    @FXML
+    private Label usernameStatusLabel, emailStatusLabel;
+
+    /** Czas bez zmian w polu, po którym sprawdzana jest dostępność. */
+    private static final Duration CHECK_DELAY = Duration.millis(300);
+
+    private final PauseTransition usernameDebounce = new PauseTransition(CHECK_DELAY);
+    private final PauseTransition emailDebounce = new PauseTransition(CHECK_DELAY);
+
+    /** Ostatnie sprawdzenia - starsze wyniki są ignorowane. */
+    private CompletableFuture<Boolean> usernameCheck, emailCheck;
 
 
     @FXML
     public void initialize() {
-        logoImage.setImage(new Image(Objects.requireNonNull(getClass().getResourceAsStream("/logo.png"))));
+        logoImage.setImage(UiResources.getInstance().image(UiResources.LOGO));
+
+        usernameDebounce.setOnFinished(event -> checkUsername());
+        emailDebounce.setOnFinished(event -> checkEmail());
+        usernameField.textProperty().addListener((observable, oldText, newText) -> {
+            showStatus(usernameStatusLabel, null, null);
+            usernameDebounce.playFromStart();
+        });
+        emailField.textProperty().addListener((observable, oldText, newText) -> {
+            showStatus(emailStatusLabel, null, null);
+            emailDebounce.playFromStart();
+        });
+    }
+
+    private void checkUsername() {
+        String username = usernameField.getText().trim();
+        if (usernameCheck != null) {
+            usernameCheck.cancel(true);
+        }
+        if (username.isEmpty()) {
+            usernameCheck = null;
+            return;
+        }
+
+        showStatus(usernameStatusLabel, "Sprawdzanie...", null);
+        CompletableFuture<Boolean> check = DatabaseBootstrap.getInstance().whenReady()
+                .thenCompose(database -> database.getUserManager().isUsernameAvailableAsync(username));
+        usernameCheck = check;
+        FxAsync.onFx(check, available -> {
+            if (check == usernameCheck) {
+                showStatus(usernameStatusLabel, available ? "Nazwa użytkownika jest wolna." : "Nazwa użytkownika jest już zajęta.", available);
+            }
+        }, error -> {
+            LOGGER.log(Level.WARNING, "Nie udało się sprawdzić dostępności nazwy użytkownika", error);
+            if (check == usernameCheck) {
+                showStatus(usernameStatusLabel, null, null);
+            }
+        });
+    }
+
+    private void checkEmail() {
+        String email = emailField.getText().trim();
+        if (emailCheck != null) {
+            emailCheck.cancel(true);
+        }
+        if (email.isEmpty()) {
+            emailCheck = null;
+            return;
+        }
+        if (!isEmailValid(email)) {
+            emailCheck = null;
+            showStatus(emailStatusLabel, "Adres email jest niepoprawny.", false);
+            return;
+        }
+
+        showStatus(emailStatusLabel, "Sprawdzanie...", null);
+        CompletableFuture<Boolean> check = DatabaseBootstrap.getInstance().whenReady()
+                .thenCompose(database -> database.getUserManager().isEmailAvailableAsync(email));
+        emailCheck = check;
+        FxAsync.onFx(check, available -> {
+            if (check == emailCheck) {
+                showStatus(emailStatusLabel, available ? "Adres email jest wolny." : "Adres email jest już używany.", available);
+            }
+        }, error -> {
+            LOGGER.log(Level.WARNING, "Nie udało się sprawdzić dostępności adresu email", error);
+            if (check == emailCheck) {
+                showStatus(emailStatusLabel, null, null);
+            }
+        });
+    }
+
+    /**
+     * @param label     etykieta pod polem.
+     * @param text      komunikat; {@code null} chowa etykietę.
+     * @param available {@code true} - zielony, {@code false} - czerwony, {@code null} - neutralny.
+     */
+    private void showStatus(Label label, String text, Boolean available) {
+        label.setVisible(text != null);
+        label.setManaged(text != null);
+        label.setText(text);
+        String color = available == null ? "#a0a8b8" : available ? "#4caf50" : "#ff6b6b";
+        label.setStyle("-fx-text-fill: " + color + "; -fx-font-size: 11px;");
     }
 
 
@@ -57,25 +162,71 @@ public class RegisterController {
     public void handleRegister() {
         if (validateFields()) {
             User newUser = createUser();
-            saveUser(newUser);
-            AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Sukces", "Rejestracja zakończona pomyślnie!");
+            String password = passwordField.getText();
+
+            // Ostateczne sprawdzenie dostępności zapytaniem do bazy - filtry Blooma służą tylko podpowiedziom,
+            // bo nie znają kont zarejestrowanych przez inne klienty
+            CompletableFuture<String> problem = DatabaseBootstrap.getInstance().whenReady().thenCompose(database -> {
+                UserManager userManager = database.getUserManager();
+                return userManager.usernameTakenAsync(newUser.getUsername())
+                        .thenCombine(userManager.emailTakenAsync(newUser.getEmail()), (usernameTaken, emailTaken) -> {
+                            if (usernameTaken) {
+                                return "Nazwa użytkownika jest już zajęta.";
+                            }
+                            return emailTaken ? "Adres email jest już używany." : null;
+                        });
+            });
+
+            // Haszowanie na puli haszującej, zapis na puli bazodanowej - interfejs pozostaje responsywny
+            CompletableFuture<String> registered = problem.thenCompose(message -> message != null
+                    ? CompletableFuture.completedFuture(message)
+                    : PasswordHasher.getInstance().hashAsync(password).thenCompose(hash -> {
+                        newUser.setPassword(hash);
+                        return saveUser(newUser);
+                    }).handle((ignored, error) -> {
+                        if (error == null) {
+                            return null;
+                        }
+                        // Konto o tej nazwie lub e-mailu zarejestrowane między sprawdzeniem a zapisem
+                        if (isConstraintViolation(error)) {
+                            return "Nazwa użytkownika lub adres email jest już zajęty.";
+                        }
+                        throw new CompletionException(FxAsync.unwrap(error));
+                    }));
 
-            openWindow();
+            FxAsync.onFx(registerButton, registered, message -> {
+                if (message != null) {
+                    AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", message);
+                    return;
+                }
+                AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Sukces", "Rejestracja zakończona pomyślnie!");
+
+                openWindow();
+            });
         }
     }
 
+    /** @return nowy użytkownik bez hasła - hasz ustawiany jest po obliczeniu w tle. */
     private User createUser() {
         User newUser = new User();
         newUser.setUsername(usernameField.getText());
         newUser.setEmail(emailField.getText());
-        newUser.setPassword(BCrypt.hashpw(passwordField.getText(), BCrypt.gensalt(12)));
         newUser.setBalance(0.0);
         newUser.setRole("USER");
         return newUser;
     }
 
-    private void saveUser(User user) {
-        DatabaseManager.getInstance().getUserManager().saveUser(user);
+    private CompletableFuture<Void> saveUser(User user) {
+        return DatabaseManager.getInstance().getUserManager().saveUserAsync(user);
+    }
+
+    private static boolean isConstraintViolation(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private boolean validateFields() {
@@ -84,21 +235,11 @@ public class RegisterController {
             return false;
         }
 
-        if (checkUserExistence(usernameField.getText())) {
-            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Nazwa użytkownika jest już zajęta.");
-            return false;
-        }
-
         if (!isEmailValid(emailField.getText())) {
             AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Adres email jest niepoprawny.");
             return false;
         }
 
-        if (checkEmailExistence(emailField.getText())) {
-            AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Adres email jest już używany.");
-            return false;
-        }
-
         if (passwordField.getText().length() < 5) {
             AlertHelper.showAlert(Alert.AlertType.ERROR, "Błąd", "Hasło musi zawierać conajmniej 5 znaków.");
             return false;
@@ -118,15 +259,6 @@ public class RegisterController {
         return true;
     }
 
-    private boolean checkUserExistence(String username) {
-        return DatabaseManager.getInstance().getUserManager().userExists(username);
-    }
-
-    private boolean checkEmailExistence(String email) {
-        return DatabaseManager.getInstance().getUserManager().emailExists(email);
-    }
-
-
     private boolean isEmailValid(String email) {
         return Pattern.compile("^[\\w!#$%&'*+/=?`{|}~^-]+(?:\\.[\\w!#$%&'*+/=?`{|}~^-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,6}$")
                 .matcher(email)
@@ -151,8 +283,7 @@ public class RegisterController {
 
 
     public void showWindow(Stage stage) throws IOException {
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/Register.fxml"));
-        Parent root = loader.load();
+        Parent root = UiResources.getInstance().load(UiResources.View.REGISTER).getRoot();
         stage.setTitle("Rejestracja");
         stage.setScene(new Scene(root));
         stage.show();
@@ -2,12 +2,10 @@ package pl.kakusz.fx.controllers;
 
 import javafx.application.Platform;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.Alert.AlertType;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.stage.Stage;
 import pl.kakusz.database.managers.DatabaseManager;
@@ -15,9 +13,12 @@ import pl.kakusz.database.managers.UserManager;
 import pl.kakusz.database.objects.User;
 import pl.kakusz.fx.AlertHelper;
 import pl.kakusz.fx.ControllerManager;
+import pl.kakusz.fx.FxAsync;
+import pl.kakusz.fx.UiResources;
 
 import java.io.IOException;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 public class ResetPasswordController {
 
@@ -34,18 +35,18 @@ public class ResetPasswordController {
     private PasswordField repeatPasswordField;
 
     @FXML
-    private Button backToLoginButton;
+    private Button mainButton, backToLoginButton;
 
     @FXML
     private ImageView logoImage;
 
     @FXML
     public void initialize() {
-        logoImage.setImage(new Image(Objects.requireNonNull(getClass().getResourceAsStream("/logo.png"))));
+        logoImage.setImage(UiResources.getInstance().image(UiResources.LOGO));
     }
 
     public void showWindow(Stage stage) throws IOException {
-        Parent parent = FXMLLoader.load(Objects.requireNonNull(getClass().getResource("/ResetPassword.fxml")));
+        Parent parent = UiResources.getInstance().load(UiResources.View.RESET_PASSWORD).getRoot();
         stage.setTitle("Logowanie");
         stage.setScene(new Scene(parent));
         stage.show();
@@ -67,21 +68,26 @@ public class ResetPasswordController {
 
         String email = emailField.getText();
 
-        UserManager userManager = DatabaseManager.getInstance().getUserManager();
-        User user = userManager.getUserByEmail(email);
-        if (user == null) {
-            AlertHelper.showAlert(AlertType.ERROR, "Błąd", "Użytkownik o podanym adresie e-mail nie istnieje.");
-            return;
-        }
-
         String oldPassword = oldPasswordField.getText();
-        boolean success = userManager.updatePassword(email, oldPassword, passwordField.getText());
-        if (success) {
-            AlertHelper.showAlert(AlertType.CONFIRMATION, "Sukces", "Hasło zostało zresetowane pomyślnie.");
-            clearFields();
-        } else {
-            AlertHelper.showAlert(AlertType.ERROR, "Błąd", "Stare hasło jest niepoprawne. Spróbuj ponownie.");
-        }
+        String newPassword = passwordField.getText();
+
+        // Zapytania i BCrypt wykonywane są w tle; null oznacza brak użytkownika
+        UserManager userManager = DatabaseManager.getInstance().getUserManager();
+        CompletableFuture<Boolean> updated = userManager.getUserByEmailAsync(email)
+                .thenCompose(user -> user == null
+                        ? CompletableFuture.completedFuture((Boolean) null)
+                        : userManager.updatePasswordAsync(email, oldPassword, newPassword));
+
+        FxAsync.onFx(mainButton, updated, success -> {
+            if (success == null) {
+                AlertHelper.showAlert(AlertType.ERROR, "Błąd", "Użytkownik o podanym adresie e-mail nie istnieje.");
+            } else if (success) {
+                AlertHelper.showAlert(AlertType.CONFIRMATION, "Sukces", "Hasło zostało zresetowane pomyślnie.");
+                clearFields();
+            } else {
+                AlertHelper.showAlert(AlertType.ERROR, "Błąd", "Stare hasło jest niepoprawne. Spróbuj ponownie.");
+            }
+        });
     }
 
 
@@ -0,0 +1,236 @@
+package pl.kakusz.security;
+
+import lombok.Getter;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ogranicznik prób logowania, sprawdzany przed jakimkolwiek zapytaniem do bazy i BCrypt.
+ *
+ * <p>Adres e-mail wskazuje jeden z {@value #STRIPES} pasków; każdy pasek to niezmienny stan
+ * podmieniany przez compare-and-set, więc nie ma żadnej globalnej blokady. Stan zawiera
+ * licznik okna przesuwnego (bieżące i poprzednie okno, ważone upływem czasu) oraz serię
+ * nieudanych prób, od której zależy wykładniczy czas blokady.</p>
+ *
+ * <h3>Założenia:</h3>
+ * <ul>
+ *   <li>Najwyżej {@value #MAX_ATTEMPTS} prób na adres w oknie {@value #WINDOW_SECONDS} s.</li>
+ *   <li>Po {@value #FREE_FAILURES} nieudanych próbach z rzędu każda kolejna podwaja blokadę,
+ *       od {@value #BASE_BACKOFF_MILLIS} ms do {@value #MAX_BACKOFF_SECONDS} s; udane logowanie ją zeruje.</li>
+ *   <li>Pamięć jest stała niezależnie od liczby adresów; adresy trafiające do tego samego paska
+ *       dzielą limit - przy {@value #STRIPES} paskach zdarza się to rzadko.</li>
+ * </ul>
+ */
+public class LoginRateLimiter {
+
+    /** Liczba pasków; potęga dwójki. */
+    private static final int STRIPES = 4096;
+
+    private static final long WINDOW_SECONDS = 60;
+    private static final int MAX_ATTEMPTS = 10;
+    private static final int FREE_FAILURES = 3;
+    private static final long BASE_BACKOFF_MILLIS = 1_000;
+    private static final long MAX_BACKOFF_SECONDS = 300;
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(WINDOW_SECONDS);
+
+    private static LoginRateLimiter instance;
+
+    private final AtomicReferenceArray<Window> stripes = new AtomicReferenceArray<>(STRIPES);
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejectedByRate = new LongAdder();
+    private final LongAdder rejectedByBackoff = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public static synchronized LoginRateLimiter getInstance() {
+        if (instance == null) {
+            instance = new LoginRateLimiter();
+        }
+        return instance;
+    }
+
+    /** Wynik sprawdzenia limitu. */
+    @Getter
+    public static class Decision {
+        private static final Decision ALLOWED = new Decision(true, 0);
+
+        private final boolean allowed;
+        /** Po ilu milisekundach warto spróbować ponownie; 0 dla dozwolonych prób. */
+        private final long retryAfterMillis;
+
+        private Decision(boolean allowed, long retryAfterMillis) {
+            this.allowed = allowed;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        /** @return czas do kolejnej próby w pełnych sekundach (co najmniej 1). */
+        public long getRetryAfterSeconds() {
+            return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(retryAfterMillis + 999));
+        }
+    }
+
+    /** Stan paska - niezmienny, podmieniany w całości. */
+    private static final class Window {
+        private static final Window EMPTY = new Window(0, 0, 0, 0, 0);
+
+        private final long start;
+        private final int previous;
+        private final int current;
+        private final int failures;
+        /** Koniec blokady ({@link System#nanoTime()}); obowiązuje tylko przy serii ponad {@value #FREE_FAILURES}. */
+        private final long blockedUntil;
+
+        private Window(long start, int previous, int current, int failures, long blockedUntil) {
+            this.start = start;
+            this.previous = previous;
+            this.current = current;
+            this.failures = failures;
+            this.blockedUntil = blockedUntil;
+        }
+
+        /** Przesuwa okno do chwili {@code now}. */
+        private Window roll(long now) {
+            long elapsed = now - start;
+            if (this == EMPTY || elapsed >= 2 * WINDOW_NANOS) {
+                return new Window(now, 0, 0, failures, blockedUntil);
+            }
+            if (elapsed >= WINDOW_NANOS) {
+                return new Window(start + WINDOW_NANOS, current, 0, failures, blockedUntil);
+            }
+            return this;
+        }
+
+        /** Liczba prób w ostatnim oknie: bieżące plus proporcjonalna część poprzedniego. */
+        private double estimate(long now) {
+            double previousWeight = 1.0 - (double) (now - start) / WINDOW_NANOS;
+            return current + previous * Math.max(0, previousWeight);
+        }
+    }
+
+    /**
+     * Rejestruje próbę logowania, o ile mieści się w limicie.
+     *
+     * @param email adres podany w formularzu.
+     * @return decyzja; odrzucona próba nie powinna trafić do bazy ani BCrypt.
+     */
+    public Decision tryAcquire(String email) {
+        int index = indexOf(email);
+        while (true) {
+            long now = System.nanoTime();
+            Window state = stripes.get(index);
+            Window rolled = (state == null ? Window.EMPTY : state).roll(now);
+
+            if (rolled.failures > FREE_FAILURES && rolled.blockedUntil - now > 0) {
+                rejectedByBackoff.increment();
+                return new Decision(false, TimeUnit.NANOSECONDS.toMillis(rolled.blockedUntil - now));
+            }
+            if (rolled.estimate(now) >= MAX_ATTEMPTS) {
+                rejectedByRate.increment();
+                return new Decision(false, TimeUnit.NANOSECONDS.toMillis(rolled.start + WINDOW_NANOS - now));
+            }
+
+            Window next = new Window(rolled.start, rolled.previous, rolled.current + 1, rolled.failures, rolled.blockedUntil);
+            if (stripes.compareAndSet(index, state, next)) {
+                allowed.increment();
+                return Decision.ALLOWED;
+            }
+        }
+    }
+
+    /**
+     * Zgłasza nieudane logowanie (brak użytkownika lub błędne hasło) i wydłuża blokadę.
+     *
+     * @param email adres podany w formularzu.
+     */
+    public void onFailure(String email) {
+        failures.increment();
+        int index = indexOf(email);
+        while (true) {
+            long now = System.nanoTime();
+            Window state = stripes.get(index);
+            Window rolled = (state == null ? Window.EMPTY : state).roll(now);
+
+            int streak = rolled.failures + 1;
+            long blockedUntil = rolled.blockedUntil;
+            if (streak > FREE_FAILURES) {
+                blockedUntil = now + TimeUnit.MILLISECONDS.toNanos(backoffMillis(streak - FREE_FAILURES));
+            }
+            Window next = new Window(rolled.start, rolled.previous, rolled.current, streak, blockedUntil);
+            if (stripes.compareAndSet(index, state, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Zgłasza udane logowanie - zeruje serię porażek i blokadę paska.
+     *
+     * @param email adres podany w formularzu.
+     */
+    public void onSuccess(String email) {
+        int index = indexOf(email);
+        while (true) {
+            Window state = stripes.get(index);
+            if (state == null || state.failures == 0) {
+                return;
+            }
+            Window next = new Window(state.start, state.previous, state.current, 0, 0);
+            if (stripes.compareAndSet(index, state, next)) {
+                return;
+            }
+        }
+    }
+
+    /** @return blokada dla n-tej nadmiarowej porażki: 1 s, 2 s, 4 s... do limitu. */
+    static long backoffMillis(int excessFailures) {
+        long maxMillis = TimeUnit.SECONDS.toMillis(MAX_BACKOFF_SECONDS);
+        int shift = Math.min(excessFailures - 1, 30);
+        return Math.min(maxMillis, BASE_BACKOFF_MILLIS << shift);
+    }
+
+    private static int indexOf(String email) {
+        String key = email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        return hash & (STRIPES - 1);
+    }
+
+    /** @return liczba prób przepuszczonych do bazy. */
+    public long getAllowedCount() {
+        return allowed.sum();
+    }
+
+    /** @return liczba prób odrzuconych (limit okna i blokada łącznie). */
+    public long getRejectedCount() {
+        return rejectedByRate.sum() + rejectedByBackoff.sum();
+    }
+
+    /** @return liczba prób odrzuconych z powodu przekroczenia limitu okna. */
+    public long getRejectedByRateCount() {
+        return rejectedByRate.sum();
+    }
+
+    /** @return liczba prób odrzuconych z powodu blokady po nieudanych logowaniach. */
+    public long getRejectedByBackoffCount() {
+        return rejectedByBackoff.sum();
+    }
+
+    /** @return liczba nieudanych logowań. */
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "Logowanie: dozwolone=" + getAllowedCount()
+                + ", odrzucone=" + getRejectedCount()
+                + " (limit=" + getRejectedByRateCount() + ", blokada=" + getRejectedByBackoffCount() + ")"
+                + ", nieudane=" + getFailureCount();
+    }
+}
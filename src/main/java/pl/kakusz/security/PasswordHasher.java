@@ -0,0 +1,197 @@
+package pl.kakusz.security;
+
+import org.mindrot.jbcrypt.BCrypt;
+import pl.kakusz.database.managers.DatabaseExecutor;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Haszowanie i weryfikacja haseł (BCrypt) na osobnej, ograniczonej puli wątków.
+ *
+ * <p>Jedno wywołanie BCrypt z kosztem 12 to kilkaset milisekund pracy procesora, dlatego nigdy
+ * nie powinno trafiać na wątek JavaFX ani zajmować wątków puli bazodanowej. Koszt dobierany jest
+ * przy starcie tak, by haszowanie trwało około {@value #DEFAULT_TARGET_MILLIS} ms na danej maszynie.</p>
+ *
+ * <h3>Założenia:</h3>
+ * <ul>
+ *   <li>Pula ma najwyżej połowę rdzeni procesora i krótką kolejkę - nadmiar równoczesnych
+ *       logowań kończy się {@link RejectedExecutionException} zamiast zatkania procesora.</li>
+ *   <li>Koszt nigdy nie spada poniżej {@value #MIN_COST}. Właściwość systemowa {@value #COST_PROPERTY}
+ *       ustala go na sztywno, a {@value #TARGET_PROPERTY} zmienia docelowy czas kalibracji.</li>
+ *   <li>Hasze o koszcie niższym niż bieżący są przy logowaniu przeliczane na nowo
+ *       ({@link #needsRehash(String)}).</li>
+ * </ul>
+ */
+public class PasswordHasher {
+
+    /** Właściwość systemowa ustalająca koszt BCrypt (wyłącza kalibrację). */
+    public static final String COST_PROPERTY = "password.bcrypt.cost";
+
+    /** Właściwość systemowa z docelowym czasem haszowania w milisekundach. */
+    public static final String TARGET_PROPERTY = "password.bcrypt.targetMillis";
+
+    /** Najniższy dopuszczalny koszt. */
+    public static final int MIN_COST = 10;
+
+    /** Najwyższy koszt, jaki może wybrać kalibracja. */
+    public static final int MAX_COST = 16;
+
+    /** Koszt używany do czasu zakończenia kalibracji - taki jak w dotychczasowych haszach. */
+    public static final int DEFAULT_COST = 12;
+
+    private static final long DEFAULT_TARGET_MILLIS = 250;
+
+    /** Maksymalna liczba haszowań oczekujących w kolejce. */
+    private static final int QUEUE_CAPACITY = 32;
+
+    private static final Logger LOGGER = Logger.getLogger(PasswordHasher.class.getName());
+
+    private static PasswordHasher instance;
+
+    private final ThreadPoolExecutor executor;
+    private volatile int cost;
+
+    public PasswordHasher() {
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), DatabaseExecutor.namedDaemonThreads("password-hasher"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.cost = Integer.getInteger(COST_PROPERTY, DEFAULT_COST);
+    }
+
+    public static synchronized PasswordHasher getInstance() {
+        if (instance == null) {
+            instance = new PasswordHasher();
+        }
+        return instance;
+    }
+
+    /** @return koszt BCrypt używany dla nowych haszy. */
+    public int getCost() {
+        return cost;
+    }
+
+    /**
+     * Mierzy czas haszowania na tej maszynie i ustawia najwyższy koszt, który mieści się
+     * w docelowym czasie. Nie robi nic, jeśli koszt ustalono właściwością {@value #COST_PROPERTY}.
+     *
+     * @return future z wybranym kosztem.
+     */
+    public CompletableFuture<Integer> calibrateAsync() {
+        if (Integer.getInteger(COST_PROPERTY) != null) {
+            return CompletableFuture.completedFuture(cost);
+        }
+        return submit(() -> {
+            long target = Long.getLong(TARGET_PROPERTY, DEFAULT_TARGET_MILLIS);
+
+            // Rozgrzanie JIT, potem pomiar najniższego kosztu; każdy kolejny koszt podwaja czas
+            BCrypt.hashpw("kalibracja", BCrypt.gensalt(4));
+            long start = System.nanoTime();
+            BCrypt.hashpw("kalibracja", BCrypt.gensalt(MIN_COST));
+            double millis = Math.max(1, (System.nanoTime() - start) / 1_000_000.0);
+
+            int calibrated = MIN_COST;
+            while (calibrated < MAX_COST && millis * 2 <= target) {
+                millis *= 2;
+                calibrated++;
+            }
+            cost = calibrated;
+            LOGGER.info("BCrypt: koszt " + calibrated + " (~" + Math.round(millis) + " ms na hasz)");
+            return calibrated;
+        });
+    }
+
+    /**
+     * Haszuje hasło bieżącym kosztem na puli haszującej.
+     *
+     * @param password hasło w postaci jawnej.
+     * @return future z haszem BCrypt.
+     */
+    public CompletableFuture<String> hashAsync(String password) {
+        return submit(() -> hash(password));
+    }
+
+    /**
+     * Sprawdza hasło z haszem na puli haszującej.
+     *
+     * @param password hasło w postaci jawnej.
+     * @param hash     zapisany hasz BCrypt.
+     * @return future z wynikiem; {@code false} również dla uszkodzonego haszu.
+     */
+    public CompletableFuture<Boolean> verifyAsync(String password, String hash) {
+        return submit(() -> verify(password, hash));
+    }
+
+    /**
+     * Wersja synchroniczna {@link #hashAsync(String)} - tylko dla kodu działającego już w tle.
+     */
+    public String hash(String password) {
+        return BCrypt.hashpw(password, BCrypt.gensalt(cost));
+    }
+
+    /**
+     * Wersja synchroniczna {@link #verifyAsync(String, String)} - tylko dla kodu działającego już w tle.
+     */
+    public boolean verify(String password, String hash) {
+        if (password == null || hash == null) {
+            return false;
+        }
+        try {
+            return BCrypt.checkpw(password, hash);
+        } catch (IllegalArgumentException e) {
+            // Zapis, który nie jest haszem BCrypt
+            return false;
+        }
+    }
+
+    /**
+     * @param hash zapisany hasz BCrypt.
+     * @return {@code true}, jeśli hasz ma koszt niższy niż bieżący lub nie da się go odczytać.
+     */
+    public boolean needsRehash(String hash) {
+        return costOf(hash) < cost;
+    }
+
+    /**
+     * @param hash hasz w formacie {@code $2a$12$...}.
+     * @return koszt zapisany w haszu lub {@code -1}, jeśli format jest nieznany.
+     */
+    static int costOf(String hash) {
+        if (hash == null || hash.length() < 7 || hash.charAt(0) != '$' || hash.charAt(3) != '$' || hash.charAt(6) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(hash.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /** Zatrzymuje pulę haszującą. */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    result.complete(task.call());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new RejectedExecutionException("Zbyt wiele równoczesnych prób logowania. Spróbuj ponownie za chwilę.", e));
+        }
+        return result;
+    }
+}
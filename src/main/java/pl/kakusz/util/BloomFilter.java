@@ -0,0 +1,155 @@
+package pl.kakusz.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtr Blooma dla napisów - odpowiada "na pewno nie ma" albo "może być".
+ *
+ * <p>Bity trzymane są w {@link AtomicLongArray}, więc dodawanie i sprawdzanie z różnych wątków
+ * jest bezpieczne bez blokad. Pozycje bitów wyznacza podwójne haszowanie
+ * ({@code h1 + i * h2}) z jednego 128-bitowego skrótu MurmurHash3.</p>
+ *
+ * <p>Elementów nie da się usuwać; filtr po usunięciu danych należy zbudować od nowa.</p>
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions przewidywana liczba elementów.
+     * @param falsePositiveRate  dopuszczalny odsetek fałszywych "może być" (np. {@code 0.01}).
+     */
+    public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        int n = Math.max(1, expectedInsertions);
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int words = (int) Math.max(1, (m + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = words * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * ln2));
+    }
+
+    /**
+     * @param value dodawany element.
+     */
+    public void put(String value) {
+        long[] hash = murmur3(value.getBytes(StandardCharsets.UTF_8));
+        long combined = hash[0];
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (combined & Long.MAX_VALUE) % bitCount;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+            combined += hash[1];
+        }
+    }
+
+    /**
+     * @param value sprawdzany element.
+     * @return {@code false}, jeśli elementu na pewno nie dodano; {@code true}, jeśli mógł zostać dodany.
+     */
+    public boolean mightContain(String value) {
+        long[] hash = murmur3(value.getBytes(StandardCharsets.UTF_8));
+        long combined = hash[0];
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (combined & Long.MAX_VALUE) % bitCount;
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+            combined += hash[1];
+        }
+        return true;
+    }
+
+    /** @return liczba bitów filtra. */
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    /** @return liczba funkcji haszujących. */
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /** MurmurHash3 x64 128-bit (ziarno 0); końcówka danych celowo przechodzi przez kolejne przypadki. */
+    @SuppressWarnings("fallthrough")
+    private static long[] murmur3(byte[] data) {
+        final long c1 = 0x87c37b91114253d5L;
+        final long c2 = 0x4cf5ad432745937fL;
+        long h1 = 0;
+        long h2 = 0;
+        int blocks = data.length / 16;
+
+        for (int i = 0; i < blocks; i++) {
+            long k1 = getLong(data, i * 16);
+            long k2 = getLong(data, i * 16 + 8);
+            k1 *= c1; k1 = Long.rotateLeft(k1, 31); k1 *= c2; h1 ^= k1;
+            h1 = Long.rotateLeft(h1, 27); h1 += h2; h1 = h1 * 5 + 0x52dce729;
+            k2 *= c2; k2 = Long.rotateLeft(k2, 33); k2 *= c1; h2 ^= k2;
+            h2 = Long.rotateLeft(h2, 31); h2 += h1; h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        long k1 = 0;
+        long k2 = 0;
+        int tail = blocks * 16;
+        switch (data.length & 15) {
+            case 15: k2 ^= (long) (data[tail + 14] & 0xff) << 48; // fallthrough
+            case 14: k2 ^= (long) (data[tail + 13] & 0xff) << 40; // fallthrough
+            case 13: k2 ^= (long) (data[tail + 12] & 0xff) << 32; // fallthrough
+            case 12: k2 ^= (long) (data[tail + 11] & 0xff) << 24; // fallthrough
+            case 11: k2 ^= (long) (data[tail + 10] & 0xff) << 16; // fallthrough
+            case 10: k2 ^= (long) (data[tail + 9] & 0xff) << 8; // fallthrough
+            case 9:
+                k2 ^= data[tail + 8] & 0xff;
+                k2 *= c2; k2 = Long.rotateLeft(k2, 33); k2 *= c1; h2 ^= k2; // fallthrough
+            case 8: k1 ^= (long) (data[tail + 7] & 0xff) << 56; // fallthrough
+            case 7: k1 ^= (long) (data[tail + 6] & 0xff) << 48; // fallthrough
+            case 6: k1 ^= (long) (data[tail + 5] & 0xff) << 40; // fallthrough
+            case 5: k1 ^= (long) (data[tail + 4] & 0xff) << 32; // fallthrough
+            case 4: k1 ^= (long) (data[tail + 3] & 0xff) << 24; // fallthrough
+            case 3: k1 ^= (long) (data[tail + 2] & 0xff) << 16; // fallthrough
+            case 2: k1 ^= (long) (data[tail + 1] & 0xff) << 8; // fallthrough
+            case 1:
+                k1 ^= data[tail] & 0xff;
+                k1 *= c1; k1 = Long.rotateLeft(k1, 31); k1 *= c2; h1 ^= k1; // fallthrough
+            default:
+                break;
+        }
+
+        h1 ^= data.length;
+        h2 ^= data.length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new long[]{h1, h2};
+    }
+
+    private static long getLong(byte[] data, int offset) {
+        long value = 0;
+        for (int i = 7; i >= 0; i--) {
+            value = (value << 8) | (data[offset + i] & 0xff);
+        }
+        return value;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb93fe66cd53bL;
+        k ^= k >>> 33;
+        return k;
+    }
+}
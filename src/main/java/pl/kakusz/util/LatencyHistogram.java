@@ -0,0 +1,141 @@
+package pl.kakusz.util;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lekki histogram czasów (w nanosekundach) o kubełkach log-liniowych, w stylu HdrHistogram.
+ *
+ * <p>Każda potęga dwójki dzielona jest na {@value #SUB_BUCKETS} kubełków, co daje błąd
+ * względny percentyli poniżej ~6%. Zapis to jedna operacja atomowa na tablicy bez
+ * żadnych blokad, więc histogram można wywoływać z dowolnej liczby wątków.</p>
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Zapisuje pojedynczy pomiar.
+     *
+     * @param nanos czas w nanosekundach; wartości ujemne traktowane są jak zero.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        totalCount.increment();
+        totalNanos.add(value);
+        if (value > maxNanos.get()) {
+            maxNanos.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Zapisuje pomiar wyrażony w podanej jednostce.
+     *
+     * @param duration czas trwania.
+     * @param unit     jednostka czasu.
+     */
+    public void record(long duration, TimeUnit unit) {
+        record(unit.toNanos(duration));
+    }
+
+    /** Zeruje histogram (pomiary zapisywane równolegle mogą częściowo przetrwać). */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+    }
+
+    /** @return niezmienna migawka z liczbą pomiarów, średnią, maksimum i percentylami. */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, totalNanos.sum(), maxNanos.get());
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        long lower = (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return lower + width - 1;
+    }
+
+    /** Migawka histogramu; wszystkie czasy w nanosekundach. */
+    @Getter
+    public static class Snapshot {
+        private final long count;
+        private final long meanNanos;
+        private final long maxNanos;
+        private final long p50Nanos;
+        private final long p90Nanos;
+        private final long p99Nanos;
+        private final long p999Nanos;
+
+        private Snapshot(long[] counts, long count, long totalNanos, long maxNanos) {
+            this.count = count;
+            this.meanNanos = count == 0 ? 0 : totalNanos / count;
+            this.maxNanos = maxNanos;
+            this.p50Nanos = percentile(counts, count, maxNanos, 0.50);
+            this.p90Nanos = percentile(counts, count, maxNanos, 0.90);
+            this.p99Nanos = percentile(counts, count, maxNanos, 0.99);
+            this.p999Nanos = percentile(counts, count, maxNanos, 0.999);
+        }
+
+        private static long percentile(long[] counts, long count, long max, double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(quantile * count);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(i), max);
+                }
+            }
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("n=%d, avg=%.2fms, p50=%.2fms, p90=%.2fms, p99=%.2fms, p99.9=%.2fms, max=%.2fms",
+                    count, millis(meanNanos), millis(p50Nanos), millis(p90Nanos),
+                    millis(p99Nanos), millis(p999Nanos), millis(maxNanos));
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package pl.kakusz.util;
+
+import java.util.Arrays;
+
+/**
+ * Zbiór liczb {@code long} oparty na tablicy prymitywów z adresowaniem otwartym.
+ *
+ * <p>W przeciwieństwie do {@code HashSet<Long>} nie tworzy obiektów przy dodawaniu ani
+ * sprawdzaniu elementów - {@link #contains(long)} to kilka odczytów z jednej tablicy.
+ * Wartość {@code 0} oznacza w tablicy pusty slot, dlatego jest przechowywana osobno.</p>
+ *
+ * <p>Klasa nie jest bezpieczna wątkowo.</p>
+ */
+public class LongHashSet {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+    private int size;
+    private boolean containsZero;
+
+    public LongHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize przewidywana liczba elementów; tablica jest od razu dobierana tak, by jej nie powiększać.
+     */
+    public LongHashSet(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+        this.keys = new long[capacity];
+    }
+
+    /**
+     * @param value dodawana wartość.
+     * @return {@code true}, jeśli wartości nie było w zbiorze.
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+
+        int mask = keys.length - 1;
+        int index = mix(value) & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = value;
+        size++;
+        if (size > keys.length * 3 / 4) {
+            resize(keys.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * @param value szukana wartość.
+     * @return {@code true}, jeśli wartość należy do zbioru.
+     */
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsZero;
+        }
+        int mask = keys.length - 1;
+        int index = mix(value) & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @param value usuwana wartość.
+     * @return {@code true}, jeśli wartość należała do zbioru.
+     */
+    public boolean remove(long value) {
+        if (value == EMPTY) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+            size--;
+            return true;
+        }
+
+        int mask = keys.length - 1;
+        int index = mix(value) & mask;
+        while (keys[index] != value) {
+            if (keys[index] == EMPTY) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = EMPTY;
+        size--;
+
+        // Przesunięcie kolejnych elementów łańcucha, żeby wyszukiwanie nie zatrzymało się na dziurze
+        int next = (index + 1) & mask;
+        while (keys[next] != EMPTY) {
+            long moved = keys[next];
+            keys[next] = EMPTY;
+            size--;
+            add(moved);
+            next = (next + 1) & mask;
+        }
+        return true;
+    }
+
+    /** @return liczba elementów. */
+    public int size() {
+        return size;
+    }
+
+    /** @return {@code true}, jeśli zbiór jest pusty. */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Usuwa wszystkie elementy, zachowując rozmiar tablicy. */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        containsZero = false;
+        size = 0;
+    }
+
+    private void resize(int capacity) {
+        long[] old = keys;
+        keys = new long[capacity];
+        size = containsZero ? 1 : 0;
+        for (long value : old) {
+            if (value != EMPTY) {
+                add(value);
+            }
+        }
+    }
+
+    /** Mieszanie bitów (finalizer MurmurHash3), bo kolejne identyfikatory różnią się tylko młodszymi bitami. */
+    private static int mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
@@ -0,0 +1,11 @@
+-- Przykładowe kursy dla lokalnej bazy H2 (profil -Dhibernate.profile=h2, hbm2ddl.auto=create); jedna instrukcja na wiersz
+INSERT INTO courses (id, name, description, price, link) VALUES (NEXT VALUE FOR courses_seq, 'Angielski od podstaw', 'Kurs angielskiego dla początkujących: alfabet, wymowa, podstawowe zwroty i gramatyka.', 199.0, 'https://example.com/kursy/angielski-a1');
+INSERT INTO courses (id, name, description, price, link) VALUES (NEXT VALUE FOR courses_seq, 'Angielski biznesowy', 'Korespondencja, prezentacje i negocjacje po angielsku w środowisku pracy.', 349.0, 'https://example.com/kursy/angielski-biznes');
+INSERT INTO courses (id, name, description, price, link) VALUES (NEXT VALUE FOR courses_seq, 'Angielski - przygotowanie do FCE', 'Przygotowanie do egzaminu Cambridge First: testy próbne, słownictwo i pisanie.', 429.0, 'https://example.com/kursy/angielski-fce');
+INSERT INTO courses (id, name, description, price, link) VALUES (NEXT VALUE FOR courses_seq, 'Niemiecki od podstaw', 'Podstawy języka niemieckiego: rodzajniki, odmiana czasowników i codzienne rozmowy.', 219.0, 'https://example.com/kursy/niemiecki-a1');
+INSERT INTO courses (id, name, description, price, link) VALUES (NEXT VALUE FOR courses_seq, 'Niemiecki w podróży', 'Zwroty przydatne na lotnisku, w hotelu i restauracji.', 149.0, 'https://example.com/kursy/niemiecki-podroz');
+INSERT INTO courses (id, name, description, price, link) VALUES (NEXT VALUE FOR courses_seq, 'Hiszpański od podstaw', 'Pierwsze kroki w hiszpańskim: wymowa, liczebniki i czas teraźniejszy.', 209.0, 'https://example.com/kursy/hiszpanski-a1');
+INSERT INTO courses (id, name, description, price, link) VALUES (NEXT VALUE FOR courses_seq, 'Hiszpański konwersacje', 'Rozmowy na tematy codzienne dla osób znających podstawy gramatyki.', 279.0, 'https://example.com/kursy/hiszpanski-konwersacje');
+INSERT INTO courses (id, name, description, price, link) VALUES (NEXT VALUE FOR courses_seq, 'Francuski od podstaw', 'Wymowa, akcent i podstawowe konstrukcje języka francuskiego.', 229.0, 'https://example.com/kursy/francuski-a1');
+INSERT INTO courses (id, name, description, price, link) VALUES (NEXT VALUE FOR courses_seq, 'Włoski dla smakoszy', 'Włoski przy stole: słownictwo kulinarne, zamawianie i przepisy.', 179.0, 'https://example.com/kursy/wloski-kuchnia');
+INSERT INTO courses (id, name, description, price, link) VALUES (NEXT VALUE FOR courses_seq, 'Japoński - hiragana i katakana', 'Nauka obu sylabariuszy japońskich z ćwiczeniami pisania.', 259.0, 'https://example.com/kursy/japonski-kana');